@@ -0,0 +1,86 @@
+package com.manufacturing.backend.benchmark;
+
+import com.manufacturing.backend.BackendApplication;
+import com.manufacturing.backend.common.EmployeePosition;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Boots the application without a web server on an in-memory H2 database and generates
+ * fixtures with set-based SQL, so even the largest data sets load in seconds.
+ */
+final class BenchmarkFixtures {
+
+    static final int PRODUCTS = 50;
+    static final int MACHINES = 20;
+    static final int EMPLOYEES = 100;
+
+    private BenchmarkFixtures() {
+    }
+
+    static ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "kpi.reconciliation.interval=P1D",
+                        "logging.level.root=WARN"
+                )
+                .run();
+    }
+
+    /**
+     * Insert the reference data: products with the given stock, machines and employees.
+     * IDs start at 1.
+     */
+    static void seedReferenceData(JdbcTemplate jdbc, int stock) {
+        jdbc.update("""
+                insert into product (id, name, type, stock, reserved_stock, supplier, created_at, updated_at, version)
+                select x, concat('Product ', x), %s, ?, 0, concat('Supplier ', mod(x, 5)), now(), now(), 0
+                from system_range(1, ?)
+                """.formatted(cycle(ProductType.values())), stock, PRODUCTS);
+        jdbc.update("""
+                insert into machine (id, name, status, created_at, updated_at, version)
+                select x, concat('Machine ', x), %s, now(), now(), 0
+                from system_range(1, ?)
+                """.formatted(cycle(MachineStatus.values())), MACHINES);
+        jdbc.update("""
+                insert into employee (id, name, position, machine_id, created_at, updated_at, version)
+                select x, concat('Employee ', x), %s, 1 + mod(x, ?), now(), now(), 0
+                from system_range(1, ?)
+                """.formatted(cycle(EmployeePosition.values())), MACHINES, EMPLOYEES);
+    }
+
+    /**
+     * Insert orders spread over a year, across every status, product and machine.
+     */
+    static void seedOrders(JdbcTemplate jdbc, int orders) {
+        jdbc.update("""
+                insert into manufacturing_order
+                    (id, project, status, quantity, date, product_id, machine_id, created_at, updated_at, version)
+                select x, concat('Project ', mod(x, 100)), %s, 1 + mod(x * 31, 100),
+                       dateadd('MINUTE', mod(x * 7919, 525600), timestamp '2025-01-01 00:00:00'),
+                       1 + mod(x, ?), 1 + mod(x * 7, ?), now(), now(), 0
+                from system_range(1, ?)
+                """.formatted(cycle(ManufacturingOrderStatus.values())), PRODUCTS, MACHINES, orders);
+    }
+
+    // SQL expression picking the enum constants in turn based on the row number x
+    private static String cycle(Enum<?>[] values) {
+        StringBuilder sql = new StringBuilder("case mod(x, ").append(values.length).append(')');
+        for (int i = 0; i < values.length; i++) {
+            sql.append(" when ").append(i).append(" then '").append(values[i].name()).append('\'');
+        }
+        return sql.append(" end").toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.manufacturing.backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manufacturing.backend.common.UtilizationWeight;
+import com.manufacturing.backend.service.KpiService;
+import com.manufacturing.backend.service.ProductService;
+import com.manufacturing.backend.service.ResourceVersionTracker;
+import com.manufacturing.backend.service.ResourceVersionTracker.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work done for a polling GET whose data did not change: computing and serializing the body,
+ * as before conditional requests, against building the ETag and matching If-None-Match.
+ * Run with {@code -prof gc} to compare allocations as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConditionalGetBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private ProductService productService;
+    private KpiService kpiService;
+    private ResourceVersionTracker resourceVersionTracker;
+    private String productsETag;
+    private String utilizationETag;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkFixtures.start("conditional-get");
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkFixtures.seedReferenceData(jdbc, 100);
+        BenchmarkFixtures.seedOrders(jdbc, orders);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        productService = context.getBean(ProductService.class);
+        kpiService = context.getBean(KpiService.class);
+        resourceVersionTracker = context.getBean(ResourceVersionTracker.class);
+        productsETag = resourceVersionTracker.tag(Resource.PRODUCTS).eTag();
+        utilizationETag = resourceVersionTracker.tag(Resource.ORDERS, Resource.MACHINES).eTag();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] productPageFull() throws Exception {
+        return objectMapper.writeValueAsBytes(productService.findProductPage(null, 50));
+    }
+
+    @Benchmark
+    public boolean productPageNotModified() {
+        return productsETag.equals(resourceVersionTracker.tag(Resource.PRODUCTS).eTag());
+    }
+
+    @Benchmark
+    public byte[] machineUtilizationFull() throws Exception {
+        return objectMapper.writeValueAsBytes(kpiService.getMachineUtilization(null, null, UtilizationWeight.ORDER_COUNT));
+    }
+
+    @Benchmark
+    public boolean machineUtilizationNotModified() {
+        return utilizationETag.equals(resourceVersionTracker.tag(Resource.ORDERS, Resource.MACHINES).eTag());
+    }
+}
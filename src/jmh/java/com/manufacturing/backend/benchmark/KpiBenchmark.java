@@ -0,0 +1,114 @@
+package com.manufacturing.backend.benchmark;
+
+import com.manufacturing.backend.common.EmployeeWorkload;
+import com.manufacturing.backend.common.ProductStockCover;
+import com.manufacturing.backend.common.ProductStockLevel;
+import com.manufacturing.backend.common.TrendGranularity;
+import com.manufacturing.backend.common.UtilizationWeight;
+import com.manufacturing.backend.service.KpiService;
+import com.manufacturing.backend.service.KpiStore;
+import com.manufacturing.backend.service.OrderRollupService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KPI endpoints at growing order volumes. The store-backed KPIs should stay flat,
+ * the grouped queries and the store rebuild grow with the table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class KpiBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private KpiService kpiService;
+    private KpiStore kpiStore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkFixtures.start("kpi");
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkFixtures.seedReferenceData(jdbc, 100);
+        BenchmarkFixtures.seedOrders(jdbc, orders);
+        kpiService = context.getBean(KpiService.class);
+        kpiStore = context.getBean(KpiStore.class);
+        kpiStore.rebuild();
+        context.getBean(OrderRollupService.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Long> ordersStatusCount() {
+        return kpiService.getOrdersStatusCount();
+    }
+
+    @Benchmark
+    public Map<String, Long> ordersTrendDailyForOneMonth() {
+        return kpiService.getOrdersTrend(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30), TrendGranularity.DAY);
+    }
+
+    @Benchmark
+    public Map<String, Long> ordersTrendWeeklyForOneYear() {
+        return kpiService.getOrdersTrend(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), TrendGranularity.WEEK);
+    }
+
+    @Benchmark
+    public Map<String, Double> machineUtilizationByCount() {
+        return kpiService.getMachineUtilization(null, null, UtilizationWeight.ORDER_COUNT);
+    }
+
+    @Benchmark
+    public Map<String, Double> machineUtilizationByQuantityForOneMonth() {
+        return kpiService.getMachineUtilization(
+                LocalDateTime.of(2025, 6, 1, 0, 0), LocalDateTime.of(2025, 7, 1, 0, 0), UtilizationWeight.QUANTITY);
+    }
+
+    @Benchmark
+    public List<ProductStockLevel> productStockAlerts() {
+        return kpiService.getProductStockAlerts();
+    }
+
+    @Benchmark
+    public List<ProductStockCover> stockCoverTop10() {
+        return kpiService.getStockCover(10, 30);
+    }
+
+    @Benchmark
+    public List<EmployeeWorkload> employeeWorkload() {
+        return kpiService.getEmployeeWorkload();
+    }
+
+    @Benchmark
+    public List<String> storeReconciliation() {
+        return kpiStore.reconcile(false);
+    }
+}
@@ -0,0 +1,90 @@
+package com.manufacturing.backend.benchmark;
+
+import com.manufacturing.backend.common.BatchItemResult;
+import com.manufacturing.backend.common.CreateManufacturingOrderPayload;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.service.ManufacturingOrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the order write paths, including stock reservation, events and KPI updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderWriteBenchmark {
+
+    private static final int STATUS_ORDERS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private ManufacturingOrderService manufacturingOrderService;
+    private long[] orderIds;
+    private boolean[] planned;
+    private int next;
+    private long created;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkFixtures.start("writes");
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkFixtures.seedReferenceData(jdbc, 1_000_000_000);
+        // Orders can only be created on machines that accept them
+        jdbc.update("update machine set status = 'OPERATIONAL'");
+        manufacturingOrderService = context.getBean(ManufacturingOrderService.class);
+
+        List<CreateManufacturingOrderPayload> payloads = new ArrayList<>(STATUS_ORDERS);
+        for (int i = 0; i < STATUS_ORDERS; i++) {
+            payloads.add(payload(i));
+        }
+        orderIds = manufacturingOrderService.createOrders(payloads).stream().mapToLong(BatchItemResult::id).toArray();
+        planned = new boolean[STATUS_ORDERS];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ManufacturingOrder createOrder() {
+        return manufacturingOrderService.createOrder(payload(created++));
+    }
+
+    // Moves orders back and forth between AWAITING_APPROVAL and PLANNED, both allowed transitions
+    @Benchmark
+    public ManufacturingOrder updateStatus() {
+        int i = next;
+        next = (next + 1) % STATUS_ORDERS;
+        ManufacturingOrderStatus target = planned[i] ? ManufacturingOrderStatus.AWAITING_APPROVAL : ManufacturingOrderStatus.PLANNED;
+        planned[i] = !planned[i];
+        return manufacturingOrderService.updateStatus(orderIds[i], target, null).orElseThrow();
+    }
+
+    private static CreateManufacturingOrderPayload payload(long i) {
+        return new CreateManufacturingOrderPayload("Project " + i % 100, 1 + (int) (i % 10),
+                LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(i),
+                1 + i % BenchmarkFixtures.PRODUCTS, 1 + i % BenchmarkFixtures.MACHINES);
+    }
+}
@@ -0,0 +1,105 @@
+package com.manufacturing.backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manufacturing.backend.common.CursorPage;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderResponse;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of order pages: as entities carrying their full product and machine,
+ * as returned by the list endpoint, and with a sparse fieldset and ID-only references.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ManufacturingOrder order;
+    private CursorPage<ManufacturingOrder> page;
+    private CursorPage<ManufacturingOrderResponse> responsePage;
+    private CursorPage<ManufacturingOrderResponse> sparsePage;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Product> products = new ArrayList<>();
+        for (long i = 1; i <= BenchmarkFixtures.PRODUCTS; i++) {
+            products.add(Product.builder().id(i).name("Product " + i).type(ProductType.COMPONENT).stock(100)
+                    .supplier("Supplier " + i % 5).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now())
+                    .version(0L).build());
+        }
+        List<Machine> machines = new ArrayList<>();
+        for (long i = 1; i <= BenchmarkFixtures.MACHINES; i++) {
+            machines.add(Machine.builder().id(i).name("Machine " + i).status(MachineStatus.OPERATIONAL)
+                    .lastMaintenanceDate(LocalDateTime.now()).createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now()).version(0L).build());
+        }
+        List<ManufacturingOrder> orders = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            orders.add(ManufacturingOrder.builder().id((long) i).project("Project " + i % 100)
+                    .status(ManufacturingOrderStatus.PLANNED).quantity(1 + i % 100)
+                    .date(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(i))
+                    .product(products.get(i % products.size())).machine(machines.get(i % machines.size()))
+                    .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).version(0L).build());
+        }
+        order = orders.get(0);
+        page = new CursorPage<>(orders, "next");
+        List<ManufacturingOrderResponse> responses = orders.stream().map(ManufacturingOrderResponse::of).toList();
+        responsePage = new CursorPage<>(responses, "next");
+        // ?fields=id,status,quantity,product&refs=IDS
+        sparsePage = new CursorPage<>(responses.stream()
+                .map(response -> new ManufacturingOrderResponse(response.id(), null, response.status(),
+                        response.quantity(), null, new ManufacturingOrderResponse.ProductRef(response.product().id(), null, null),
+                        null, null, null, null))
+                .toList(), "next");
+    }
+
+    @Benchmark
+    public byte[] singleOrder() throws Exception {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] orderPage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] responsePage() throws Exception {
+        return objectMapper.writeValueAsBytes(responsePage);
+    }
+
+    @Benchmark
+    public byte[] sparseResponsePage() throws Exception {
+        return objectMapper.writeValueAsBytes(sparsePage);
+    }
+}
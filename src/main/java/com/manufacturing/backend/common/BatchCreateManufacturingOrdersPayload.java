@@ -0,0 +1,14 @@
+package com.manufacturing.backend.common;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record BatchCreateManufacturingOrdersPayload(
+        @NotNull(message = "Orders are required")
+        @NotEmpty(message = "Orders are required")
+        @Size(max = 5000, message = "At most 5000 orders can be created at once")
+        List<@Valid @NotNull CreateManufacturingOrderPayload> orders
+) {}
@@ -0,0 +1,18 @@
+package com.manufacturing.backend.common;
+
+/**
+ * Outcome of one item of a batch request: {@code id} on success, {@code error} otherwise.
+ */
+public record BatchItemResult(
+        int index,
+        Long id,
+        String error
+) {
+    public static BatchItemResult success(int index, Long id) {
+        return new BatchItemResult(index, id, null);
+    }
+
+    public static BatchItemResult failure(int index, String error) {
+        return new BatchItemResult(index, null, error);
+    }
+}
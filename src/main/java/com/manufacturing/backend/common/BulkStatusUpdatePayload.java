@@ -0,0 +1,34 @@
+package com.manufacturing.backend.common;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Moves many orders to one status. Orders are selected by ID, by filter, or both; only those
+ * whose current status allows the transition are updated.
+ */
+public record BulkStatusUpdatePayload(
+        @Size(max = MAX_ORDERS, message = "At most 5000 order IDs can be given at once")
+        List<@NotNull Long> ids,
+
+        Long machineId,
+
+        String project,
+
+        ManufacturingOrderStatus currentStatus,
+
+        @NotNull(message = "Status is required")
+        ManufacturingOrderStatus status
+) {
+    /**
+     * Most orders one request can select, by ID or by filter.
+     */
+    public static final int MAX_ORDERS = 5000;
+
+    @AssertTrue(message = "Order IDs or at least one filter (machineId, project, currentStatus) is required")
+    public boolean isTargeted() {
+        return (ids != null && !ids.isEmpty()) || machineId != null || project != null || currentStatus != null;
+    }
+}
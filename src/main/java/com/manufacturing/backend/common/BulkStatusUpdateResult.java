@@ -0,0 +1,18 @@
+package com.manufacturing.backend.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk status update.
+ *
+ * @param updated    Number of orders moved to the new status
+ * @param skippedIds Requested IDs that were not updated, because the order does not exist, does
+ *                   not match the filter or cannot move to the new status; null when no IDs were given
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkStatusUpdateResult(
+        int updated,
+        List<Long> skippedIds
+) {}
@@ -0,0 +1,46 @@
+package com.manufacturing.backend.common;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the last page.
+ */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor
+) {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * Validate a requested page size.
+     *
+     * @param limit Requested page size
+     * @return Page size capped at {@link #MAX_LIMIT}
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public static int pageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Build a page from rows fetched with one extra row beyond the page size,
+     * the extra row only signalling that a next page exists.
+     *
+     * @param rows     Rows fetched with a limit of {@code pageSize + 1}
+     * @param pageSize Page size
+     * @param cursorOf Extracts the keyset position of a row
+     * @return Page of at most {@code pageSize} rows
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int pageSize, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new CursorPage<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+}
@@ -0,0 +1,8 @@
+package com.manufacturing.backend.common;
+
+import java.time.LocalDate;
+
+public record DailyOrderCount(
+        LocalDate day,
+        Long count
+) {}
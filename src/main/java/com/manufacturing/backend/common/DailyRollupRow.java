@@ -0,0 +1,12 @@
+package com.manufacturing.backend.common;
+
+import java.time.LocalDate;
+
+public record DailyRollupRow(
+        LocalDate day,
+        ManufacturingOrderStatus status,
+        Long machineId,
+        Long productId,
+        long orderCount,
+        long quantitySum
+) {}
@@ -0,0 +1,7 @@
+package com.manufacturing.backend.common;
+
+public record EmployeeWorkload(
+        Long employeeId,
+        String name,
+        Long machineCount
+) {}
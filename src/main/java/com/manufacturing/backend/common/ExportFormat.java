@@ -0,0 +1,6 @@
+package com.manufacturing.backend.common;
+
+public enum ExportFormat {
+    NDJSON,
+    CSV
+}
@@ -0,0 +1,21 @@
+package com.manufacturing.backend.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every dashboard KPI in one response. KPIs that failed or did not finish within the request
+ * timeout are left out and listed in {@code unavailable}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record KpiDashboard(
+        Map<String, Long> ordersStatusCount,
+        Map<String, Long> machineStatusCount,
+        List<ProductStockLevel> productStockAlerts,
+        List<EmployeeWorkload> employeeWorkload,
+        Map<String, Long> ordersTrend,
+        Map<String, Double> machineUtilization,
+        List<String> unavailable
+) {}
@@ -0,0 +1,16 @@
+package com.manufacturing.backend.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * KPI groups that changed since the previous push; unchanged groups are left out.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record KpiStreamUpdate(
+        Map<String, Long> ordersStatusCount,
+        Map<String, Long> machineStatusCount,
+        List<ProductStockLevel> productStockAlerts
+) {}
@@ -0,0 +1,6 @@
+package com.manufacturing.backend.common;
+
+public record MachineCapacity(
+        Long machineId,
+        int capacity
+) {}
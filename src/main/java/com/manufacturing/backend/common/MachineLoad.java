@@ -0,0 +1,7 @@
+package com.manufacturing.backend.common;
+
+public record MachineLoad(
+        Long machineId,
+        String machineName,
+        Long load
+) {}
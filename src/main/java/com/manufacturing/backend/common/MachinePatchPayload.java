@@ -0,0 +1,20 @@
+package com.manufacturing.backend.common;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import java.time.LocalDateTime;
+
+/**
+ * Partial machine update: omitted (null) fields are left unchanged.
+ */
+public record MachinePatchPayload(
+        @Pattern(regexp = ".*\\S.*", message = "Name cannot be blank")
+        String name,
+
+        MachineStatus status,
+
+        LocalDateTime lastMaintenanceDate,
+
+        @Positive(message = "Capacity must be positive")
+        Integer capacity
+) {}
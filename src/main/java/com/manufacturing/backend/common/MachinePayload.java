@@ -2,6 +2,7 @@ package com.manufacturing.backend.common;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import java.time.LocalDateTime;
 
 public record MachinePayload(
@@ -12,5 +13,9 @@ public record MachinePayload(
         @NotNull(message = "Status is required")
         MachineStatus status,
 
-        LocalDateTime lastMaintenanceDate
+        LocalDateTime lastMaintenanceDate,
+
+        // Units per hour; defaults to 1 on creation and is left unchanged on update when omitted
+        @Positive(message = "Capacity must be positive")
+        Integer capacity
 ) {}
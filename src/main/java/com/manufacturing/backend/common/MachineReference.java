@@ -0,0 +1,13 @@
+package com.manufacturing.backend.common;
+
+/**
+ * Cached, immutable view of a machine for linking orders and employees to it and checking that it
+ * accepts orders. Every machine change evicts it.
+ */
+public record MachineReference(
+        Long id,
+        String name,
+        MachineStatus status,
+        int capacity,
+        Long version
+) {}
@@ -0,0 +1,23 @@
+package com.manufacturing.backend.common;
+
+/**
+ * Reliability of one machine over a time window.
+ *
+ * @param availability     Percentage of the scheduled time (every status but DECOMMISSIONED) the
+ *                         machine was OPERATIONAL or IDLE
+ * @param failures         Periods in ERROR overlapping the window
+ * @param mtbfHours        Mean time between failures: up time per failure, null without failure
+ * @param mttrHours        Mean time to repair: time in ERROR per failure, null without failure
+ * @param maintenanceHours Time UNDER_SERVICE, planned downtime that does not count as a failure
+ */
+public record MachineReliability(
+        Long machineId,
+        String machineName,
+        double availability,
+        int failures,
+        Double mtbfHours,
+        Double mttrHours,
+        double upHours,
+        double repairHours,
+        double maintenanceHours
+) {}
@@ -5,5 +5,12 @@ public enum MachineStatus {
     UNDER_SERVICE,      
     ERROR,              
     IDLE,              
-    DECOMMISSIONED     
+    DECOMMISSIONED;
+
+    /**
+     * Whether orders can be assigned to a machine in this status.
+     */
+    public boolean acceptsOrders() {
+        return this == OPERATIONAL || this == IDLE;
+    }
 }
@@ -0,0 +1,13 @@
+package com.manufacturing.backend.common;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a machine status interval; {@code endedAt} is null while it lasts.
+ */
+public record MachineStatusSpan(
+        Long machineId,
+        MachineStatus status,
+        LocalDateTime startedAt,
+        LocalDateTime endedAt
+) {}
@@ -0,0 +1,17 @@
+package com.manufacturing.backend.common;
+
+import java.time.LocalDateTime;
+
+public record ManufacturingOrderExportRow(
+        Long id,
+        String project,
+        ManufacturingOrderStatus status,
+        Integer quantity,
+        LocalDateTime date,
+        Long productId,
+        String productName,
+        Long machineId,
+        String machineName,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {}
@@ -0,0 +1,49 @@
+package com.manufacturing.backend.common;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Fields of {@link ManufacturingOrderResponse} that can be requested with {@code ?fields=}.
+ */
+public enum ManufacturingOrderField {
+    ID("id"),
+    PROJECT("project"),
+    STATUS("status"),
+    QUANTITY("quantity"),
+    DATE("date"),
+    PRODUCT("product"),
+    MACHINE("machine"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt"),
+    VERSION("version");
+
+    private final String jsonName;
+
+    ManufacturingOrderField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    /**
+     * Parse a sparse fieldset.
+     *
+     * @param fields Comma-separated JSON field names, or null/blank for every field
+     * @return Requested fields
+     * @throws IllegalArgumentException if a field name is unknown
+     */
+    public static Set<ManufacturingOrderField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(ManufacturingOrderField.class);
+        }
+        Set<ManufacturingOrderField> parsed = EnumSet.noneOf(ManufacturingOrderField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            parsed.add(Arrays.stream(values())
+                    .filter(field -> field.jsonName.equals(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown field: " + trimmed)));
+        }
+        return parsed;
+    }
+}
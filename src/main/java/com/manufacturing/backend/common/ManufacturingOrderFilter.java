@@ -0,0 +1,16 @@
+package com.manufacturing.backend.common;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters of the manufacturing order listing; null fields are ignored.
+ * {@code from} is inclusive and {@code to} is exclusive.
+ */
+public record ManufacturingOrderFilter(
+        ManufacturingOrderStatus status,
+        Long machineId,
+        Long productId,
+        String project,
+        LocalDateTime from,
+        LocalDateTime to
+) {}
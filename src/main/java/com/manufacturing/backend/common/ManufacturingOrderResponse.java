@@ -0,0 +1,71 @@
+package com.manufacturing.backend.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.manufacturing.backend.model.ArchivedManufacturingOrder;
+import com.manufacturing.backend.model.ManufacturingOrder;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Manufacturing order as returned by the API. The product and machine are reduced to a short
+ * summary, or to their ID; fields left out of a sparse fieldset are null and not serialized.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ManufacturingOrderResponse(
+        Long id,
+        String project,
+        ManufacturingOrderStatus status,
+        Integer quantity,
+        LocalDateTime date,
+        ProductRef product,
+        MachineRef machine,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long version
+) {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ProductRef(Long id, String name, ProductType type) {}
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record MachineRef(Long id, String name, MachineStatus status) {}
+
+    /**
+     * Full response for an order whose product and machine are loaded.
+     */
+    public static ManufacturingOrderResponse of(ManufacturingOrder order) {
+        return new ManufacturingOrderResponse(order.getId(), order.getProject(), order.getStatus(),
+                order.getQuantity(), order.getDate(),
+                new ProductRef(order.getProduct().getId(), order.getProduct().getName(), order.getProduct().getType()),
+                new MachineRef(order.getMachine().getId(), order.getMachine().getName(), order.getMachine().getStatus()),
+                order.getCreatedAt(), order.getUpdatedAt(), order.getVersion());
+    }
+
+    /**
+     * Response for an archived order; the product and machine are given by ID only.
+     */
+    public static ManufacturingOrderResponse of(ArchivedManufacturingOrder order) {
+        return new ManufacturingOrderResponse(order.getId(), order.getProject(), order.getStatus(),
+                order.getQuantity(), order.getDate(),
+                new ProductRef(order.getProductId(), null, null),
+                new MachineRef(order.getMachineId(), null, null),
+                order.getCreatedAt(), order.getUpdatedAt(), order.getVersion());
+    }
+
+    /**
+     * Copy keeping only the given fields.
+     */
+    public ManufacturingOrderResponse only(Set<ManufacturingOrderField> fields) {
+        return new ManufacturingOrderResponse(
+                fields.contains(ManufacturingOrderField.ID) ? id : null,
+                fields.contains(ManufacturingOrderField.PROJECT) ? project : null,
+                fields.contains(ManufacturingOrderField.STATUS) ? status : null,
+                fields.contains(ManufacturingOrderField.QUANTITY) ? quantity : null,
+                fields.contains(ManufacturingOrderField.DATE) ? date : null,
+                fields.contains(ManufacturingOrderField.PRODUCT) ? product : null,
+                fields.contains(ManufacturingOrderField.MACHINE) ? machine : null,
+                fields.contains(ManufacturingOrderField.CREATED_AT) ? createdAt : null,
+                fields.contains(ManufacturingOrderField.UPDATED_AT) ? updatedAt : null,
+                fields.contains(ManufacturingOrderField.VERSION) ? version : null);
+    }
+}
@@ -1,9 +1,53 @@
 package com.manufacturing.backend.common;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum ManufacturingOrderStatus {
     AWAITING_APPROVAL,
     PLANNED,
     IN_PROGRESS,
     COMPLETED,
-    VOIDED
+    VOIDED;
+
+    private static final Map<ManufacturingOrderStatus, Set<ManufacturingOrderStatus>> TRANSITIONS =
+            new EnumMap<>(ManufacturingOrderStatus.class);
+    private static final Map<ManufacturingOrderStatus, Set<ManufacturingOrderStatus>> SOURCES =
+            new EnumMap<>(ManufacturingOrderStatus.class);
+
+    static {
+        TRANSITIONS.put(AWAITING_APPROVAL, EnumSet.of(PLANNED, VOIDED));
+        TRANSITIONS.put(PLANNED, EnumSet.of(AWAITING_APPROVAL, IN_PROGRESS, VOIDED));
+        TRANSITIONS.put(IN_PROGRESS, EnumSet.of(COMPLETED, VOIDED));
+        TRANSITIONS.put(COMPLETED, EnumSet.noneOf(ManufacturingOrderStatus.class));
+        TRANSITIONS.put(VOIDED, EnumSet.noneOf(ManufacturingOrderStatus.class));
+        for (ManufacturingOrderStatus status : values()) {
+            SOURCES.put(status, EnumSet.noneOf(ManufacturingOrderStatus.class));
+        }
+        TRANSITIONS.forEach((from, targets) -> targets.forEach(to -> SOURCES.get(to).add(from)));
+    }
+
+    /**
+     * Whether an order in this status may be moved to the given one.
+     */
+    public boolean canTransitionTo(ManufacturingOrderStatus target) {
+        return TRANSITIONS.get(this).contains(target);
+    }
+
+    /**
+     * Whether no status change is allowed out of this one.
+     */
+    public boolean isFinal() {
+        return TRANSITIONS.get(this).isEmpty();
+    }
+
+    /**
+     * Statuses an order may be moved to the given one from, for use in conditional updates.
+     */
+    public static Set<ManufacturingOrderStatus> sourcesOf(ManufacturingOrderStatus target) {
+        return Collections.unmodifiableSet(SOURCES.get(target));
+    }
 }
@@ -0,0 +1,8 @@
+package com.manufacturing.backend.common;
+
+public enum OrderEventType {
+    CREATED,
+    STATUS_CHANGED,
+    REASSIGNED,
+    DELETED
+}
@@ -0,0 +1,19 @@
+package com.manufacturing.backend.common;
+
+/**
+ * Status change of one order as pushed to dashboard subscribers.
+ * {@code previousStatus} is null for a new order and {@code status} is null for a deleted one.
+ */
+public record OrderStatusChange(
+        Long orderId,
+        ManufacturingOrderStatus previousStatus,
+        ManufacturingOrderStatus status
+) {
+    /**
+     * Combine with a later change of the same order, keeping the first previous status
+     * and the last status.
+     */
+    public OrderStatusChange then(OrderStatusChange later) {
+        return new OrderStatusChange(orderId, previousStatus, later.status());
+    }
+}
@@ -0,0 +1,6 @@
+package com.manufacturing.backend.common;
+
+public record OrderStatusCount(
+        ManufacturingOrderStatus status,
+        Long count
+) {}
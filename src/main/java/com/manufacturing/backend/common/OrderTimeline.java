@@ -0,0 +1,17 @@
+package com.manufacturing.backend.common;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lifecycle of one order as recorded by the order event log.
+ *
+ * @param events       Events in the order they occurred
+ * @param dwellSeconds Seconds spent in each status the order went through; the current status
+ *                     counts until now unless it is final
+ */
+public record OrderTimeline(
+        Long orderId,
+        List<OrderTimelineEvent> events,
+        Map<ManufacturingOrderStatus, Long> dwellSeconds
+) {}
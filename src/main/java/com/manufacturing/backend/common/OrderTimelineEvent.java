@@ -0,0 +1,23 @@
+package com.manufacturing.backend.common;
+
+import com.manufacturing.backend.model.OrderEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of an order timeline. Status fields are null where they do not apply, e.g. there is
+ * no {@code fromStatus} for a creation; machine fields are set on every event.
+ */
+public record OrderTimelineEvent(
+        OrderEventType type,
+        ManufacturingOrderStatus fromStatus,
+        ManufacturingOrderStatus toStatus,
+        Long fromMachineId,
+        Long toMachineId,
+        LocalDateTime occurredAt
+) {
+    public static OrderTimelineEvent of(OrderEvent event) {
+        return new OrderTimelineEvent(event.getType(), event.getFromStatus(), event.getToStatus(),
+                event.getFromMachineId(), event.getToMachineId(), event.getOccurredAt());
+    }
+}
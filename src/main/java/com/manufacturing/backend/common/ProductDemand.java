@@ -0,0 +1,8 @@
+package com.manufacturing.backend.common;
+
+public record ProductDemand(
+        Long productId,
+        String name,
+        int stock,
+        long openQuantity
+) {}
@@ -0,0 +1,23 @@
+package com.manufacturing.backend.common;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Partial product update: omitted (null) fields are left unchanged.
+ */
+public record ProductPatchPayload(
+        @Pattern(regexp = ".*\\S.*", message = "Name cannot be blank")
+        String name,
+
+        ProductType type,
+
+        @Min(value = 0, message = "Stock cannot be less than 0")
+        Integer stock,
+
+        @Pattern(regexp = ".*\\S.*", message = "Supplier cannot be blank")
+        String supplier,
+
+        @Min(value = 0, message = "Reorder threshold cannot be less than 0")
+        Integer reorderThreshold
+) {}
@@ -18,5 +18,9 @@ public record ProductPayload(
 
         @NotNull(message = "Supplier is required")
         @NotBlank(message = "Supplier is required")
-        String supplier
+        String supplier,
+
+        // Defaults to the threshold of the product type on creation and is left unchanged on update when omitted
+        @Min(value = 0, message = "Reorder threshold cannot be less than 0")
+        Integer reorderThreshold
 ) {}
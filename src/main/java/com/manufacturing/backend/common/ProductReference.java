@@ -0,0 +1,12 @@
+package com.manufacturing.backend.common;
+
+/**
+ * Cached, immutable view of a product for linking orders to it. Stock is left out on purpose, so
+ * reservations never make a cached entry stale.
+ */
+public record ProductReference(
+        Long id,
+        String name,
+        ProductType type,
+        Long version
+) {}
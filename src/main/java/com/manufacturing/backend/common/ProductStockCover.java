@@ -0,0 +1,15 @@
+package com.manufacturing.backend.common;
+
+/**
+ * Days the on-hand stock of a product lasts at the rate its open orders consume it.
+ *
+ * @param openQuantity Units of the open orders dated within the horizon
+ * @param daysOfCover  {@code stock / (openQuantity / horizonDays)}
+ */
+public record ProductStockCover(
+        Long productId,
+        String name,
+        int stock,
+        long openQuantity,
+        double daysOfCover
+) {}
@@ -0,0 +1,12 @@
+package com.manufacturing.backend.common;
+
+/**
+ * Product whose available (on-hand minus reserved) stock is below its reorder threshold.
+ */
+public record ProductStockLevel(
+        Long productId,
+        String name,
+        ProductType type,
+        int available,
+        int reorderThreshold
+) {}
@@ -1,7 +1,20 @@
 package com.manufacturing.backend.common;
 
 public enum ProductType {
-    COMPONENT,
-    MODULE,
-    RESOURCE
+    COMPONENT(10),
+    MODULE(5),
+    RESOURCE(20);
+
+    private final int defaultReorderThreshold;
+
+    ProductType(int defaultReorderThreshold) {
+        this.defaultReorderThreshold = defaultReorderThreshold;
+    }
+
+    /**
+     * Reorder threshold of the products of this type that do not set their own.
+     */
+    public int defaultReorderThreshold() {
+        return defaultReorderThreshold;
+    }
 }
@@ -0,0 +1,9 @@
+package com.manufacturing.backend.common;
+
+/**
+ * How the product and machine of an order are rendered: a small summary, or their ID only.
+ */
+public enum ReferenceMode {
+    SUMMARY,
+    IDS
+}
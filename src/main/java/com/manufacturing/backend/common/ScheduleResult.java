@@ -0,0 +1,20 @@
+package com.manufacturing.backend.common;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of a scheduling run.
+ *
+ * @param applied     Whether the reassignments were written, false for a dry run
+ * @param reassigned  Number of orders moved to another machine
+ * @param makespanEnd When the last machine is expected to finish its queue
+ */
+public record ScheduleResult(
+        boolean applied,
+        int orders,
+        int machines,
+        int reassigned,
+        LocalDateTime makespanEnd,
+        List<ScheduledOrder> assignments
+) {}
@@ -0,0 +1,17 @@
+package com.manufacturing.backend.common;
+
+import java.time.LocalDateTime;
+
+/**
+ * Place of one order in a computed schedule.
+ *
+ * @param sequence Position of the order in the queue of its machine, starting at 1
+ */
+public record ScheduledOrder(
+        Long orderId,
+        Long machineId,
+        int sequence,
+        LocalDateTime plannedStart,
+        LocalDateTime plannedEnd,
+        boolean reassigned
+) {}
@@ -0,0 +1,21 @@
+package com.manufacturing.backend.common;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+public enum TrendGranularity {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /**
+     * First day of the period containing the given day; weeks start on Monday.
+     */
+    public LocalDate periodStart(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(DayOfWeek.MONDAY);
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package com.manufacturing.backend.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches of rarely changing reference data. The caches themselves (Caffeine, bounded by size and
+ * TTL, with statistics) are configured through the {@code spring.cache.*} properties.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String PRODUCTS_CACHE = "products";
+    public static final String MACHINES_CACHE = "machines";
+}
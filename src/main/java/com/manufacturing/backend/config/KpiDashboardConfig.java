@@ -0,0 +1,28 @@
+package com.manufacturing.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor running the KPI queries of the dashboard endpoint in parallel. It is bounded in
+ * threads and queue so a burst of dashboard requests cannot take every database connection.
+ */
+@Configuration
+public class KpiDashboardConfig {
+
+    public static final String KPI_DASHBOARD_EXECUTOR = "kpiDashboardExecutor";
+
+    @Bean(name = KPI_DASHBOARD_EXECUTOR)
+    public ThreadPoolTaskExecutor kpiDashboardExecutor(@Value("${kpi.dashboard.threads:4}") int threads,
+                                                       @Value("${kpi.dashboard.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("kpi-dashboard-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
@@ -0,0 +1,38 @@
+package com.manufacturing.backend.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics beyond what Actuator registers on its own. HTTP endpoints ({@code http.server.requests}),
+ * repository methods ({@code spring.data.repository.invocations}), Hibernate statistics, the
+ * Hikari pool, caches and the JVM are instrumented by auto-configuration; this adds timers on
+ * every {@code @Observed} service method and the per-request SQL statement count.
+ */
+@Configuration
+public class ObservabilityConfig {
+
+    /**
+     * Timer name shared by every service method, tagged with its class and method.
+     */
+    public static final String SERVICE_OBSERVATION = "manufacturing.service";
+
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+}
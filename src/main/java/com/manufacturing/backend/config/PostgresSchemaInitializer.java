@@ -0,0 +1,87 @@
+package com.manufacturing.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Schema adjustments that Hibernate's {@code ddl-auto=update} cannot express, applied once the
+ * schema update has run (hence the dependency on the entity manager factory).
+ * Only runs against PostgreSQL.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class PostgresSchemaInitializer {
+    // Must match the allocationSize of the @SequenceGenerator mappings
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final Map<String, String> ID_SEQUENCES = Map.of(
+            "manufacturing_order", "manufacturing_order_seq",
+            "product", "product_seq",
+            "machine", "machine_seq",
+            "employee", "employee_seq"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean stockAlertIndex;
+
+    public PostgresSchemaInitializer(DataSource dataSource,
+                                     @Value("${products.stock-alert-index:true}") boolean stockAlertIndex) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.stockAlertIndex = stockAlertIndex;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        alignIdSequences();
+        if (stockAlertIndex) {
+            createStockAlertIndex();
+        } else {
+            jdbcTemplate.execute("drop index if exists product_below_reorder_threshold_idx");
+        }
+    }
+
+    /**
+     * Move every ID sequence past the highest existing ID, so that rows inserted while the
+     * entities still used IDENTITY columns can never collide with pooled sequence values.
+     */
+    private void alignIdSequences() {
+        ID_SEQUENCES.forEach((table, sequence) -> {
+            Long value = jdbcTemplate.queryForObject(
+                    "select setval('" + sequence + "', greatest((select last_value from " + sequence + "), "
+                            + "(select coalesce(max(id), 0) from " + table + ") + " + ID_ALLOCATION_SIZE + "))",
+                    Long.class);
+            log.debug("Sequence {} aligned to {}", sequence, value);
+        });
+    }
+
+    /**
+     * Partial index on the products below their reorder threshold, which serves the stock alerts
+     * by reading only those rows, in ID order.
+     * <p>
+     * Its predicate reads {@code stock} and {@code reserved_stock}, so PostgreSQL can no longer
+     * apply the stock changes of every order write as HOT updates: each one also inserts new
+     * entries in the other product indexes, which bloat faster and need more vacuuming. This was
+     * judged acceptable because the product table is small next to the order tables and the
+     * alerts are read by every dashboard refresh. Compare {@code n_tup_hot_upd} with
+     * {@code n_tup_upd} for {@code product} in {@code pg_stat_user_tables}; if the share of HOT
+     * updates drops and index bloat shows, set {@code products.stock-alert-index=false} to drop the
+     * index and let the alerts scan the table.
+     */
+    private void createStockAlertIndex() {
+        jdbcTemplate.execute("create index if not exists product_below_reorder_threshold_idx on product (id) "
+                + "where stock - reserved_stock < reorder_threshold");
+    }
+}
@@ -0,0 +1,40 @@
+package com.manufacturing.backend.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a count is open.
+ * Registered as the session factory's statement inspector by {@link ObservabilityConfig}.
+ * <p>
+ * Statements issued on other threads are not counted: the body of the streamed export, which
+ * is written on an async request thread, and work run by scheduled jobs or executors. Tests that need every statement use the session factory's
+ * {@link org.hibernate.stat.Statistics} instead, as {@code SqlStatementCountTest} does.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<int[]> count = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] current = count.get();
+        if (current != null) {
+            current[0]++;
+        }
+        return sql;
+    }
+
+    public void start() {
+        count.set(new int[1]);
+    }
+
+    /**
+     * Close the count opened by {@link #start()} on this thread.
+     *
+     * @return Number of statements prepared since the count was opened
+     */
+    public int stop() {
+        int[] current = count.get();
+        count.remove();
+        return current != null ? current[0] : 0;
+    }
+}
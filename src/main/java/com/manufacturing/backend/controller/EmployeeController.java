@@ -1,10 +1,12 @@
 package com.manufacturing.backend.controller;
 
+import com.manufacturing.backend.common.CursorPage;
 import com.manufacturing.backend.common.EmployeePayload;
 import com.manufacturing.backend.model.Employee;
 import com.manufacturing.backend.service.EmployeeService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -13,7 +15,6 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -24,13 +25,18 @@ public class EmployeeController {
     private final EmployeeService employeeService;
 
     /**
-     * Retrieve all employees.
+     * Retrieve employees one page at a time, ordered by ID.
      *
-     * @return List of all employees
+     * @param cursor Cursor returned with the previous page, omitted for the first page
+     * @param limit  Page size, capped at {@link CursorPage#MAX_LIMIT}
+     * @return Page of employees and the cursor of the next page
      */
     @GetMapping("/")
-    public ResponseEntity<List<Employee>> getAllEmployees() {
-        return ResponseEntity.ok(this.employeeService.findAllEmployees());
+    public ResponseEntity<CursorPage<Employee>> getAllEmployees(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit
+    ) {
+        return ResponseEntity.ok(this.employeeService.findEmployeePage(cursor, limit));
     }
 
     /**
@@ -97,4 +103,16 @@ public class EmployeeController {
         }
         return Map.of("error", "Invalid request body: " + message);
     }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public Map<String, String> handleIllegalArgumentExceptions(IllegalArgumentException ex) {
+        return Map.of("error", ex.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public Map<String, String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return Map.of("error", "The employee was modified by another request, reload it and retry.");
+    }
 }
@@ -0,0 +1,30 @@
+package com.manufacturing.backend.controller;
+
+/**
+ * Reads the entity version a client sends back in If-Match, taken from the ETag of a previous response.
+ */
+final class IfMatch {
+
+    private IfMatch() {
+    }
+
+    /**
+     * Version expected by an If-Match header, or null when absent or "*".
+     *
+     * @throws IllegalArgumentException if the header does not hold a version
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+}
@@ -1,47 +1,160 @@
 package com.manufacturing.backend.controller;
 
+import com.manufacturing.backend.common.EmployeeWorkload;
+import com.manufacturing.backend.common.KpiDashboard;
+import com.manufacturing.backend.common.MachineReliability;
+import com.manufacturing.backend.common.ProductStockCover;
+import com.manufacturing.backend.common.ProductStockLevel;
+import com.manufacturing.backend.common.TrendGranularity;
+import com.manufacturing.backend.common.UtilizationWeight;
+import com.manufacturing.backend.service.KpiDashboardService;
 import com.manufacturing.backend.service.KpiService;
+import com.manufacturing.backend.service.KpiStreamBroadcaster;
+import com.manufacturing.backend.service.MachineReliabilityService;
+import com.manufacturing.backend.service.OrderRollupService;
+import com.manufacturing.backend.service.ResourceVersionTracker;
+import com.manufacturing.backend.service.ResourceVersionTracker.Resource;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/kpis")
 @AllArgsConstructor
 public class KpiController {
     private final KpiService kpiService;
+    private final OrderRollupService orderRollupService;
+    private final KpiStreamBroadcaster kpiStreamBroadcaster;
+    private final KpiDashboardService kpiDashboardService;
+    private final ResourceVersionTracker resourceVersionTracker;
+    private final MachineReliabilityService machineReliabilityService;
 
     @GetMapping({"/orders-status-count", "/orders-status-count/"})
-    public ResponseEntity<Map<String, Long>> getOrdersStatusCount() {
-        return ResponseEntity.ok(kpiService.getOrdersStatusCount());
+    public ResponseEntity<Map<String, Long>> getOrdersStatusCount(WebRequest request) {
+        return conditional(request, resourceVersionTracker.tag(Resource.ORDERS), kpiService::getOrdersStatusCount);
     }
 
     @GetMapping({"/machine-status-count", "/machine-status-count/"})
-    public ResponseEntity<Map<String, Long>> getMachineStatusCount() {
-        return ResponseEntity.ok(kpiService.getMachineStatusCount());
+    public ResponseEntity<Map<String, Long>> getMachineStatusCount(WebRequest request) {
+        return conditional(request, resourceVersionTracker.tag(Resource.MACHINES), kpiService::getMachineStatusCount);
     }
 
     @GetMapping({"/product-stock-alerts", "/product-stock-alerts/"})
-    public ResponseEntity<Map<String, Integer>> getProductStockAlerts() {
-        return ResponseEntity.ok(kpiService.getProductStockAlerts());
+    public ResponseEntity<List<ProductStockLevel>> getProductStockAlerts(WebRequest request) {
+        return conditional(request, resourceVersionTracker.tag(Resource.PRODUCTS), kpiService::getProductStockAlerts);
+    }
+
+    /**
+     * The products whose stock runs out first at the rate of their open orders.
+     */
+    @GetMapping({"/stock-cover", "/stock-cover/"})
+    public ResponseEntity<List<ProductStockCover>> getStockCover(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "30") int horizonDays
+    ) {
+        return ResponseEntity.ok(kpiService.getStockCover(limit, horizonDays));
     }
 
     @GetMapping({"/employee-workload", "/employee-workload/"})
-    public ResponseEntity<Map<String, Long>> getEmployeeWorkload() {
+    public ResponseEntity<List<EmployeeWorkload>> getEmployeeWorkload() {
         return ResponseEntity.ok(kpiService.getEmployeeWorkload());
     }
 
     @GetMapping({"/orders-trend", "/orders-trend/"})
-    public ResponseEntity<Map<String, Long>> getOrdersTrend() {
-        return ResponseEntity.ok(kpiService.getOrdersTrend());
+    public ResponseEntity<Map<String, Long>> getOrdersTrend(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") TrendGranularity granularity,
+            WebRequest request
+    ) {
+        // The default range ends today, so the response also changes at midnight
+        ResourceVersionTracker.Tag tag = resourceVersionTracker.tag(LocalDate.now(), Resource.ORDERS);
+        return conditional(request, tag, () -> kpiService.getOrdersTrend(from, to, granularity));
+    }
+
+    /**
+     * Recompute the orders trend rollup from the orders table, e.g. after a bulk import.
+     */
+    @PostMapping({"/orders-trend/rebuild", "/orders-trend/rebuild/"})
+    public ResponseEntity<Map<String, Integer>> rebuildOrdersTrend() {
+        return ResponseEntity.ok(Map.of("rows", orderRollupService.rebuild()));
     }
 
     @GetMapping({"/machine-utilization", "/machine-utilization/"})
-    public ResponseEntity<Map<String, Double>> getMachineUtilization() {
-        return ResponseEntity.ok(kpiService.getMachineUtilization());
+    public ResponseEntity<Map<String, Double>> getMachineUtilization(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "ORDER_COUNT") UtilizationWeight weight,
+            WebRequest request
+    ) {
+        ResourceVersionTracker.Tag tag = resourceVersionTracker.tag(Resource.ORDERS, Resource.MACHINES);
+        return conditional(request, tag, () -> kpiService.getMachineUtilization(from, to, weight));
+    }
+
+    /**
+     * Availability, MTBF and MTTR per machine over a window (last 30 days by default), computed
+     * from the recorded machine status changes.
+     */
+    @GetMapping({"/machine-reliability", "/machine-reliability/"})
+    public ResponseEntity<List<MachineReliability>> getMachineReliability(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long machineId
+    ) {
+        return ResponseEntity.ok(machineReliabilityService.getReliability(from, to, machineId));
+    }
+
+    /**
+     * Every dashboard KPI in one round trip. Query-backed KPIs run in parallel; those not done
+     * within {@code timeoutMs} (default {@code kpi.dashboard.timeout}) are omitted and listed in
+     * {@code unavailable}.
+     */
+    @GetMapping({"/dashboard", "/dashboard/"})
+    public ResponseEntity<KpiDashboard> getDashboard(
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(required = false) Long timeoutMs
+    ) {
+        Duration timeout = timeoutMs != null ? Duration.ofMillis(timeoutMs) : null;
+        return ResponseEntity.ok(kpiDashboardService.getDashboard(days, timeout));
+    }
+
+    /**
+     * Server-Sent Events stream replacing dashboard polling. Sends a {@code kpis} event with the
+     * current values on connect, then at most one {@code kpis} event (changed groups only) and one
+     * {@code order-status} event (changes coalesced per order) per interval. A {@code resync}
+     * event means updates were dropped for a slow client, which should reload its data.
+     */
+    @GetMapping(path = {"/stream", "/stream/"}, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamKpis() {
+        return kpiStreamBroadcaster.subscribe();
+    }
+
+    /**
+     * Answer 304 Not Modified without computing the KPI if the client's If-None-Match (or
+     * If-Modified-Since) still matches; the validators are added to the response either way.
+     */
+    private static <T> ResponseEntity<T> conditional(WebRequest request, ResourceVersionTracker.Tag tag, Supplier<T> kpi) {
+        if (request.checkNotModified(tag.eTag(), tag.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(kpi.get());
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public Map<String, String> handleIllegalArgumentExceptions(IllegalArgumentException ex) {
+        return Map.of("error", ex.getMessage());
     }
 }
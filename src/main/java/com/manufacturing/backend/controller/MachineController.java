@@ -1,20 +1,25 @@
 package com.manufacturing.backend.controller;
 
 
+import com.manufacturing.backend.common.CursorPage;
+import com.manufacturing.backend.common.MachinePatchPayload;
 import com.manufacturing.backend.common.MachinePayload;
 import com.manufacturing.backend.model.Machine;
 import com.manufacturing.backend.service.MachineService;
+import com.manufacturing.backend.service.ResourceVersionTracker;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -23,16 +28,28 @@ import java.util.Map;
 public class MachineController {
 
     private final MachineService machineService;
+    private final ResourceVersionTracker resourceVersionTracker;
 
 
     /**
-     * Retrieve all machines.
+     * Retrieve machines one page at a time, ordered by ID.
      *
-     * @return List of all machines
+     * @param cursor Cursor returned with the previous page, omitted for the first page
+     * @param limit  Page size, capped at {@link CursorPage#MAX_LIMIT}
+     * @return Page of machines and the cursor of the next page, or 304 Not Modified if no machine changed
+     *         since the version given in If-None-Match
      */
     @GetMapping("/")
-    public ResponseEntity<List<Machine>> getAllMachines() {
-        return ResponseEntity.ok(this.machineService.findAllMachines());
+    public ResponseEntity<CursorPage<Machine>> getAllMachines(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit,
+            WebRequest request
+    ) {
+        ResourceVersionTracker.Tag tag = resourceVersionTracker.tag(ResourceVersionTracker.Resource.MACHINES);
+        if (request.checkNotModified(tag.eTag(), tag.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(this.machineService.findMachinePage(cursor, limit));
     }
 
     /**
@@ -46,37 +63,64 @@ public class MachineController {
             @Valid @RequestBody MachinePayload payload
     ) {
         Machine savedMachine = this.machineService.saveMachine(payload);
-        return ResponseEntity.ok(savedMachine);
+        return withETag(savedMachine);
     }
 
     /**
      * Update a machine by its ID.
      *
-     * @param id Machine ID
+     * @param id      Machine ID
+     * @param ifMatch ETag of the machine last read; the update is refused with 409 if it changed since
      * @return ResponseEntity containing the updated machine if found, or 404 Not Found
      */
 
     @PutMapping(path = {"/{id}", "/{id}/"})
     public ResponseEntity<Machine> updateMachine(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody MachinePayload payload
     ) {
-        return this.machineService.updateMachine(id, payload)
-                .map(ResponseEntity::ok)
+        return this.machineService.updateMachine(id, payload, IfMatch.expectedVersion(ifMatch))
+                .map(MachineController::withETag)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Change only the fields present in the body of a machine.
+     *
+     * @param id      Machine ID
+     * @param ifMatch ETag of the machine last read; the change is refused with 409 if it changed since
+     * @return ResponseEntity containing the updated machine if found, or 404 Not Found
+     */
+    @PatchMapping(path = {"/{id}", "/{id}/"})
+    public ResponseEntity<Machine> patchMachine(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody MachinePatchPayload payload
+    ) {
+        return this.machineService.patchMachine(id, payload, IfMatch.expectedVersion(ifMatch))
+                .map(MachineController::withETag)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
      * Delete a machine by its ID.
      *
-     * @param id Machine ID
+     * @param id      Machine ID
+     * @param ifMatch ETag of the machine last read; the delete is refused with 409 if it changed since
      */
     @DeleteMapping(path = {"/{id}", "/{id}/"})
-    public ResponseEntity<String> deleteMachine(@PathVariable Long id) {
-        this.machineService.deleteMachine(id);
+    public ResponseEntity<String> deleteMachine(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        this.machineService.deleteMachine(id, IfMatch.expectedVersion(ifMatch));
         return ResponseEntity.ok("Machine deleted successfully");
     }
 
+    private static ResponseEntity<Machine> withETag(Machine machine) {
+        return ResponseEntity.ok().eTag(String.valueOf(machine.getVersion())).body(machine);
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public Map<String, String> handleValidationExceptions(
@@ -99,4 +143,16 @@ public class MachineController {
         }
         return Map.of("error", "Invalid request body: " + message);
     }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public Map<String, String> handleIllegalArgumentExceptions(IllegalArgumentException ex) {
+        return Map.of("error", ex.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public Map<String, String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return Map.of("error", "The machine was modified by another request, reload it and retry.");
+    }
 }
@@ -1,21 +1,42 @@
 package com.manufacturing.backend.controller;
 
 
+import com.manufacturing.backend.common.BatchCreateManufacturingOrdersPayload;
+import com.manufacturing.backend.common.BatchItemResult;
+import com.manufacturing.backend.common.BulkStatusUpdatePayload;
+import com.manufacturing.backend.common.BulkStatusUpdateResult;
 import com.manufacturing.backend.common.CreateManufacturingOrderPayload;
+import com.manufacturing.backend.common.CursorPage;
+import com.manufacturing.backend.common.ExportFormat;
+import com.manufacturing.backend.common.ManufacturingOrderField;
+import com.manufacturing.backend.common.ManufacturingOrderFilter;
+import com.manufacturing.backend.common.ManufacturingOrderResponse;
 import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.OrderTimeline;
+import com.manufacturing.backend.common.ReferenceMode;
+import com.manufacturing.backend.common.ScheduleResult;
 import com.manufacturing.backend.common.UpdateManufacturingOrderPayload;
 import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.service.MachineSchedulingService;
+import com.manufacturing.backend.service.ManufacturingOrderExportService;
 import com.manufacturing.backend.service.ManufacturingOrderService;
+import com.manufacturing.backend.service.OrderEventLog;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,34 +46,95 @@ import java.util.Map;
 @AllArgsConstructor
 public class ManufacturingOrderController {
     private final ManufacturingOrderService manufacturingOrderService;
+    private final ManufacturingOrderExportService manufacturingOrderExportService;
+    private final MachineSchedulingService machineSchedulingService;
+    private final OrderEventLog orderEventLog;
 
     /**
-     * Retrieve all manufacturing orders.
+     * Retrieve manufacturing orders one page at a time, ordered by date, then ID.
      *
-     * @return List of all manufacturing orders
+     * @param cursor          Cursor returned with the previous page, omitted for the first page
+     * @param limit           Page size, capped at {@link CursorPage#MAX_LIMIT}
+     * @param fields          Comma-separated fields to return, e.g. {@code id,status,quantity}; all by default
+     * @param refs            {@code SUMMARY} for the product and machine ID, name and type/status, {@code IDS} for their ID only
+     * @param includeArchived {@code true} to list archived orders too, e.g. for history queries reaching past the archive cutoff
+     * @return Page of matching orders and the cursor of the next page
      */
     @GetMapping("/")
-    public ResponseEntity<List<ManufacturingOrder>> getAllOrders() {
-        List<ManufacturingOrder> orders = this.manufacturingOrderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<CursorPage<ManufacturingOrderResponse>> getAllOrders(
+            @RequestParam(required = false) ManufacturingOrderStatus status,
+            @RequestParam(required = false) Long machineId,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) String project,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "SUMMARY") ReferenceMode refs,
+            @RequestParam(defaultValue = "false") boolean includeArchived
+    ) {
+        ManufacturingOrderFilter filter = new ManufacturingOrderFilter(status, machineId, productId, project, from, to);
+        return ResponseEntity.ok(this.manufacturingOrderService.getOrders(filter, cursor, limit,
+                ManufacturingOrderField.parse(fields), refs, includeArchived));
+    }
+
+    /**
+     * Stream the order book as NDJSON or CSV without materializing it in memory, archived orders
+     * included.
+     *
+     * @param format Output format
+     * @param since  Only orders modified at or after this instant, for incremental pulls
+     * @return Streamed export
+     */
+    @GetMapping(path = {"/export", "/export/"})
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since
+    ) {
+        StreamingResponseBody body = out -> this.manufacturingOrderExportService.exportOrders(out, format, since);
+        MediaType contentType = format == ExportFormat.CSV
+                ? new MediaType("text", "csv")
+                : new MediaType("application", "x-ndjson");
+        String fileName = "manufacturing-orders." + format.name().toLowerCase();
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
     }
 
     /**
-     * Retrieve a manufacturing order by its ID.
+     * Retrieve a manufacturing order by its ID, looking in the archive when it is not active.
+     * The ETag carries the order version, to be sent back in If-Match when modifying it.
      *
      * @param id Manufacturing order ID
      * @return ResponseEntity containing the order if found, or 404 Not Found
      */
     @GetMapping(path = {"/{id}", "/{id}/"})
-    public ResponseEntity<ManufacturingOrder> getOrderById(
+    public ResponseEntity<ManufacturingOrderResponse> getOrderById(
             @PathVariable String id
     ) {
         Long orderId = Long.parseLong(id);
         return this.manufacturingOrderService.getOrderById(orderId)
-                .map(ResponseEntity::ok)
+                .map(ManufacturingOrderController::withETag)
+                .or(() -> this.manufacturingOrderService.getArchivedOrderById(orderId)
+                        .map(order -> ResponseEntity.ok().eTag(String.valueOf(order.version())).body(order)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Retrieve the recorded lifecycle events of a manufacturing order and the time it spent in
+     * each status. Also available once the order is deleted.
+     *
+     * @param id Manufacturing order ID
+     * @return Events, oldest first, and seconds spent per status
+     */
+    @GetMapping(path = {"/{id}/timeline", "/{id}/timeline/"})
+    public ResponseEntity<OrderTimeline> getOrderTimeline(@PathVariable String id) {
+        Long orderId = Long.parseLong(id);
+        return ResponseEntity.ok(this.orderEventLog.getTimeline(orderId));
+    }
+
     /**
      * Create a new manufacturing order.
      *
@@ -60,41 +142,88 @@ public class ManufacturingOrderController {
      * @return Created manufacturing order
      */
     @PostMapping("/")
-    public ResponseEntity<ManufacturingOrder> createOrder(
+    public ResponseEntity<ManufacturingOrderResponse> createOrder(
             @Valid
             @RequestBody
             CreateManufacturingOrderPayload payload
     ) {
         ManufacturingOrder savedOrder = this.manufacturingOrderService.createOrder(payload);
-        return ResponseEntity.ok(savedOrder);
+        return withETag(savedOrder);
+    }
+
+    /**
+     * Create many manufacturing orders in one request.
+     *
+     * @param payload Orders to create
+     * @return One result per order, carrying either the new ID or the reason it was rejected
+     */
+    @PostMapping(path = {"/batch", "/batch/"})
+    public ResponseEntity<List<BatchItemResult>> createOrders(
+            @Valid
+            @RequestBody
+            BatchCreateManufacturingOrdersPayload payload
+    ) {
+        return ResponseEntity.ok(this.manufacturingOrderService.createOrders(payload.orders()));
+    }
+
+    /**
+     * Assign the orders awaiting approval or planned to the machines accepting orders, balancing
+     * the expected finish time of every machine from its capacity.
+     *
+     * @param dryRun Whether to only compute the schedule; set to false to reassign the orders
+     * @return Planned machine, sequence and times of every pending order
+     */
+    @PostMapping(path = {"/schedule", "/schedule/"})
+    public ResponseEntity<ScheduleResult> schedule(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return ResponseEntity.ok(this.machineSchedulingService.schedule(dryRun));
     }
 
     @PutMapping(path = {"/{id}", "/{id}/"})
-    public ResponseEntity<ManufacturingOrder> updateOrder(
+    public ResponseEntity<ManufacturingOrderResponse> updateOrder(
             @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateManufacturingOrderPayload payload) {
         Long orderId = Long.parseLong(id);
-        ManufacturingOrder updatedOrder = this.manufacturingOrderService.updateOrder(orderId, payload);
-        return ResponseEntity.ok(updatedOrder);
+        ManufacturingOrder updatedOrder = this.manufacturingOrderService.updateOrder(orderId, payload, IfMatch.expectedVersion(ifMatch));
+        return withETag(updatedOrder);
     }
 
     @DeleteMapping(path = {"/{id}", "/{id}/"})
-    public ResponseEntity<String> deleteOrder(@PathVariable String id) {
+    public ResponseEntity<String> deleteOrder(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Long orderId = Long.parseLong(id);
-        this.manufacturingOrderService.deleteOrder(orderId);
+        this.manufacturingOrderService.deleteOrder(orderId, IfMatch.expectedVersion(ifMatch));
         return ResponseEntity.ok("Manufacturing order deleted successfully.");
     }
 
+    /**
+     * Move many orders to a new status at once.
+     *
+     * @param payload Order IDs and/or filter (machine, project, current status), and the new status
+     * @return Number of orders updated, and the requested IDs that were skipped
+     */
+    @PutMapping(path = {"/status", "/status/"})
+    public ResponseEntity<BulkStatusUpdateResult> updateOrderStatuses(@Valid @RequestBody BulkStatusUpdatePayload payload) {
+        return ResponseEntity.ok(this.manufacturingOrderService.updateStatuses(payload));
+    }
+
     @PutMapping(path = {"/{id}/status", "/{id}/status/"})
-    public ResponseEntity<ManufacturingOrder> updateOrderStatus(
+    public ResponseEntity<ManufacturingOrderResponse> updateOrderStatus(
             @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody
             @NotNull(message = "Status is required")
             ManufacturingOrderStatus status
     ) {
         Long orderId = Long.parseLong(id);
-        ManufacturingOrder updatedOrder = this.manufacturingOrderService.updateStatus(orderId, status);
-        return ResponseEntity.ok(updatedOrder);
+        return this.manufacturingOrderService.updateStatus(orderId, status, IfMatch.expectedVersion(ifMatch))
+                .map(ManufacturingOrderController::withETag)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private static ResponseEntity<ManufacturingOrderResponse> withETag(ManufacturingOrder order) {
+        return ResponseEntity.ok().eTag(String.valueOf(order.getVersion())).body(ManufacturingOrderResponse.of(order));
     }
 
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -115,6 +244,12 @@ public class ManufacturingOrderController {
         return Map.of("error", ex.getMessage());
     }
 
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public Map<String, String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return Map.of("error", "The manufacturing order was modified by another request, reload it and retry.");
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public Map<String, String> handleMessageNotReadable(HttpMessageNotReadableException ex) {
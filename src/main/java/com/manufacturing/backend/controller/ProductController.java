@@ -1,19 +1,24 @@
 package com.manufacturing.backend.controller;
 
+import com.manufacturing.backend.common.CursorPage;
+import com.manufacturing.backend.common.ProductPatchPayload;
 import com.manufacturing.backend.common.ProductPayload;
 import com.manufacturing.backend.model.Product;
 import com.manufacturing.backend.service.ProductService;
+import com.manufacturing.backend.service.ResourceVersionTracker;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -22,15 +27,27 @@ import java.util.Map;
 public class ProductController {
 
     private final ProductService productService;
+    private final ResourceVersionTracker resourceVersionTracker;
 
     /**
-     * Retrieve all products.
+     * Retrieve products one page at a time, ordered by ID.
      *
-     * @return List of all products
+     * @param cursor Cursor returned with the previous page, omitted for the first page
+     * @param limit  Page size, capped at {@link CursorPage#MAX_LIMIT}
+     * @return Page of products and the cursor of the next page, or 304 Not Modified if no product changed
+     *         since the version given in If-None-Match
      */
     @GetMapping("/")
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(this.productService.findAllProducts());
+    public ResponseEntity<CursorPage<Product>> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit,
+            WebRequest request
+    ) {
+        ResourceVersionTracker.Tag tag = resourceVersionTracker.tag(ResourceVersionTracker.Resource.PRODUCTS);
+        if (request.checkNotModified(tag.eTag(), tag.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(this.productService.findProductPage(cursor, limit));
     }
 
     /**
@@ -44,7 +61,7 @@ public class ProductController {
             @Valid @RequestBody ProductPayload payload
     ) {
         Product savedProduct = this.productService.saveProduct(payload);
-        return ResponseEntity.ok(savedProduct);
+        return withETag(savedProduct);
     }
 
     /**
@@ -57,24 +74,50 @@ public class ProductController {
     @PutMapping({"/{id}", "/{id}/"})
     public ResponseEntity<Product> updateProduct(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ProductPayload payload
     ) {
-        return this.productService.updateProduct(id, payload)
-                .map(ResponseEntity::ok)
+        return this.productService.updateProduct(id, payload, IfMatch.expectedVersion(ifMatch))
+                .map(ProductController::withETag)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Change only the fields present in the body of a product.
+     *
+     * @param id      Product ID
+     * @param ifMatch ETag of the product last read; the change is refused with 409 if it changed since
+     * @return ResponseEntity containing the updated product if found, or 404 Not Found
+     */
+    @PatchMapping({"/{id}", "/{id}/"})
+    public ResponseEntity<Product> patchProduct(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody ProductPatchPayload payload
+    ) {
+        return this.productService.patchProduct(id, payload, IfMatch.expectedVersion(ifMatch))
+                .map(ProductController::withETag)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
      * Delete a product by its ID.
      *
-     * @param id Product ID
+     * @param id      Product ID
+     * @param ifMatch ETag of the product last read; the delete is refused with 409 if it changed since
      */
     @DeleteMapping({"/{id}", "/{id}/"})
-    public ResponseEntity<String> deleteProduct(@PathVariable Long id) {
-        this.productService.deleteProduct(id);
+    public ResponseEntity<String> deleteProduct(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        this.productService.deleteProduct(id, IfMatch.expectedVersion(ifMatch));
         return ResponseEntity.ok("Product deleted successfully");
     }
 
+    private static ResponseEntity<Product> withETag(Product product) {
+        return ResponseEntity.ok().eTag(String.valueOf(product.getVersion())).body(product);
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public Map<String, String> handleValidationExceptions(
@@ -97,4 +140,16 @@ public class ProductController {
         }
         return Map.of("error", "Invalid request body: " + message);
     }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public Map<String, String> handleIllegalArgumentExceptions(IllegalArgumentException ex) {
+        return Map.of("error", ex.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public Map<String, String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return Map.of("error", "The product was modified by another request, reload it and retry.");
+    }
 }
@@ -0,0 +1,17 @@
+package com.manufacturing.backend.event;
+
+import com.manufacturing.backend.common.MachineStatus;
+
+/**
+ * Published by {@code MachineService} whenever a machine is created, updated or deleted.
+ * {@code before} is null for a creation and {@code after} is null for a deletion.
+ */
+public record MachineChangedEvent(
+        Long machineId,
+        MachineStatus before,
+        MachineStatus after
+) {
+    public boolean deleted() {
+        return after == null;
+    }
+}
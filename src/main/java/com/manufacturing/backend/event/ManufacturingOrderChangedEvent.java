@@ -0,0 +1,22 @@
+package com.manufacturing.backend.event;
+
+/**
+ * Published by {@code ManufacturingOrderService} whenever an order is created, updated or deleted.
+ * {@code before} is null for a creation and {@code after} is null for a deletion.
+ */
+public record ManufacturingOrderChangedEvent(
+        ManufacturingOrderSnapshot before,
+        ManufacturingOrderSnapshot after
+) {
+    public static ManufacturingOrderChangedEvent created(ManufacturingOrderSnapshot after) {
+        return new ManufacturingOrderChangedEvent(null, after);
+    }
+
+    public static ManufacturingOrderChangedEvent deleted(ManufacturingOrderSnapshot before) {
+        return new ManufacturingOrderChangedEvent(before, null);
+    }
+
+    public Long orderId() {
+        return after != null ? after.id() : before.id();
+    }
+}
@@ -0,0 +1,30 @@
+package com.manufacturing.backend.event;
+
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.model.ManufacturingOrder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of the order fields that KPI and history consumers care about,
+ * taken while the entity is still attached so listeners never touch the persistence context.
+ */
+public record ManufacturingOrderSnapshot(
+        Long id,
+        ManufacturingOrderStatus status,
+        LocalDateTime date,
+        Long machineId,
+        Long productId,
+        int quantity
+) {
+    public static ManufacturingOrderSnapshot of(ManufacturingOrder order) {
+        return new ManufacturingOrderSnapshot(
+                order.getId(),
+                order.getStatus(),
+                order.getDate(),
+                order.getMachine().getId(),
+                order.getProduct().getId(),
+                order.getQuantity()
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package com.manufacturing.backend.event;
+
+import java.util.List;
+
+/**
+ * Published by {@code OrderArchiveService} when orders are moved to the archive table. The orders
+ * are unchanged, so status counts and rollups, which include the archive, stay as they are.
+ */
+public record ManufacturingOrdersArchivedEvent(
+        List<Long> orderIds
+) {}
@@ -0,0 +1,11 @@
+package com.manufacturing.backend.event;
+
+import java.util.List;
+
+/**
+ * Published instead of one {@link ManufacturingOrderChangedEvent} per order when many orders are
+ * changed by a single set-based statement, so listeners can apply the changes in one pass.
+ */
+public record ManufacturingOrdersBulkChangedEvent(
+        List<ManufacturingOrderChangedEvent> changes
+) {}
@@ -0,0 +1,13 @@
+package com.manufacturing.backend.event;
+
+import java.util.List;
+
+/**
+ * Published before a machine or product deletion removes its orders, live or archived, by
+ * cascade, with their last state. Status counts, rollups and the archive follow the deletion from
+ * {@link MachineChangedEvent} and {@link ProductChangedEvent} instead, so this event only records
+ * the deletions in the order lifecycle log.
+ */
+public record ManufacturingOrdersCascadeDeletedEvent(
+        List<ManufacturingOrderSnapshot> orders
+) {}
@@ -0,0 +1,9 @@
+package com.manufacturing.backend.event;
+
+/**
+ * Published by {@code OrderRollupService} when the daily rollup was recomputed from the orders
+ * tables, which may change the trend even though no order changed.
+ */
+public record OrderRollupRebuiltEvent(
+        int rows
+) {}
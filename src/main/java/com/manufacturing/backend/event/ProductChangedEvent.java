@@ -0,0 +1,19 @@
+package com.manufacturing.backend.event;
+
+/**
+ * Published by {@code ProductService} whenever a product is created, updated or deleted, and by
+ * {@code StockService} with {@code stockOnly} set when only its stock or reservation moved.
+ */
+public record ProductChangedEvent(
+        Long productId,
+        boolean deleted,
+        boolean stockOnly
+) {
+    public ProductChangedEvent(Long productId, boolean deleted) {
+        this(productId, deleted, false);
+    }
+
+    public static ProductChangedEvent stockChanged(Long productId) {
+        return new ProductChangedEvent(productId, false, true);
+    }
+}
@@ -0,0 +1,48 @@
+package com.manufacturing.backend.model;
+
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Completed or voided order moved out of {@code manufacturing_order} by {@code OrderArchiveService}.
+ * Keeps the ID of the order; product and machine are plain IDs, so archived rows are never loaded
+ * with, or cascaded from, the live entities.
+ */
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "manufacturing_order_archive", indexes = {
+        @Index(name = "idx_manufacturing_order_archive_date_id", columnList = "date, id"),
+        @Index(name = "idx_manufacturing_order_archive_machine", columnList = "machine_id"),
+        @Index(name = "idx_manufacturing_order_archive_product", columnList = "product_id"),
+        @Index(name = "idx_manufacturing_order_archive_updated_at", columnList = "updated_at")
+})
+public class ArchivedManufacturingOrder {
+    @Id
+    private Long id;
+    @Column(nullable = false)
+    private String project;
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ManufacturingOrderStatus status;
+    @Column(nullable = false)
+    private int quantity;
+    @Column(nullable = false)
+    private LocalDateTime date;
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    @Column(name = "machine_id", nullable = false)
+    private Long machineId;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    @Column(nullable = false)
+    private Long version;
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
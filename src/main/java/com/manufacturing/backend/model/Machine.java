@@ -1,9 +1,11 @@
 package com.manufacturing.backend.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.manufacturing.backend.common.MachineStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -12,6 +14,7 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
+@DynamicUpdate
 @Data
 @Getter
 @Setter
@@ -19,9 +22,11 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Machine {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "machine_seq")
+    @SequenceGenerator(name = "machine_seq", sequenceName = "machine_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -34,12 +39,22 @@ public class Machine {
     @Column()
     private LocalDateTime lastMaintenanceDate;
 
+    // Units produced per hour, used by the scheduler to estimate order durations
+    @Column(nullable = false, columnDefinition = "integer default 1")
+    @Builder.Default
+    private int capacity = 1;
+
+    // Collections are left out of equals/hashCode/toString, like Product.manufacturingOrders
     @OneToMany(mappedBy = "machine", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<ManufacturingOrder> manufacturingOrders;
 
     @OneToMany(mappedBy = "employeeMachine", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Employee> employees;
 
     @CreatedDate
@@ -48,4 +63,8 @@ public class Machine {
 
     @LastModifiedDate
     private LocalDateTime updatedAt;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
@@ -0,0 +1,38 @@
+package com.manufacturing.backend.model;
+
+import com.manufacturing.backend.common.MachineStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Period a machine spent in one status; {@code endedAt} is null for the current one.
+ * Written by {@code MachineReliabilityService} on every status change.
+ */
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_machine_status_interval_started_at", columnList = "started_at"),
+        // Bounds the window scans from below: ended_at > :from, or null for the open intervals
+        @Index(name = "idx_machine_status_interval_ended_at", columnList = "ended_at"),
+        @Index(name = "idx_machine_status_interval_machine_ended_at", columnList = "machine_id, ended_at")
+})
+public class MachineStatusInterval {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "machine_status_interval_seq")
+    @SequenceGenerator(name = "machine_status_interval_seq", sequenceName = "machine_status_interval_seq", allocationSize = 50)
+    private Long id;
+    @Column(name = "machine_id", nullable = false)
+    private Long machineId;
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private MachineStatus status;
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    @Column(name = "ended_at")
+    private LocalDateTime endedAt;
+}
@@ -17,9 +17,18 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+@Table(indexes = {
+        @Index(name = "idx_manufacturing_order_date_id", columnList = "date, id"),
+        @Index(name = "idx_manufacturing_order_status_date_id", columnList = "status, date, id"),
+        @Index(name = "idx_manufacturing_order_machine_date_id", columnList = "machine_id, date, id"),
+        @Index(name = "idx_manufacturing_order_product_date_id", columnList = "product_id, date, id"),
+        @Index(name = "idx_manufacturing_order_project_date_id", columnList = "project, date, id"),
+        @Index(name = "idx_manufacturing_order_updated_at", columnList = "updated_at")
+})
 public class ManufacturingOrder {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "manufacturing_order_seq")
+    @SequenceGenerator(name = "manufacturing_order_seq", sequenceName = "manufacturing_order_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String project;
@@ -30,10 +39,10 @@ public class ManufacturingOrder {
     private int quantity;
     @Column(nullable = false)
     private LocalDateTime date;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "machine_id", nullable = false)
     private Machine machine;
     @CreatedDate
@@ -41,4 +50,7 @@ public class ManufacturingOrder {
     private LocalDateTime createdAt;
     @LastModifiedDate
     private LocalDateTime updatedAt;
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
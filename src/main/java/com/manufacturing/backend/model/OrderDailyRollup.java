@@ -0,0 +1,53 @@
+package com.manufacturing.backend.model;
+
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Number of orders and total quantity per day, status, machine and product.
+ * Maintained incrementally from the order write path by {@code OrderRollupService}; the
+ * composite key is what the upsert conflicts on.
+ */
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(OrderDailyRollup.Key.class)
+@Table(indexes = {
+        @Index(name = "idx_order_daily_rollup_machine", columnList = "machine_id"),
+        @Index(name = "idx_order_daily_rollup_product", columnList = "product_id")
+})
+public class OrderDailyRollup {
+    @Id
+    @Column(name = "order_day", nullable = false)
+    private LocalDate orderDay;
+    @Id
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ManufacturingOrderStatus status;
+    @Id
+    @Column(name = "machine_id", nullable = false)
+    private Long machineId;
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    @Column(nullable = false)
+    private long orderCount;
+    @Column(nullable = false)
+    private long quantitySum;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate orderDay;
+        private ManufacturingOrderStatus status;
+        private Long machineId;
+        private Long productId;
+    }
+}
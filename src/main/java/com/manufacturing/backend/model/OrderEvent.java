@@ -0,0 +1,40 @@
+package com.manufacturing.backend.model;
+
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.OrderEventType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One entry of the append-only order lifecycle log.
+ * Written in batches by {@code OrderEventLog}, never updated. The ID is assigned when the event is
+ * captured, so an event replayed from the write-ahead file is recognized as a duplicate.
+ */
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_order_event_order_occurred_at", columnList = "order_id, occurred_at")
+})
+public class OrderEvent {
+    @Id
+    private UUID id;
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OrderEventType type;
+    @Enumerated(EnumType.STRING)
+    private ManufacturingOrderStatus fromStatus;
+    @Enumerated(EnumType.STRING)
+    private ManufacturingOrderStatus toStatus;
+    private Long fromMachineId;
+    private Long toMachineId;
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
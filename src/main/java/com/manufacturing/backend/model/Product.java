@@ -1,9 +1,12 @@
 package com.manufacturing.backend.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.manufacturing.backend.common.ProductType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -12,6 +15,7 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
+@DynamicUpdate
 @Data
 @Getter
 @Setter
@@ -19,9 +23,11 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String name;
@@ -30,14 +36,37 @@ public class Product {
     private ProductType type;
     @Column(nullable = false)
     private int stock;
+    // Units held by open orders; only changed through the conditional updates of ProductRepository,
+    // so entity updates from the product endpoints never overwrite it
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int reservedStock;
     @Column(nullable = false)
     private String supplier;
+    // Available stock below which the product is reported in the stock alerts; rows created before
+    // the column existed keep the former global threshold
+    @Column(nullable = false, columnDefinition = "integer default 10")
+    private Integer reorderThreshold;
+    // Left out of equals/hashCode/toString, which would otherwise load it, and the orders hashing
+    // their product while the set is being loaded by a cascade
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<ManufacturingOrder> manufacturingOrders;
     @CreatedDate
     @Column(updatable = false, nullable = false)
     private LocalDateTime createdAt;
     @LastModifiedDate
     private LocalDateTime updatedAt;
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    @PrePersist
+    void applyDefaultReorderThreshold() {
+        if (reorderThreshold == null && type != null) {
+            reorderThreshold = type.defaultReorderThreshold();
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package com.manufacturing.backend.repository;
+
+import com.manufacturing.backend.common.DailyRollupRow;
+import com.manufacturing.backend.common.ManufacturingOrderExportRow;
+import com.manufacturing.backend.common.OrderStatusCount;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.model.ArchivedManufacturingOrder;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ArchivedManufacturingOrderRepository extends JpaRepository<ArchivedManufacturingOrder, Long>,
+        ArchivedManufacturingOrderRepositoryCustom {
+
+    /**
+     * Copy orders to the archive in one statement. The caller deletes them from the orders table
+     * in the same transaction.
+     *
+     * @return Number of orders copied
+     */
+    @Modifying
+    @Query("""
+            insert into ArchivedManufacturingOrder (id, project, status, quantity, date, productId, machineId,
+                createdAt, updatedAt, version, archivedAt)
+            select o.id, o.project, o.status, o.quantity, o.date, o.product.id, o.machine.id,
+                o.createdAt, o.updatedAt, o.version, local datetime
+            from ManufacturingOrder o
+            where o.id in :ids
+            """)
+    int copyFromOrders(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            select new com.manufacturing.backend.common.OrderStatusCount(a.status, count(a))
+            from ArchivedManufacturingOrder a
+            group by a.status
+            """)
+    List<OrderStatusCount> countGroupedByStatus();
+
+    /**
+     * Archived orders grouped like the rows of the daily rollup.
+     */
+    @Query("""
+            select new com.manufacturing.backend.common.DailyRollupRow(
+                cast(a.date as LocalDate), a.status, a.machineId, a.productId, count(a), sum(a.quantity))
+            from ArchivedManufacturingOrder a
+            group by cast(a.date as LocalDate), a.status, a.machineId, a.productId
+            """)
+    List<DailyRollupRow> sumGroupedByDay();
+
+    @Query("""
+            select new com.manufacturing.backend.event.ManufacturingOrderSnapshot(
+                a.id, a.status, a.date, a.machineId, a.productId, a.quantity)
+            from ArchivedManufacturingOrder a
+            where a.machineId = :machineId
+            """)
+    List<ManufacturingOrderSnapshot> findSnapshotsByMachineId(@Param("machineId") Long machineId);
+
+    @Query("""
+            select new com.manufacturing.backend.event.ManufacturingOrderSnapshot(
+                a.id, a.status, a.date, a.machineId, a.productId, a.quantity)
+            from ArchivedManufacturingOrder a
+            where a.productId = :productId
+            """)
+    List<ManufacturingOrderSnapshot> findSnapshotsByProductId(@Param("productId") Long productId);
+
+    /**
+     * Archived orders as export rows, ordered by ID, read like
+     * {@link ManufacturingOrderRepository#streamExportRows(LocalDateTime)}.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.manufacturing.backend.common.ManufacturingOrderExportRow(
+                a.id, a.project, a.status, a.quantity, a.date,
+                p.id, p.name, m.id, m.name, a.createdAt, a.updatedAt)
+            from ArchivedManufacturingOrder a
+            join Product p on p.id = a.productId
+            join Machine m on m.id = a.machineId
+            where :since is null or a.updatedAt >= :since
+            order by a.id
+            """)
+    Stream<ManufacturingOrderExportRow> streamExportRows(@Param("since") LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ArchivedManufacturingOrder a where a.machineId = :machineId")
+    int deleteByMachineId(@Param("machineId") Long machineId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ArchivedManufacturingOrder a where a.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
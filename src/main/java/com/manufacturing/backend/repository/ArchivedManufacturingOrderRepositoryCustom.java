@@ -0,0 +1,27 @@
+package com.manufacturing.backend.repository;
+
+import com.manufacturing.backend.common.KeysetCursor;
+import com.manufacturing.backend.common.ManufacturingOrderField;
+import com.manufacturing.backend.common.ManufacturingOrderFilter;
+import com.manufacturing.backend.common.ManufacturingOrderResponse;
+import com.manufacturing.backend.common.ReferenceMode;
+
+import java.util.List;
+import java.util.Set;
+
+public interface ArchivedManufacturingOrderRepositoryCustom {
+
+    /**
+     * Keyset page of archived orders ordered by {@code (date, id)}, with the same filters and
+     * rendering as {@link ManufacturingOrderRepositoryCustom#findPage}, so both pages can be merged.
+     *
+     * @param filter Filters to apply
+     * @param after  Position of the last row of the previous page, or null for the first page
+     * @param limit  Maximum number of rows to return
+     * @param fields Fields to return; {@code id} and {@code date} are always returned for the cursor
+     * @param refs   How to render the product and machine
+     * @return Matching archived orders, unrequested fields left null
+     */
+    List<ManufacturingOrderResponse> findPage(ManufacturingOrderFilter filter, KeysetCursor after, int limit,
+                                              Set<ManufacturingOrderField> fields, ReferenceMode refs);
+}
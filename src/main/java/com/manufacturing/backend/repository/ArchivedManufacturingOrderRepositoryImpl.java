@@ -0,0 +1,112 @@
+package com.manufacturing.backend.repository;
+
+import com.manufacturing.backend.common.KeysetCursor;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderField;
+import com.manufacturing.backend.common.ManufacturingOrderFilter;
+import com.manufacturing.backend.common.ManufacturingOrderResponse;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.common.ReferenceMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class ArchivedManufacturingOrderRepositoryImpl implements ArchivedManufacturingOrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Archived rows are narrow, so every column is read and the unrequested ones dropped afterwards;
+    // product and machine are only joined, by ID, for their summary
+    @Override
+    public List<ManufacturingOrderResponse> findPage(ManufacturingOrderFilter filter, KeysetCursor after, int limit,
+                                                     Set<ManufacturingOrderField> fields, ReferenceMode refs) {
+        boolean summaries = refs == ReferenceMode.SUMMARY;
+        StringBuilder jpql = new StringBuilder("""
+                select a.id as id, a.project as project, a.status as status, a.quantity as quantity, a.date as date,
+                    a.productId as productId, a.machineId as machineId, a.createdAt as createdAt,
+                    a.updatedAt as updatedAt, a.version as version""");
+        if (summaries) {
+            jpql.append("""
+                    , p.name as productName, p.type as productType, m.name as machineName, m.status as machineStatus
+                    from ArchivedManufacturingOrder a
+                    join Product p on p.id = a.productId
+                    join Machine m on m.id = a.machineId""");
+        } else {
+            jpql.append(" from ArchivedManufacturingOrder a");
+        }
+        jpql.append(" where 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+        if (filter.status() != null) {
+            jpql.append(" and a.status = :status");
+            parameters.put("status", filter.status());
+        }
+        if (filter.machineId() != null) {
+            jpql.append(" and a.machineId = :machineId");
+            parameters.put("machineId", filter.machineId());
+        }
+        if (filter.productId() != null) {
+            jpql.append(" and a.productId = :productId");
+            parameters.put("productId", filter.productId());
+        }
+        if (filter.project() != null) {
+            jpql.append(" and a.project = :project");
+            parameters.put("project", filter.project());
+        }
+        if (filter.from() != null) {
+            jpql.append(" and a.date >= :from");
+            parameters.put("from", filter.from());
+        }
+        if (filter.to() != null) {
+            jpql.append(" and a.date < :to");
+            parameters.put("to", filter.to());
+        }
+        if (after != null) {
+            jpql.append(" and (a.date > :afterDate or (a.date = :afterDate and a.id > :afterId))");
+            parameters.put("afterDate", after.date());
+            parameters.put("afterId", after.id());
+        }
+        jpql.append(" order by a.date, a.id");
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class).setMaxResults(limit);
+        parameters.forEach(query::setParameter);
+        Set<ManufacturingOrderField> returned = EnumSet.copyOf(fields);
+        returned.add(ManufacturingOrderField.ID);
+        returned.add(ManufacturingOrderField.DATE);
+        List<ManufacturingOrderResponse> responses = new ArrayList<>(limit);
+        for (Tuple row : query.getResultList()) {
+            responses.add(toResponse(row, summaries).only(returned));
+        }
+        return responses;
+    }
+
+    private static ManufacturingOrderResponse toResponse(Tuple row, boolean summaries) {
+        return new ManufacturingOrderResponse(
+                row.get("id", Long.class),
+                row.get("project", String.class),
+                row.get("status", ManufacturingOrderStatus.class),
+                row.get("quantity", Integer.class),
+                row.get("date", LocalDateTime.class),
+                summaries
+                        ? new ManufacturingOrderResponse.ProductRef(row.get("productId", Long.class),
+                                row.get("productName", String.class), row.get("productType", ProductType.class))
+                        : new ManufacturingOrderResponse.ProductRef(row.get("productId", Long.class), null, null),
+                summaries
+                        ? new ManufacturingOrderResponse.MachineRef(row.get("machineId", Long.class),
+                                row.get("machineName", String.class), row.get("machineStatus", MachineStatus.class))
+                        : new ManufacturingOrderResponse.MachineRef(row.get("machineId", Long.class), null, null),
+                row.get("createdAt", LocalDateTime.class),
+                row.get("updatedAt", LocalDateTime.class),
+                row.get("version", Long.class));
+    }
+}
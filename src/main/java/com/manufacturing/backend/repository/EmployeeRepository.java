@@ -1,6 +1,34 @@
 package com.manufacturing.backend.repository;
 
+import com.manufacturing.backend.common.EmployeeWorkload;
 import com.manufacturing.backend.model.Employee;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {}
\ No newline at end of file
+import java.util.List;
+import java.util.Optional;
+
+public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = "employeeMachine")
+    List<Employee> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "employeeMachine")
+    Optional<Employee> findById(Long id);
+
+    @EntityGraph(attributePaths = "employeeMachine")
+    List<Employee> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("""
+            select new com.manufacturing.backend.common.EmployeeWorkload(e.id, e.name, count(m.id))
+            from Employee e
+            left join e.employeeMachine m
+            group by e.id, e.name
+            order by e.id
+            """)
+    List<EmployeeWorkload> countMachinesPerEmployee();
+}
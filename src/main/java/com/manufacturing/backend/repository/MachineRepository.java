@@ -1,6 +1,55 @@
 package com.manufacturing.backend.repository;
 
+import com.manufacturing.backend.common.MachineCapacity;
+import com.manufacturing.backend.common.MachineReference;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.MachineStatusCount;
+import com.manufacturing.backend.config.CacheConfig;
 import com.manufacturing.backend.model.Machine;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface MachineRepository extends JpaRepository<Machine, Long> {}
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface MachineRepository extends JpaRepository<Machine, Long> {
+
+    List<Machine> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Cached lookup for reference purposes, e.g. to link a new order to its machine.
+     * The cache holds an immutable projection rather than the entity, so callers cannot alter
+     * what other requests read.
+     */
+    @Cacheable(cacheNames = CacheConfig.MACHINES_CACHE, key = "#p0", unless = "#result == null")
+    @Query("""
+            select new com.manufacturing.backend.common.MachineReference(m.id, m.name, m.status, m.capacity, m.version)
+            from Machine m
+            where m.id = :id
+            """)
+    Optional<MachineReference> findReferenceById(@Param("id") Long id);
+
+    @Query("""
+            select new com.manufacturing.backend.common.MachineStatusCount(m.status, count(m))
+            from Machine m
+            group by m.status
+            """)
+    List<MachineStatusCount> countGroupedByStatus();
+
+    @Query("select new com.manufacturing.backend.common.MachineCapacity(m.id, m.capacity) from Machine m where m.status in :statuses")
+    List<MachineCapacity> findCapacitiesByStatusIn(@Param("statuses") Collection<MachineStatus> statuses);
+
+    /**
+     * Machines whose status has no open interval, e.g. created before intervals were recorded.
+     */
+    @Query("""
+            select m from Machine m
+            where not exists (
+                select i.id from MachineStatusInterval i where i.machineId = m.id and i.endedAt is null)
+            """)
+    List<Machine> findWithoutCurrentStatusInterval();
+}
@@ -0,0 +1,54 @@
+package com.manufacturing.backend.repository;
+
+import com.manufacturing.backend.common.MachineStatusSpan;
+import com.manufacturing.backend.model.MachineStatusInterval;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public interface MachineStatusIntervalRepository extends JpaRepository<MachineStatusInterval, Long> {
+
+    /**
+     * End the current interval of a machine, if any.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update MachineStatusInterval i set i.endedAt = :endedAt
+            where i.machineId = :machineId and i.endedAt is null
+            """)
+    int closeCurrent(@Param("machineId") Long machineId, @Param("endedAt") LocalDateTime endedAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from MachineStatusInterval i where i.machineId = :machineId")
+    int deleteByMachineId(@Param("machineId") Long machineId);
+
+    /**
+     * Intervals overlapping {@code [from, to)}, in no particular order, as projections.
+     * Must be consumed inside a transaction and closed.
+     * <p>
+     * The lower bound is on {@code ended_at}, indexed, since an interval still running may have
+     * started long before the window.
+     *
+     * @param machineId Machine to restrict to, or null for every machine
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.manufacturing.backend.common.MachineStatusSpan(i.machineId, i.status, i.startedAt, i.endedAt)
+            from MachineStatusInterval i
+            where i.startedAt < :to and (i.endedAt is null or i.endedAt > :from)
+            and (:machineId is null or i.machineId = :machineId)
+            """)
+    Stream<MachineStatusSpan> streamOverlapping(@Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to,
+                                                @Param("machineId") Long machineId);
+}
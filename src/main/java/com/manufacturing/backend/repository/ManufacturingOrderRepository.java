@@ -1,6 +1,210 @@
 package com.manufacturing.backend.repository;
 
+import com.manufacturing.backend.common.MachineLoad;
+import com.manufacturing.backend.common.ManufacturingOrderExportRow;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.OrderStatusCount;
+import com.manufacturing.backend.common.ProductDemand;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.model.Machine;
 import com.manufacturing.backend.model.ManufacturingOrder;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ManufacturingOrderRepository extends JpaRepository<ManufacturingOrder, Long> {}
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ManufacturingOrderRepository extends JpaRepository<ManufacturingOrder, Long>, ManufacturingOrderRepositoryCustom {
+
+    @Override
+    @EntityGraph(attributePaths = {"product", "machine"})
+    Optional<ManufacturingOrder> findById(Long id);
+
+    /**
+     * Move an order from one status to another in one statement, only if it is still in that
+     * status and, when given, at the expected version.
+     * Clears the persistence context, so previously loaded orders are detached afterwards.
+     *
+     * @param version Expected version, or null to skip the check
+     * @return 1 if updated, 0 if the order is gone, not in the {@code from} status or at another version
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update ManufacturingOrder o
+            set o.status = :status, o.version = o.version + 1, o.updatedAt = :updatedAt
+            where o.id = :id and o.status = :from and (:version is null or o.version = :version)
+            """)
+    int updateStatusIfCurrent(@Param("id") Long id,
+                              @Param("version") Long version,
+                              @Param("from") ManufacturingOrderStatus from,
+                              @Param("status") ManufacturingOrderStatus status,
+                              @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Reassign orders to another machine in one statement.
+     * Clears the persistence context, so previously loaded orders are detached afterwards.
+     *
+     * @return Number of orders updated
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update ManufacturingOrder o
+            set o.machine = :machine, o.version = o.version + 1, o.updatedAt = :updatedAt
+            where o.id in :ids
+            """)
+    int reassignMachine(@Param("ids") Collection<Long> ids,
+                        @Param("machine") Machine machine,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Move orders to a new status in one statement. The caller is responsible for checking
+     * the transition, typically on rows locked with {@link #lockIds}.
+     * Clears the persistence context, so previously loaded orders are detached afterwards.
+     *
+     * @return Number of orders updated
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update ManufacturingOrder o
+            set o.status = :status, o.version = o.version + 1, o.updatedAt = :updatedAt
+            where o.id in :ids
+            """)
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids,
+                           @Param("status") ManufacturingOrderStatus status,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Lock up to {@code limit} orders in the given statuses, last changed before the cutoff, until
+     * the end of the transaction.
+     *
+     * @param statuses Status names
+     * @return IDs of the locked orders, ascending
+     */
+    @Query(value = """
+            select id from manufacturing_order
+            where status in (:statuses) and updated_at < :cutoff
+            order by id
+            limit :limit
+            for update
+            """, nativeQuery = true)
+    List<Long> lockIdsByStatusInUpdatedBefore(@Param("statuses") Collection<String> statuses,
+                                              @Param("cutoff") LocalDateTime cutoff,
+                                              @Param("limit") int limit);
+
+    /**
+     * Delete orders in one statement, without loading them or publishing change events.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from ManufacturingOrder o where o.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            select new com.manufacturing.backend.event.ManufacturingOrderSnapshot(
+                o.id, o.status, o.date, o.machine.id, o.product.id, o.quantity)
+            from ManufacturingOrder o
+            where o.status in :statuses
+            """)
+    List<ManufacturingOrderSnapshot> findSnapshotsByStatusIn(@Param("statuses") Collection<ManufacturingOrderStatus> statuses);
+
+    @Query("""
+            select new com.manufacturing.backend.event.ManufacturingOrderSnapshot(
+                o.id, o.status, o.date, o.machine.id, o.product.id, o.quantity)
+            from ManufacturingOrder o
+            where o.id in :ids
+            """)
+    List<ManufacturingOrderSnapshot> findSnapshotsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            select new com.manufacturing.backend.event.ManufacturingOrderSnapshot(
+                o.id, o.status, o.date, o.machine.id, o.product.id, o.quantity)
+            from ManufacturingOrder o
+            where o.machine.id = :machineId
+            """)
+    List<ManufacturingOrderSnapshot> findSnapshotsByMachineId(@Param("machineId") Long machineId);
+
+    @Query("""
+            select new com.manufacturing.backend.event.ManufacturingOrderSnapshot(
+                o.id, o.status, o.date, o.machine.id, o.product.id, o.quantity)
+            from ManufacturingOrder o
+            where o.product.id = :productId
+            """)
+    List<ManufacturingOrderSnapshot> findSnapshotsByProductId(@Param("productId") Long productId);
+
+    @Query("""
+            select new com.manufacturing.backend.common.MachineLoad(m.id, m.name, sum(o.quantity))
+            from ManufacturingOrder o
+            join o.machine m
+            where o.status in :statuses
+            group by m.id, m.name
+            """)
+    List<MachineLoad> sumQuantityByMachineForStatuses(@Param("statuses") Collection<ManufacturingOrderStatus> statuses);
+
+    /**
+     * Units of the orders in the given statuses dated before {@code until}, per product, in no
+     * particular order. Must be consumed within a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.manufacturing.backend.common.ProductDemand(p.id, p.name, p.stock, sum(o.quantity))
+            from ManufacturingOrder o
+            join o.product p
+            where o.status in :statuses and o.date < :until
+            group by p.id, p.name, p.stock
+            """)
+    Stream<ProductDemand> streamDemandByProduct(@Param("statuses") Collection<ManufacturingOrderStatus> statuses,
+                                                @Param("until") LocalDateTime until);
+
+    @Query("""
+            select new com.manufacturing.backend.common.OrderStatusCount(o.status, count(o))
+            from ManufacturingOrder o
+            group by o.status
+            """)
+    List<OrderStatusCount> countGroupedByStatus();
+
+    @Query("""
+            select new com.manufacturing.backend.common.MachineLoad(m.id, m.name, count(o.id))
+            from Machine m
+            left join m.manufacturingOrders o
+                on (:from is null or o.date >= :from) and (:to is null or o.date < :to)
+            group by m.id, m.name
+            """)
+    List<MachineLoad> countGroupedByMachine(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("""
+            select new com.manufacturing.backend.common.MachineLoad(m.id, m.name, coalesce(sum(o.quantity), 0L))
+            from Machine m
+            left join m.manufacturingOrders o
+                on (:from is null or o.date >= :from) and (:to is null or o.date < :to)
+            group by m.id, m.name
+            """)
+    List<MachineLoad> sumQuantityGroupedByMachine(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Stream export rows in ID order through a forward-only cursor.
+     * Must be consumed inside a transaction and closed after use.
+     *
+     * @param since Only rows modified at or after this instant, or null for every row
+     * @return Stream of export rows
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.manufacturing.backend.common.ManufacturingOrderExportRow(
+                o.id, o.project, o.status, o.quantity, o.date,
+                p.id, p.name, m.id, m.name, o.createdAt, o.updatedAt)
+            from ManufacturingOrder o
+            join o.product p
+            join o.machine m
+            where :since is null or o.updatedAt >= :since
+            order by o.id
+            """)
+    Stream<ManufacturingOrderExportRow> streamExportRows(@Param("since") LocalDateTime since);
+}
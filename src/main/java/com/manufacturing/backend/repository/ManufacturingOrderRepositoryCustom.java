@@ -0,0 +1,42 @@
+package com.manufacturing.backend.repository;
+
+import com.manufacturing.backend.common.KeysetCursor;
+import com.manufacturing.backend.common.ManufacturingOrderField;
+import com.manufacturing.backend.common.ManufacturingOrderFilter;
+import com.manufacturing.backend.common.ManufacturingOrderResponse;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ReferenceMode;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface ManufacturingOrderRepositoryCustom {
+
+    /**
+     * Keyset page of orders ordered by {@code (date, id)}, read as a projection of the requested
+     * columns only. Product and machine are only joined when their summary is requested.
+     *
+     * @param filter Filters to apply
+     * @param after  Position of the last row of the previous page, or null for the first page
+     * @param limit  Maximum number of rows to return
+     * @param fields Fields to select; {@code id} and {@code date} are always selected for the cursor
+     * @param refs   How to render the product and machine
+     * @return Matching orders, unrequested fields left null
+     */
+    List<ManufacturingOrderResponse> findPage(ManufacturingOrderFilter filter, KeysetCursor after, int limit,
+                                              Set<ManufacturingOrderField> fields, ReferenceMode refs);
+
+    /**
+     * Lock the first {@code limit} orders, by ID, matching the IDs and filter and currently in one
+     * of the given statuses, until the end of the transaction.
+     *
+     * @param ids      IDs to restrict to, or null for no restriction
+     * @param filter   Filters to apply; only status, machine and project are supported
+     * @param statuses Statuses the orders must be in
+     * @param limit    Maximum number of orders to lock
+     * @return IDs of the locked orders, ascending
+     */
+    List<Long> lockIds(Collection<Long> ids, ManufacturingOrderFilter filter, Collection<ManufacturingOrderStatus> statuses,
+                       int limit);
+}
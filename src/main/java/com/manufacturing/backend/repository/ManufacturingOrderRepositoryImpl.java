@@ -0,0 +1,194 @@
+package com.manufacturing.backend.repository;
+
+import com.manufacturing.backend.common.KeysetCursor;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderField;
+import com.manufacturing.backend.common.ManufacturingOrderFilter;
+import com.manufacturing.backend.common.ManufacturingOrderResponse;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.common.ReferenceMode;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class ManufacturingOrderRepositoryImpl implements ManufacturingOrderRepositoryCustom {
+    // Order attributes selected when their field is requested
+    private static final Map<String, ManufacturingOrderField> SIMPLE_FIELDS = Map.of(
+            "project", ManufacturingOrderField.PROJECT,
+            "status", ManufacturingOrderField.STATUS,
+            "quantity", ManufacturingOrderField.QUANTITY,
+            "createdAt", ManufacturingOrderField.CREATED_AT,
+            "updatedAt", ManufacturingOrderField.UPDATED_AT,
+            "version", ManufacturingOrderField.VERSION);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ManufacturingOrderResponse> findPage(ManufacturingOrderFilter filter, KeysetCursor after, int limit,
+                                                     Set<ManufacturingOrderField> fields, ReferenceMode refs) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<ManufacturingOrder> order = query.from(ManufacturingOrder.class);
+        boolean summaries = refs == ReferenceMode.SUMMARY;
+
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(order.get("id").alias("id"));
+        selections.add(order.get("date").alias("date"));
+        SIMPLE_FIELDS.forEach((attribute, field) -> {
+            if (fields.contains(field)) {
+                selections.add(order.get(attribute).alias(attribute));
+            }
+        });
+        // The foreign key is enough for an ID-only reference, without joining the referenced table
+        if (fields.contains(ManufacturingOrderField.PRODUCT)) {
+            if (summaries) {
+                Join<ManufacturingOrder, Product> product = order.join("product");
+                selections.add(product.get("id").alias("productId"));
+                selections.add(product.get("name").alias("productName"));
+                selections.add(product.get("type").alias("productType"));
+            } else {
+                selections.add(order.get("product").get("id").alias("productId"));
+            }
+        }
+        if (fields.contains(ManufacturingOrderField.MACHINE)) {
+            if (summaries) {
+                Join<ManufacturingOrder, Machine> machine = order.join("machine");
+                selections.add(machine.get("id").alias("machineId"));
+                selections.add(machine.get("name").alias("machineName"));
+                selections.add(machine.get("status").alias("machineStatus"));
+            } else {
+                selections.add(order.get("machine").get("id").alias("machineId"));
+            }
+        }
+
+        query.multiselect(selections)
+                .where(predicates(cb, order, filter, after).toArray(Predicate[]::new))
+                .orderBy(cb.asc(order.get("date")), cb.asc(order.get("id")));
+
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+        List<ManufacturingOrderResponse> responses = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            responses.add(toResponse(row, fields, summaries));
+        }
+        return responses;
+    }
+
+    // Native, as rows are locked without loading them as entities
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Long> lockIds(Collection<Long> ids, ManufacturingOrderFilter filter, Collection<ManufacturingOrderStatus> statuses,
+                              int limit) {
+        StringBuilder sql = new StringBuilder("select id from manufacturing_order where status in (:statuses)");
+        if (ids != null) {
+            sql.append(" and id in (:ids)");
+        }
+        if (filter.status() != null) {
+            sql.append(" and status = :status");
+        }
+        if (filter.machineId() != null) {
+            sql.append(" and machine_id = :machineId");
+        }
+        if (filter.project() != null) {
+            sql.append(" and project = :project");
+        }
+        sql.append(" order by id limit :limit for update");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Long.class)
+                .setParameter("statuses", statuses.stream().map(Enum::name).toList())
+                .setParameter("limit", limit);
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+        if (filter.status() != null) {
+            query.setParameter("status", filter.status().name());
+        }
+        if (filter.machineId() != null) {
+            query.setParameter("machineId", filter.machineId());
+        }
+        if (filter.project() != null) {
+            query.setParameter("project", filter.project());
+        }
+        return query.getResultList();
+    }
+
+    private static ManufacturingOrderResponse toResponse(Tuple row, Set<ManufacturingOrderField> fields, boolean summaries) {
+        ManufacturingOrderResponse.ProductRef product = null;
+        if (fields.contains(ManufacturingOrderField.PRODUCT)) {
+            product = summaries
+                    ? new ManufacturingOrderResponse.ProductRef(row.get("productId", Long.class),
+                            row.get("productName", String.class), row.get("productType", ProductType.class))
+                    : new ManufacturingOrderResponse.ProductRef(row.get("productId", Long.class), null, null);
+        }
+        ManufacturingOrderResponse.MachineRef machine = null;
+        if (fields.contains(ManufacturingOrderField.MACHINE)) {
+            machine = summaries
+                    ? new ManufacturingOrderResponse.MachineRef(row.get("machineId", Long.class),
+                            row.get("machineName", String.class), row.get("machineStatus", MachineStatus.class))
+                    : new ManufacturingOrderResponse.MachineRef(row.get("machineId", Long.class), null, null);
+        }
+        return new ManufacturingOrderResponse(
+                row.get("id", Long.class),
+                fields.contains(ManufacturingOrderField.PROJECT) ? row.get("project", String.class) : null,
+                fields.contains(ManufacturingOrderField.STATUS) ? row.get("status", ManufacturingOrderStatus.class) : null,
+                fields.contains(ManufacturingOrderField.QUANTITY) ? row.get("quantity", Integer.class) : null,
+                row.get("date", LocalDateTime.class),
+                product,
+                machine,
+                fields.contains(ManufacturingOrderField.CREATED_AT) ? row.get("createdAt", LocalDateTime.class) : null,
+                fields.contains(ManufacturingOrderField.UPDATED_AT) ? row.get("updatedAt", LocalDateTime.class) : null,
+                fields.contains(ManufacturingOrderField.VERSION) ? row.get("version", Long.class) : null);
+    }
+
+    private static List<Predicate> predicates(CriteriaBuilder cb, Root<ManufacturingOrder> order,
+                                              ManufacturingOrderFilter filter, KeysetCursor after) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.status() != null) {
+            predicates.add(cb.equal(order.get("status"), filter.status()));
+        }
+        if (filter.machineId() != null) {
+            predicates.add(cb.equal(order.get("machine").get("id"), filter.machineId()));
+        }
+        if (filter.productId() != null) {
+            predicates.add(cb.equal(order.get("product").get("id"), filter.productId()));
+        }
+        if (filter.project() != null) {
+            predicates.add(cb.equal(order.get("project"), filter.project()));
+        }
+        if (filter.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.get("date"), filter.from()));
+        }
+        if (filter.to() != null) {
+            predicates.add(cb.lessThan(order.get("date"), filter.to()));
+        }
+        if (after != null) {
+            // (date, id) > (:date, :id), written out so every database can use the composite index
+            predicates.add(cb.or(
+                    cb.greaterThan(order.<LocalDateTime>get("date"), after.date()),
+                    cb.and(
+                            cb.equal(order.get("date"), after.date()),
+                            cb.greaterThan(order.<Long>get("id"), after.id()))));
+        }
+        return predicates;
+    }
+}
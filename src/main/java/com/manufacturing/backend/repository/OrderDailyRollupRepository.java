@@ -0,0 +1,78 @@
+package com.manufacturing.backend.repository;
+
+import com.manufacturing.backend.common.DailyOrderCount;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.model.OrderDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface OrderDailyRollupRepository extends JpaRepository<OrderDailyRollup, OrderDailyRollup.Key>, OrderDailyRollupRepositoryCustom {
+
+    /**
+     * Add to the counters of one rollup row, creating it if needed, in a single statement.
+     * Deltas are negative when an order leaves the row.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            insert into OrderDailyRollup (orderDay, status, machineId, productId, orderCount, quantitySum)
+            values (:day, :status, :machineId, :productId, :orderCount, :quantitySum)
+            on conflict (orderDay, status, machineId, productId) do update
+            set orderCount = orderCount + excluded.orderCount,
+                quantitySum = quantitySum + excluded.quantitySum
+            """)
+    int increment(@Param("day") LocalDate day,
+                  @Param("status") ManufacturingOrderStatus status,
+                  @Param("machineId") Long machineId,
+                  @Param("productId") Long productId,
+                  @Param("orderCount") long orderCount,
+                  @Param("quantitySum") long quantitySum);
+
+    /**
+     * Recompute every rollup row from the orders table.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            insert into OrderDailyRollup (orderDay, status, machineId, productId, orderCount, quantitySum)
+            select cast(o.date as LocalDate), o.status, o.machine.id, o.product.id, count(o), sum(o.quantity)
+            from ManufacturingOrder o
+            group by cast(o.date as LocalDate), o.status, o.machine.id, o.product.id
+            """)
+    int backfill();
+
+    @Transactional
+    @Modifying
+    @Query("delete from OrderDailyRollup r")
+    int deleteAllRows();
+
+    @Transactional
+    @Modifying
+    @Query("delete from OrderDailyRollup r where r.orderCount = 0")
+    int deleteEmptyRows();
+
+    @Transactional
+    @Modifying
+    @Query("delete from OrderDailyRollup r where r.machineId = :machineId")
+    int deleteByMachineId(@Param("machineId") Long machineId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OrderDailyRollup r where r.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+
+    @Query("""
+            select new com.manufacturing.backend.common.DailyOrderCount(r.orderDay, sum(r.orderCount))
+            from OrderDailyRollup r
+            where r.orderDay >= :from and r.orderDay < :to
+            group by r.orderDay
+            order by r.orderDay
+            """)
+    List<DailyOrderCount> countPerDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,18 @@
+package com.manufacturing.backend.repository;
+
+import com.manufacturing.backend.common.DailyRollupRow;
+
+import java.util.List;
+
+public interface OrderDailyRollupRepositoryCustom {
+
+    /**
+     * Add to the counters of many rollup rows, creating them if needed, with one multi-row upsert
+     * per chunk of rows. The rows are written in the given order, so callers sort them to take the
+     * row locks in the same order in every transaction.
+     *
+     * @param rows Deltas to add, at most one per rollup key
+     * @return Number of rows inserted or updated
+     */
+    int incrementAll(List<DailyRollupRow> rows);
+}
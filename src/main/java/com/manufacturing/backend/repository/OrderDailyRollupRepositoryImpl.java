@@ -0,0 +1,56 @@
+package com.manufacturing.backend.repository;
+
+import com.manufacturing.backend.common.DailyRollupRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+class OrderDailyRollupRepositoryImpl implements OrderDailyRollupRepositoryCustom {
+    // Six parameters per row, far below the bind parameter limits of the drivers
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int incrementAll(List<DailyRollupRow> rows) {
+        int written = 0;
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            written += upsert(rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size())));
+        }
+        return written;
+    }
+
+    private int upsert(List<DailyRollupRow> rows) {
+        StringBuilder hql = new StringBuilder(
+                "insert into OrderDailyRollup (orderDay, status, machineId, productId, orderCount, quantitySum) values ");
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                hql.append(", ");
+            }
+            hql.append("(:day").append(i).append(", :status").append(i).append(", :machineId").append(i)
+                    .append(", :productId").append(i).append(", :orderCount").append(i)
+                    .append(", :quantitySum").append(i).append(')');
+        }
+        hql.append("""
+                 on conflict (orderDay, status, machineId, productId) do update
+                set orderCount = orderCount + excluded.orderCount,
+                    quantitySum = quantitySum + excluded.quantitySum
+                """);
+        Query query = entityManager.createQuery(hql.toString());
+        for (int i = 0; i < rows.size(); i++) {
+            DailyRollupRow row = rows.get(i);
+            query.setParameter("day" + i, row.day());
+            query.setParameter("status" + i, row.status());
+            query.setParameter("machineId" + i, row.machineId());
+            query.setParameter("productId" + i, row.productId());
+            query.setParameter("orderCount" + i, row.orderCount());
+            query.setParameter("quantitySum" + i, row.quantitySum());
+        }
+        return query.executeUpdate();
+    }
+}
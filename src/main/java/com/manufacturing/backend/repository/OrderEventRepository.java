@@ -0,0 +1,12 @@
+package com.manufacturing.backend.repository;
+
+import com.manufacturing.backend.model.OrderEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface OrderEventRepository extends JpaRepository<OrderEvent, UUID> {
+
+    List<OrderEvent> findByOrderIdOrderByOccurredAtAsc(Long orderId);
+}
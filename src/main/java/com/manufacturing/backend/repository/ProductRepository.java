@@ -1,6 +1,119 @@
 package com.manufacturing.backend.repository;
 
+import com.manufacturing.backend.common.ProductReference;
+import com.manufacturing.backend.common.ProductStockLevel;
+import com.manufacturing.backend.config.CacheConfig;
 import com.manufacturing.backend.model.Product;
+import jakarta.persistence.LockModeType;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {}
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Load a product and lock it until the end of the transaction, so its reserved stock cannot
+     * grow while a new stock level is checked against it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findForUpdateById(@Param("id") Long id);
+
+    /**
+     * Cached lookup for reference purposes, e.g. to link a new order to its product.
+     * The cache holds an immutable projection rather than the entity, so callers cannot alter
+     * what other requests read.
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#p0", unless = "#result == null")
+    @Query("""
+            select new com.manufacturing.backend.common.ProductReference(p.id, p.name, p.type, p.version)
+            from Product p
+            where p.id = :id
+            """)
+    Optional<ProductReference> findReferenceById(@Param("id") Long id);
+
+    /**
+     * Products whose available stock is below their reorder threshold, ordered by ID. On PostgreSQL
+     * the condition matches the partial index created by {@code PostgresSchemaInitializer}, so only
+     * the products below their threshold are read.
+     */
+    @Query("""
+            select new com.manufacturing.backend.common.ProductStockLevel(
+                p.id, p.name, p.type, p.stock - p.reservedStock, p.reorderThreshold)
+            from Product p
+            where p.stock - p.reservedStock < p.reorderThreshold
+            order by p.id
+            """)
+    List<ProductStockLevel> findBelowReorderThreshold();
+
+    /**
+     * Reserve units of available (on-hand minus reserved) stock in one conditional statement.
+     *
+     * @return 1 if reserved, 0 if the product does not exist or not enough stock is available
+     */
+    @Modifying
+    @Query("""
+            update Product p
+            set p.reservedStock = p.reservedStock + :quantity
+            where p.id = :id and p.stock - p.reservedStock >= :quantity
+            """)
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Give back reserved units, never letting the reservation go below zero.
+     *
+     * @return 1 if the product exists, 0 otherwise
+     */
+    @Modifying
+    @Query("""
+            update Product p
+            set p.reservedStock = case when p.reservedStock > :quantity then p.reservedStock - :quantity else 0 end
+            where p.id = :id
+            """)
+    int releaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Take units out of stock, together with the reservation that was holding them.
+     *
+     * @return 1 if consumed, 0 if the product does not exist or holds fewer units
+     */
+    @Modifying
+    @Query("""
+            update Product p
+            set p.stock = p.stock - :quantity,
+                p.reservedStock = case when p.reservedStock > :quantity then p.reservedStock - :quantity else 0 end
+            where p.id = :id and p.stock >= :quantity
+            """)
+    int consumeReservedStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Take units out of available stock, for orders that held no reservation.
+     *
+     * @return 1 if consumed, 0 if the product does not exist or not enough stock is available
+     */
+    @Modifying
+    @Query("""
+            update Product p
+            set p.stock = p.stock - :quantity
+            where p.id = :id and p.stock - p.reservedStock >= :quantity
+            """)
+    int consumeStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Put units back into stock, e.g. when a completed order is reopened.
+     *
+     * @return 1 if the product exists, 0 otherwise
+     */
+    @Modifying
+    @Query("update Product p set p.stock = p.stock + :quantity where p.id = :id")
+    int restock(@Param("id") Long id, @Param("quantity") int quantity);
+}
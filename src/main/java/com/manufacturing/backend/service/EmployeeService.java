@@ -1,17 +1,24 @@
 package com.manufacturing.backend.service;
 
+import com.manufacturing.backend.common.CursorPage;
 import com.manufacturing.backend.common.EmployeePayload;
+import com.manufacturing.backend.common.KeysetCursor;
+import com.manufacturing.backend.common.MachineReference;
+import com.manufacturing.backend.config.ObservabilityConfig;
 import com.manufacturing.backend.model.Employee;
 import com.manufacturing.backend.model.Machine;
 import com.manufacturing.backend.repository.EmployeeRepository;
 import com.manufacturing.backend.repository.MachineRepository;
+import io.micrometer.observation.annotation.Observed;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
 
+@Observed(name = ObservabilityConfig.SERVICE_OBSERVATION)
 @Service
 @AllArgsConstructor
 public class EmployeeService {
@@ -23,10 +30,27 @@ public class EmployeeService {
         return this.employeeRepository.findAll();
     }
 
+    /**
+     * Retrieve one page of employees ordered by ID.
+     *
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit  Page size
+     * @return Page of employees and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor or the limit is invalid
+     */
+    public CursorPage<Employee> findEmployeePage(String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.pageSize(limit);
+        List<Employee> rows = this.employeeRepository.findByIdGreaterThanOrderByIdAsc(
+                after != null ? after.id() : 0L, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, employee -> new KeysetCursor(null, employee.getId()));
+    }
+
     @Transactional
     public Employee saveEmployee(EmployeePayload payload) {
 
-        Machine machine = machineRepository.findById(payload.machineId())
+        Machine machine = machineRepository.findReferenceById(payload.machineId())
+                .map(EmployeeService::machineOf)
                 .orElseThrow(() -> new IllegalArgumentException("Machine not found with ID: " + payload.machineId()));
 
 
@@ -45,19 +69,16 @@ public class EmployeeService {
     @Transactional
     public Optional<Employee> updateEmployee(Long id, EmployeePayload payload) {
 
-        Machine machine = machineRepository.findById(payload.machineId())
+        Machine machine = machineRepository.findReferenceById(payload.machineId())
+                .map(EmployeeService::machineOf)
                 .orElseThrow(() -> new IllegalArgumentException("Machine not found with ID: " + payload.machineId()));
 
 
-        Employee employeeToUpdate = new Employee();
-        employeeToUpdate.setId(id);
-        employeeToUpdate.setName(payload.name());
-        employeeToUpdate.setPosition(payload.position());
-        employeeToUpdate.setEmployeeMachine(machine);
-
         return this.employeeRepository.findById(id)
-                .map(existingEmployee -> {
-                    employeeToUpdate.setId(id); 
+                .map(employeeToUpdate -> {
+                    employeeToUpdate.setName(payload.name());
+                    employeeToUpdate.setPosition(payload.position());
+                    employeeToUpdate.setEmployeeMachine(machine);
                     return this.employeeRepository.save(employeeToUpdate);
                 });
     }
@@ -65,4 +86,16 @@ public class EmployeeService {
     public void deleteEmployee(Long id) {
         this.employeeRepository.deleteById(id);
     }
+
+    // Detached copy of the cached machine, owned by one employee: only its ID is written, and the
+    // version tells Hibernate that it is not a new machine
+    private static Machine machineOf(MachineReference machine) {
+        return Machine.builder()
+                .id(machine.id())
+                .name(machine.name())
+                .status(machine.status())
+                .capacity(machine.capacity())
+                .version(machine.version())
+                .build();
+    }
 }
@@ -0,0 +1,157 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.EmployeeWorkload;
+import com.manufacturing.backend.common.KpiDashboard;
+import com.manufacturing.backend.common.ProductStockLevel;
+import com.manufacturing.backend.common.TrendGranularity;
+import com.manufacturing.backend.common.UtilizationWeight;
+import com.manufacturing.backend.config.KpiDashboardConfig;
+import com.manufacturing.backend.config.ObservabilityConfig;
+import io.micrometer.observation.annotation.Observed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Builds every dashboard KPI in one call. Status counts come from {@link KpiStore} in memory; the
+ * query-backed KPIs run in parallel on the bounded dashboard executor, each on its own
+ * connection, so the response takes as long as the slowest query instead of their sum.
+ * <p>
+ * The orders table is scanned once, by the utilization query, bounded to the same window as the
+ * trend, which is read from the daily rollup. KPIs not finished when the timeout expires are
+ * cancelled and reported as unavailable instead of failing the whole response.
+ * <p>
+ * Cancelling only interrupts the pool thread, which does not stop a query already sent to the
+ * database. Each KPI therefore runs in a read-only transaction whose timeout is the time left
+ * until the deadline; Spring applies it to every query of that transaction as the
+ * {@code jakarta.persistence.query.timeout} hint, so the database abandons a query the response
+ * no longer waits for and the connection goes back to the pool.
+ */
+@Slf4j
+@Observed(name = ObservabilityConfig.SERVICE_OBSERVATION)
+@Service
+public class KpiDashboardService {
+    static final String PRODUCT_STOCK_ALERTS = "productStockAlerts";
+    static final String EMPLOYEE_WORKLOAD = "employeeWorkload";
+    static final String ORDERS_TREND = "ordersTrend";
+    static final String MACHINE_UTILIZATION = "machineUtilization";
+
+    private final KpiService kpiService;
+    private final ThreadPoolTaskExecutor executor;
+    private final PlatformTransactionManager transactionManager;
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+
+    public KpiDashboardService(KpiService kpiService,
+                               @Qualifier(KpiDashboardConfig.KPI_DASHBOARD_EXECUTOR) ThreadPoolTaskExecutor executor,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${kpi.dashboard.timeout:PT2S}") Duration defaultTimeout,
+                               @Value("${kpi.dashboard.max-timeout:PT10S}") Duration maxTimeout) {
+        this.kpiService = kpiService;
+        this.executor = executor;
+        this.transactionManager = transactionManager;
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    /**
+     * Compute the dashboard.
+     *
+     * @param days    Number of days, up to today, covered by the trend and the utilization
+     * @param timeout Time budget for the whole response, or null for the configured default;
+     *                capped by {@code kpi.dashboard.max-timeout}
+     * @return Every KPI that finished in time, the others listed as unavailable
+     */
+    public KpiDashboard getDashboard(int days, Duration timeout) {
+        if (days < 1) {
+            throw new IllegalArgumentException("'days' must be at least 1");
+        }
+        if (timeout != null && (timeout.isZero() || timeout.isNegative())) {
+            throw new IllegalArgumentException("'timeout' must be positive");
+        }
+        Duration budget = timeout == null ? defaultTimeout
+                : (timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout);
+        long deadline = System.nanoTime() + budget.toNanos();
+        LocalDate today = LocalDate.now();
+        LocalDate first = today.minusDays(days - 1);
+
+        List<String> unavailable = new ArrayList<>();
+        Future<List<ProductStockLevel>> stockAlerts =
+                submit(PRODUCT_STOCK_ALERTS, kpiService::getProductStockAlerts, deadline, unavailable);
+        Future<List<EmployeeWorkload>> workload =
+                submit(EMPLOYEE_WORKLOAD, kpiService::getEmployeeWorkload, deadline, unavailable);
+        Future<Map<String, Long>> trend = submit(ORDERS_TREND,
+                () -> kpiService.getOrdersTrend(first, today, TrendGranularity.DAY), deadline, unavailable);
+        Future<Map<String, Double>> utilization = submit(MACHINE_UTILIZATION,
+                () -> kpiService.getMachineUtilization(first.atStartOfDay(), today.plusDays(1).atStartOfDay(),
+                        UtilizationWeight.ORDER_COUNT), deadline, unavailable);
+
+        return new KpiDashboard(
+                kpiService.getOrdersStatusCount(),
+                kpiService.getMachineStatusCount(),
+                await(PRODUCT_STOCK_ALERTS, stockAlerts, deadline, unavailable),
+                await(EMPLOYEE_WORKLOAD, workload, deadline, unavailable),
+                await(ORDERS_TREND, trend, deadline, unavailable),
+                await(MACHINE_UTILIZATION, utilization, deadline, unavailable),
+                unavailable);
+    }
+
+    private <T> Future<T> submit(String kpi, Supplier<T> task, long deadline, List<String> unavailable) {
+        try {
+            return executor.submit(() -> withQueryTimeout(kpi, task, deadline));
+        } catch (TaskRejectedException ex) {
+            log.warn("Dashboard executor saturated, skipping KPI {}", kpi);
+            unavailable.add(kpi);
+            return null;
+        }
+    }
+
+    // The timeout is taken when the KPI starts, so time spent queued counts against it. JDBC query
+    // timeouts are in whole seconds, hence rounded up.
+    private <T> T withQueryTimeout(String kpi, Supplier<T> task, long deadline) throws TimeoutException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new TimeoutException("KPI " + kpi + " started after the dashboard deadline");
+        }
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        long second = TimeUnit.SECONDS.toNanos(1);
+        template.setTimeout((int) ((remaining + second - 1) / second));
+        return template.execute(status -> task.get());
+    }
+
+    private static <T> T await(String kpi, Future<T> future, long deadline, List<String> unavailable) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            log.warn("KPI {} did not finish within the dashboard timeout", kpi);
+        } catch (ExecutionException ex) {
+            log.warn("KPI {} failed", kpi, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // A KPI still queued never starts; a running one gives its thread back when its query returns
+        future.cancel(true);
+        unavailable.add(kpi);
+        return null;
+    }
+}
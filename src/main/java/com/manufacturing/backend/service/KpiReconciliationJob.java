@@ -0,0 +1,41 @@
+package com.manufacturing.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Periodically compares the {@link KpiStore} counters with the database and reports drift,
+ * e.g. rows changed outside the application or events lost on a crash between commit and listener.
+ */
+@Slf4j
+@Component
+public class KpiReconciliationJob {
+
+    private final KpiStore kpiStore;
+    private final OrderRollupService orderRollupService;
+    private final boolean repair;
+
+    public KpiReconciliationJob(KpiStore kpiStore, OrderRollupService orderRollupService,
+                                @Value("${kpi.reconciliation.repair:true}") boolean repair) {
+        this.kpiStore = kpiStore;
+        this.orderRollupService = orderRollupService;
+        this.repair = repair;
+    }
+
+    @Scheduled(initialDelayString = "${kpi.reconciliation.interval:PT5M}",
+            fixedDelayString = "${kpi.reconciliation.interval:PT5M}")
+    public void reconcile() {
+        List<String> drift = kpiStore.reconcile(repair);
+        if (drift.isEmpty()) {
+            log.debug("KPI store is consistent with the database");
+        } else {
+            log.warn("KPI store drifted from the database ({}): {}", repair ? "repaired" : "not repaired", drift);
+        }
+        int pruned = orderRollupService.pruneEmptyRows();
+        log.debug("Pruned {} empty order rollup rows", pruned);
+    }
+}
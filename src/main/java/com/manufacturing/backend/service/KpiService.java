@@ -1,82 +1,183 @@
 package com.manufacturing.backend.service;
 
-import com.manufacturing.backend.model.Employee;
-import com.manufacturing.backend.model.Machine;
-import com.manufacturing.backend.model.ManufacturingOrder;
-import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.common.DailyOrderCount;
+import com.manufacturing.backend.common.MachineLoad;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.EmployeeWorkload;
+import com.manufacturing.backend.common.ProductDemand;
+import com.manufacturing.backend.common.ProductStockCover;
+import com.manufacturing.backend.common.ProductStockLevel;
+import com.manufacturing.backend.common.TrendGranularity;
+import com.manufacturing.backend.common.UtilizationWeight;
+import com.manufacturing.backend.config.ObservabilityConfig;
 import com.manufacturing.backend.repository.EmployeeRepository;
-import com.manufacturing.backend.repository.MachineRepository;
 import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import com.manufacturing.backend.repository.OrderDailyRollupRepository;
 import com.manufacturing.backend.repository.ProductRepository;
+import io.micrometer.observation.annotation.Observed;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Stream;
 
+/**
+ * KPI aggregations. Status counts are served from {@link KpiStore}, the orders trend from the
+ * daily rollup table maintained by {@link OrderRollupService}; the remaining KPIs are computed by grouped queries returning lightweight projections,
+ * so no entity is hydrated and the heap use does not grow with the tables.
+ */
+@Observed(name = ObservabilityConfig.SERVICE_OBSERVATION)
 @Service
 @AllArgsConstructor
 public class KpiService {
+    private static final int DEFAULT_TREND_DAYS = 30;
+    static final int MAX_STOCK_COVER_LIMIT = 100;
+    static final int MAX_STOCK_COVER_HORIZON_DAYS = 365;
+    private static final Set<ManufacturingOrderStatus> OPEN_STATUSES = EnumSet.of(
+            ManufacturingOrderStatus.AWAITING_APPROVAL,
+            ManufacturingOrderStatus.PLANNED,
+            ManufacturingOrderStatus.IN_PROGRESS
+    );
+    // Most critical first: least days of cover, then lowest ID
+    private static final Comparator<ProductStockCover> BY_CRITICALITY = Comparator
+            .comparingDouble(ProductStockCover::daysOfCover)
+            .thenComparing(ProductStockCover::productId);
+
     private final ManufacturingOrderRepository manufacturingOrderRepository;
-    private final MachineRepository machineRepository;
     private final ProductRepository productRepository;
     private final EmployeeRepository employeeRepository;
+    private final OrderDailyRollupRepository orderDailyRollupRepository;
+    private final KpiStore kpiStore;
 
     public Map<String, Long> getOrdersStatusCount() {
-        List<ManufacturingOrder> orders = manufacturingOrderRepository.findAll();
-        return orders.stream().collect(Collectors.groupingBy(
-                o -> o.getStatus().name(), Collectors.counting()
-        ));
+        return kpiStore.getOrderStatusCounts();
     }
 
     public Map<String, Long> getMachineStatusCount() {
-        List<Machine> machines = machineRepository.findAll();
-        return machines.stream().collect(Collectors.groupingBy(
-                m -> m.getStatus().name(), Collectors.counting()
-        ));
+        return kpiStore.getMachineStatusCounts();
     }
 
-    public Map<String, Integer> getProductStockAlerts() {
-        List<Product> products = productRepository.findAll();
-        Map<String, Integer> alerts = new HashMap<>();
-        for (Product p : products) {
-            if (p.getStock() < 10) { 
-                alerts.put(p.getName(), p.getStock());
-            }
-        }
-        return alerts;
+    /**
+     * Products whose available stock is below their reorder threshold, ordered by ID.
+     */
+    public List<ProductStockLevel> getProductStockAlerts() {
+        return productRepository.findBelowReorderThreshold();
     }
 
-    public Map<String, Long> getEmployeeWorkload() {
-        List<Employee> employees = employeeRepository.findAll();
-        Map<String, Long> workload = new HashMap<>();
-        for (Employee e : employees) {
-            workload.put(e.getName(), e.getEmployeeMachine() != null ? 1L : 0L);
+    /**
+     * The products whose stock runs out first at the rate of their open orders. Each product
+     * consumes its open orders dated within the horizon (overdue ones included) evenly over the
+     * horizon; products without such orders are never critical and are left out.
+     * <p>
+     * The per-product demand is streamed through a bounded max-heap holding the {@code limit} most
+     * critical products so far, so only those are ever kept and sorted.
+     *
+     * @param limit       Number of products to return, at most 100
+     * @param horizonDays Days ahead over which open orders are consumed, at most 365
+     * @return Most critical products first
+     * @throws IllegalArgumentException if the limit or the horizon is out of range
+     */
+    @Transactional(readOnly = true)
+    public List<ProductStockCover> getStockCover(int limit, int horizonDays) {
+        if (limit < 1 || limit > MAX_STOCK_COVER_LIMIT) {
+            throw new IllegalArgumentException("'limit' must be between 1 and " + MAX_STOCK_COVER_LIMIT);
+        }
+        if (horizonDays < 1 || horizonDays > MAX_STOCK_COVER_HORIZON_DAYS) {
+            throw new IllegalArgumentException("'horizonDays' must be between 1 and " + MAX_STOCK_COVER_HORIZON_DAYS);
         }
-        return workload;
+        try (Stream<ProductDemand> demand = manufacturingOrderRepository.streamDemandByProduct(
+                OPEN_STATUSES, LocalDateTime.now().plusDays(horizonDays))) {
+            return mostCritical(demand, limit, horizonDays);
+        }
+    }
+
+    static List<ProductStockCover> mostCritical(Stream<ProductDemand> demand, int limit, int horizonDays) {
+        PriorityQueue<ProductStockCover> heap = new PriorityQueue<>(limit + 1, BY_CRITICALITY.reversed());
+        demand.forEach(row -> {
+            if (row.openQuantity() <= 0) {
+                return;
+            }
+            ProductStockCover cover = new ProductStockCover(row.productId(), row.name(), row.stock(),
+                    row.openQuantity(), (double) row.stock() * horizonDays / row.openQuantity());
+            if (heap.size() < limit) {
+                heap.add(cover);
+            } else if (BY_CRITICALITY.compare(cover, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(cover);
+            }
+        });
+        List<ProductStockCover> critical = new ArrayList<>(heap);
+        critical.sort(BY_CRITICALITY);
+        return critical;
+    }
+
+    /**
+     * Number of machines assigned to each employee, ordered by employee ID.
+     */
+    public List<EmployeeWorkload> getEmployeeWorkload() {
+        return employeeRepository.countMachinesPerEmployee();
     }
 
-    // Orders trend: number of orders per day (last 30 days)
-    public Map<String, Long> getOrdersTrend() {
-        List<ManufacturingOrder> orders = manufacturingOrderRepository.findAll();
-        return orders.stream()
-                .collect(Collectors.groupingBy(
-                        o -> o.getDate().toLocalDate().toString(), Collectors.counting()
-                ));
+    /**
+     * Orders trend: number of orders per period, oldest period first, read from the daily rollup
+     * so the cost depends on the number of days in range, not on the number of orders.
+     *
+     * @param from        First day to include, or null for 30 days before {@code to}
+     * @param to          Last day to include, or null for today
+     * @param granularity Period length; weeks start on Monday and months on the 1st, so the
+     *                    first period may be partial
+     * @return Order count keyed by the first day of each period, periods without orders omitted
+     */
+    public Map<String, Long> getOrdersTrend(LocalDate from, LocalDate to, TrendGranularity granularity) {
+        LocalDate last = to != null ? to : LocalDate.now();
+        LocalDate first = from != null ? from : last.minusDays(DEFAULT_TREND_DAYS - 1);
+        if (first.isAfter(last)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        Map<String, Long> trend = new LinkedHashMap<>();
+        for (DailyOrderCount row : orderDailyRollupRepository.countPerDay(first, last.plusDays(1))) {
+            if (row.count() > 0) {
+                trend.merge(granularity.periodStart(row.day()).toString(), row.count(), Long::sum);
+            }
+        }
+        return trend;
     }
 
-    // Machine utilization: % of orders assigned to each machine (relative to total orders)
-    public Map<String, Double> getMachineUtilization() {
-        List<ManufacturingOrder> orders = manufacturingOrderRepository.findAll();
-        List<Machine> machines = machineRepository.findAll();
-        long totalOrders = orders.size();
+    /**
+     * Machine utilization: share of the load assigned to each machine, in percent of the total.
+     * Computed by a single grouped query, so the cost does not depend on the number of machines.
+     *
+     * @param from   Inclusive lower bound on the order date, or null for no bound
+     * @param to     Exclusive upper bound on the order date, or null for no bound
+     * @param weight Whether each order counts once or by its quantity
+     * @return Utilization percentage keyed by machine name
+     */
+    public Map<String, Double> getMachineUtilization(LocalDateTime from, LocalDateTime to, UtilizationWeight weight) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        List<MachineLoad> rows = weight == UtilizationWeight.QUANTITY
+                ? manufacturingOrderRepository.sumQuantityGroupedByMachine(from, to)
+                : manufacturingOrderRepository.countGroupedByMachine(from, to);
+        long totalLoad = 0;
+        for (MachineLoad row : rows) {
+            totalLoad += row.load();
+        }
         Map<String, Double> utilization = new HashMap<>();
-        for (Machine m : machines) {
-            long count = orders.stream().filter(o -> o.getMachine().getId().equals(m.getId())).count();
-            double percent = totalOrders > 0 ? (count * 100.0 / totalOrders) : 0.0;
-            utilization.put(m.getName(), percent);
+        for (MachineLoad row : rows) {
+            double percent = totalLoad > 0 ? (row.load() * 100.0 / totalLoad) : 0.0;
+            utilization.put(row.machineName(), percent);
         }
         return utilization;
     }
@@ -0,0 +1,367 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.MachineStatusCount;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.OrderStatusCount;
+import com.manufacturing.backend.event.MachineChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
+import com.manufacturing.backend.event.ProductChangedEvent;
+import com.manufacturing.backend.repository.ArchivedManufacturingOrderRepository;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory KPI counters maintained from the order and machine write paths.
+ * <p>
+ * Counters are {@link LongAdder}s updated after commit, so reads never touch the database.
+ * Each read view is cached together with the modification count it was built from and is
+ * only rebuilt after a write, which keeps repeated dashboard polls allocation-free.
+ * The store is loaded from the database once every bean is ready, before the web server accepts
+ * requests, and checked by {@link KpiReconciliationJob}. Order counts include archived orders,
+ * which moving to the archive leaves unchanged.
+ * <p>
+ * A writing transaction holds the read side of {@code rebuildLock} from just before its commit
+ * until its changes are applied, and rebuilds and reconciliations query the database under the
+ * write side. Every commit is therefore either visible to the rebuild query or applied after the
+ * new counts are in place, never both or neither.
+ */
+@Slf4j
+@Component
+public class KpiStore implements SmartInitializingSingleton {
+
+    private final ManufacturingOrderRepository manufacturingOrderRepository;
+    private final MachineRepository machineRepository;
+    private final ArchivedManufacturingOrderRepository archivedManufacturingOrderRepository;
+    private final TransactionTemplate lockedReadTemplate;
+
+    private final Map<ManufacturingOrderStatus, LongAdder> orderStatusCounts = adders(ManufacturingOrderStatus.class);
+    private final Map<MachineStatus, LongAdder> machineStatusCounts = adders(MachineStatus.class);
+
+    private final AtomicLong orderModCount = new AtomicLong();
+    private final AtomicLong machineModCount = new AtomicLong();
+    private volatile Snapshot orderStatusSnapshot;
+    private volatile Snapshot machineStatusSnapshot;
+
+    // Writers share the read lock; rebuilds and reconciliations need exclusive access
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    public KpiStore(ManufacturingOrderRepository manufacturingOrderRepository, MachineRepository machineRepository,
+                    ArchivedManufacturingOrderRepository archivedManufacturingOrderRepository,
+                    PlatformTransactionManager transactionManager) {
+        this.manufacturingOrderRepository = manufacturingOrderRepository;
+        this.machineRepository = machineRepository;
+        this.archivedManufacturingOrderRepository = archivedManufacturingOrderRepository;
+        // The connection is taken before the write lock: writers waiting for the lock hold theirs,
+        // so taking it afterwards could wait forever on an exhausted pool. A new transaction also
+        // works from the completion callbacks of another one.
+        this.lockedReadTemplate = new TransactionTemplate(transactionManager);
+        this.lockedReadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lockedReadTemplate.setReadOnly(true);
+    }
+
+    public Map<String, Long> getOrderStatusCounts() {
+        Snapshot snapshot = orderStatusSnapshot;
+        long modCount = orderModCount.get();
+        if (snapshot != null && snapshot.modCount() == modCount) {
+            return snapshot.values();
+        }
+        Map<String, Long> values = new HashMap<>();
+        orderStatusCounts.forEach((status, adder) -> putIfPositive(values, status.name(), adder.sum()));
+        return publish(values, modCount, orderModCount, s -> orderStatusSnapshot = s);
+    }
+
+    public Map<String, Long> getMachineStatusCounts() {
+        Snapshot snapshot = machineStatusSnapshot;
+        long modCount = machineModCount.get();
+        if (snapshot != null && snapshot.modCount() == modCount) {
+            return snapshot.values();
+        }
+        Map<String, Long> values = new HashMap<>();
+        machineStatusCounts.forEach((status, adder) -> putIfPositive(values, status.name(), adder.sum()));
+        return publish(values, modCount, machineModCount, s -> machineStatusSnapshot = s);
+    }
+
+    @EventListener
+    public void onOrderChanged(ManufacturingOrderChangedEvent event) {
+        PendingChanges pending = pendingChanges();
+        pending.addOrder(event.before(), -1);
+        pending.addOrder(event.after(), 1);
+        pending.flushIfNoTransaction();
+    }
+
+    @EventListener
+    public void onOrdersChanged(ManufacturingOrdersBulkChangedEvent event) {
+        PendingChanges pending = pendingChanges();
+        for (ManufacturingOrderChangedEvent change : event.changes()) {
+            pending.addOrder(change.before(), -1);
+            pending.addOrder(change.after(), 1);
+        }
+        pending.flushIfNoTransaction();
+    }
+
+    @EventListener
+    public void onMachineChanged(MachineChangedEvent event) {
+        PendingChanges pending = pendingChanges();
+        pending.addMachine(event.before(), -1);
+        pending.addMachine(event.after(), 1);
+        // Orders of the machine were removed by cascade without going through the order write path
+        pending.rebuildOrders |= event.deleted();
+        pending.flushIfNoTransaction();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            // Orders of the product were removed by cascade without going through the order write path
+            PendingChanges pending = pendingChanges();
+            pending.rebuildOrders = true;
+            pending.flushIfNoTransaction();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        rebuildOrders();
+        rebuildMachines();
+        log.info("KPI store loaded: orders={}, machines={}", getOrderStatusCounts(), getMachineStatusCounts());
+    }
+
+    /**
+     * Compare the counters with the database. Commits wait while the counts are queried, so
+     * concurrent writes never show up as drift.
+     *
+     * @param repair Whether to reload the store when drift is found
+     * @return Human readable description of every drifting counter, empty when consistent
+     */
+    public List<String> reconcile(boolean repair) {
+        return underWriteLock(() -> {
+            List<String> drift = new ArrayList<>();
+            Map<ManufacturingOrderStatus, Long> orders = countOrders();
+            orderStatusCounts.forEach((status, adder) ->
+                    compare(drift, "orders." + status.name(), orders.getOrDefault(status, 0L), adder.sum()));
+
+            Map<MachineStatus, Long> machines = countMachines();
+            machineStatusCounts.forEach((status, adder) ->
+                    compare(drift, "machines." + status.name(), machines.getOrDefault(status, 0L), adder.sum()));
+
+            if (!drift.isEmpty() && repair) {
+                reset(orderStatusCounts, orders, orderModCount);
+                reset(machineStatusCounts, machines, machineModCount);
+            }
+            return drift;
+        });
+    }
+
+    private void rebuildOrders() {
+        underWriteLock(() -> {
+            reset(orderStatusCounts, countOrders(), orderModCount);
+            return null;
+        });
+    }
+
+    private void rebuildMachines() {
+        underWriteLock(() -> {
+            reset(machineStatusCounts, countMachines(), machineModCount);
+            return null;
+        });
+    }
+
+    private <T> T underWriteLock(Supplier<T> action) {
+        return lockedReadTemplate.execute(status -> {
+            rebuildLock.writeLock().lock();
+            try {
+                return action.get();
+            } finally {
+                rebuildLock.writeLock().unlock();
+            }
+        });
+    }
+
+    private Map<ManufacturingOrderStatus, Long> countOrders() {
+        Map<ManufacturingOrderStatus, Long> counts = new EnumMap<>(ManufacturingOrderStatus.class);
+        for (OrderStatusCount row : manufacturingOrderRepository.countGroupedByStatus()) {
+            counts.merge(row.status(), row.count(), Long::sum);
+        }
+        for (OrderStatusCount row : archivedManufacturingOrderRepository.countGroupedByStatus()) {
+            counts.merge(row.status(), row.count(), Long::sum);
+        }
+        return counts;
+    }
+
+    private Map<MachineStatus, Long> countMachines() {
+        Map<MachineStatus, Long> counts = new EnumMap<>(MachineStatus.class);
+        for (MachineStatusCount row : machineRepository.countGroupedByStatus()) {
+            counts.put(row.status(), row.count());
+        }
+        return counts;
+    }
+
+    private static <E extends Enum<E>> void reset(Map<E, LongAdder> adders, Map<E, Long> counts, AtomicLong modCount) {
+        adders.forEach((key, adder) -> {
+            adder.reset();
+            adder.add(counts.getOrDefault(key, 0L));
+        });
+        modCount.incrementAndGet();
+    }
+
+    /**
+     * Changes of the current transaction, applied once it commits; without a transaction, a fresh
+     * instance that the caller applies immediately.
+     */
+    private PendingChanges pendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new PendingChanges(false);
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges(true);
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private static Map<String, Long> publish(Map<String, Long> values, long modCount, AtomicLong current,
+                                             Consumer<Snapshot> target) {
+        Map<String, Long> view = Collections.unmodifiableMap(values);
+        // Only cache the view if no write happened while it was being built
+        if (current.get() == modCount) {
+            target.accept(new Snapshot(modCount, view));
+        }
+        return view;
+    }
+
+    private static void putIfPositive(Map<String, Long> values, String key, long count) {
+        if (count > 0) {
+            values.put(key, count);
+        }
+    }
+
+    private static void compare(List<String> drift, String counter, long expected, long actual) {
+        if (expected != actual) {
+            drift.add(counter + ": expected " + expected + " but store has " + actual);
+        }
+    }
+
+    private static <E extends Enum<E>> Map<E, LongAdder> adders(Class<E> type) {
+        Map<E, LongAdder> adders = new EnumMap<>(type);
+        for (E constant : type.getEnumConstants()) {
+            adders.put(constant, new LongAdder());
+        }
+        return Collections.unmodifiableMap(adders);
+    }
+
+    private record Snapshot(long modCount, Map<String, Long> values) {}
+
+    private final class PendingChanges implements TransactionSynchronization {
+        private final boolean transactional;
+        private final Map<ManufacturingOrderStatus, Long> orderDeltas = new EnumMap<>(ManufacturingOrderStatus.class);
+        private final Map<MachineStatus, Long> machineDeltas = new EnumMap<>(MachineStatus.class);
+        private boolean ordersChanged;
+        private boolean machinesChanged;
+        private boolean rebuildOrders;
+        private boolean locked;
+
+        private PendingChanges(boolean transactional) {
+            this.transactional = transactional;
+        }
+
+        void addOrder(ManufacturingOrderSnapshot order, long delta) {
+            ordersChanged = true;
+            if (order != null) {
+                orderDeltas.merge(order.status(), delta, Long::sum);
+            }
+        }
+
+        void addMachine(MachineStatus status, long delta) {
+            machinesChanged = true;
+            if (status != null) {
+                machineDeltas.merge(status, delta, Long::sum);
+            }
+        }
+
+        void flushIfNoTransaction() {
+            if (!transactional) {
+                apply();
+                if (rebuildOrders) {
+                    rebuildOrders();
+                }
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            rebuildLock.readLock().lock();
+            locked = true;
+        }
+
+        @Override
+        public void afterCommit() {
+            apply();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(KpiStore.this);
+            if (locked) {
+                rebuildLock.readLock().unlock();
+                locked = false;
+            }
+            // After releasing the read lock, which cannot be upgraded
+            if (status == STATUS_COMMITTED && rebuildOrders) {
+                rebuildOrders();
+            }
+        }
+
+        private void apply() {
+            // Registered too late for beforeCommit, e.g. published from another synchronization
+            boolean lockHere = !locked;
+            if (lockHere) {
+                rebuildLock.readLock().lock();
+            }
+            try {
+                orderDeltas.forEach((status, delta) -> orderStatusCounts.get(status).add(delta));
+                machineDeltas.forEach((status, delta) -> machineStatusCounts.get(status).add(delta));
+                if (ordersChanged) {
+                    orderModCount.incrementAndGet();
+                }
+                if (machinesChanged) {
+                    machineModCount.incrementAndGet();
+                }
+            } finally {
+                if (lockHere) {
+                    rebuildLock.readLock().unlock();
+                }
+            }
+        }
+    }
+}
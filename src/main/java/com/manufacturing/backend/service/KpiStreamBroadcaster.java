@@ -0,0 +1,374 @@
+package com.manufacturing.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manufacturing.backend.common.KpiStreamUpdate;
+import com.manufacturing.backend.common.OrderStatusChange;
+import com.manufacturing.backend.event.MachineChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
+import com.manufacturing.backend.event.ProductChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes KPI and order status changes to dashboard subscribers over Server-Sent Events.
+ * <p>
+ * Write-path events only mark KPI groups dirty and record status changes, coalesced per order.
+ * A scheduled flush turns them into at most one update per interval, serialized once and written
+ * to every subscriber by a small sender pool, so idle connections hold no thread. A subscriber
+ * whose previous write has not finished is skipped and catches up on the next flush; if its
+ * backlog of status changes overflows, it gets a {@code resync} event and should reload. A write
+ * still blocked after the write timeout drops the subscriber, so stalled clients cannot hold on
+ * to the sender threads every other subscriber depends on.
+ */
+@Slf4j
+@Component
+public class KpiStreamBroadcaster {
+
+    static final String KPIS_EVENT = "kpis";
+    static final String ORDER_STATUS_EVENT = "order-status";
+    static final String RESYNC_EVENT = "resync";
+    private static final int MAX_PENDING_CHANGES = 10_000;
+
+    private final KpiService kpiService;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final Duration writeTimeout;
+    private final ThreadPoolExecutor sender;
+    // Held by every registered subscriber, so concurrent subscribes cannot exceed the limit
+    private final Semaphore slots;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<Long, OrderStatusChange> pendingChanges = new ConcurrentHashMap<>();
+    private final AtomicBoolean changesOverflowed = new AtomicBoolean();
+    private final AtomicBoolean ordersDirty = new AtomicBoolean();
+    private final AtomicBoolean machinesDirty = new AtomicBoolean();
+    private final AtomicBoolean productsDirty = new AtomicBoolean();
+    // Every KPI group, built on demand for new subscribers and reset by each flush that sees a change
+    private final AtomicReference<String> fullSnapshot = new AtomicReference<>();
+
+    public KpiStreamBroadcaster(KpiService kpiService,
+                                ObjectMapper objectMapper,
+                                @Value("${kpi.stream.max-subscribers:5000}") int maxSubscribers,
+                                @Value("${kpi.stream.timeout:PT30M}") Duration timeout,
+                                @Value("${kpi.stream.sender-threads:4}") int senderThreads,
+                                @Value("${kpi.stream.write-timeout:PT10S}") Duration writeTimeout) {
+        this.kpiService = kpiService;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.writeTimeout = writeTimeout;
+        this.slots = new Semaphore(maxSubscribers);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxSubscribers),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "kpi-stream-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Register a new subscriber; it first receives the current value of every pushed KPI.
+     *
+     * @return Emitter to return from the controller
+     * @throws ResponseStatusException with 503 if the subscriber limit is reached
+     */
+    public SseEmitter subscribe() {
+        return register(new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter register(SseEmitter emitter) {
+        if (!slots.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many KPI stream subscribers");
+        }
+        Subscriber subscriber = new Subscriber(emitter);
+        subscriber.emitter.onCompletion(() -> drop(subscriber));
+        subscriber.emitter.onTimeout(() -> drop(subscriber));
+        subscriber.emitter.onError(error -> drop(subscriber));
+
+        // Queue the snapshot before registering, so a concurrent flush can only queue newer values
+        subscriber.offer(fullKpis(), List.of(), false);
+        subscribers.add(subscriber);
+        if (subscriber.dropped.get()) {
+            subscribers.remove(subscriber);
+            return subscriber.emitter;
+        }
+        dispatch(subscriber);
+        return subscriber.emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(ManufacturingOrderChangedEvent event) {
+        ordersDirty.set(true);
+        recordStatusChange(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrdersChanged(ManufacturingOrdersBulkChangedEvent event) {
+        ordersDirty.set(true);
+        event.changes().forEach(this::recordStatusChange);
+    }
+
+    private void recordStatusChange(ManufacturingOrderChangedEvent event) {
+        if (event.before() != null && event.after() != null && event.before().status() == event.after().status()) {
+            return;
+        }
+        OrderStatusChange change = new OrderStatusChange(event.orderId(),
+                event.before() != null ? event.before().status() : null,
+                event.after() != null ? event.after().status() : null);
+        if (pendingChanges.size() >= MAX_PENDING_CHANGES) {
+            changesOverflowed.set(true);
+            return;
+        }
+        pendingChanges.merge(change.orderId(), change, OrderStatusChange::then);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMachineChanged(MachineChangedEvent event) {
+        machinesDirty.set(true);
+        if (event.deleted()) {
+            ordersDirty.set(true);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        productsDirty.set(true);
+        if (event.deleted()) {
+            ordersDirty.set(true);
+        }
+    }
+
+    /**
+     * Push what changed since the previous flush. Runs at a fixed rate whatever the write rate,
+     * which bounds both the update rate seen by clients and the KPI reads it causes.
+     */
+    @Scheduled(fixedDelayString = "${kpi.stream.interval:PT1S}")
+    public void flush() {
+        boolean orders = ordersDirty.getAndSet(false);
+        boolean machines = machinesDirty.getAndSet(false);
+        boolean products = productsDirty.getAndSet(false);
+        boolean overflowed = changesOverflowed.getAndSet(false);
+        List<OrderStatusChange> changes = drainChanges();
+        if (subscribers.isEmpty() || (!orders && !machines && !products && !overflowed && changes.isEmpty())) {
+            return;
+        }
+
+        String kpis = null;
+        if (orders || machines || products) {
+            fullSnapshot.set(null);
+            kpis = json(new KpiStreamUpdate(
+                    orders ? kpiService.getOrdersStatusCount() : null,
+                    machines ? kpiService.getMachineStatusCount() : null,
+                    products ? kpiService.getProductStockAlerts() : null));
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(kpis, changes, overflowed);
+            dispatch(subscriber);
+        }
+    }
+
+    // Comments keep proxies from closing idle connections and reveal clients that went away
+    @Scheduled(fixedRateString = "${kpi.stream.heartbeat:PT15S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat = true;
+            dispatch(subscriber);
+        }
+    }
+
+    /**
+     * Drop subscribers whose current write has been blocked for longer than the write timeout.
+     * Completing the emitter closes the response, and the interrupt wakes a sender thread still
+     * waiting on the socket, which then goes back to serving the other subscribers.
+     */
+    @Scheduled(fixedDelayString = "${kpi.stream.write-timeout:PT10S}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            Thread writer = subscriber.writer;
+            if (writer != null && now - subscriber.writeStartedAt > writeTimeout.toNanos()) {
+                log.debug("Dropping KPI stream subscriber: write blocked for more than {}", writeTimeout);
+                drop(subscriber);
+                subscriber.emitter.complete();
+                // Only interrupt if the thread is still busy with this subscriber's write
+                if (subscriber.writer == writer) {
+                    writer.interrupt();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdownNow();
+    }
+
+    private List<OrderStatusChange> drainChanges() {
+        List<OrderStatusChange> changes = new ArrayList<>();
+        for (Long orderId : pendingChanges.keySet()) {
+            OrderStatusChange change = pendingChanges.remove(orderId);
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    private void dispatch(Subscriber subscriber) {
+        if (!subscriber.sending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(() -> send(subscriber));
+        } catch (RejectedExecutionException ex) {
+            subscriber.sending.set(false);
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        subscriber.writeStartedAt = System.nanoTime();
+        subscriber.writer = Thread.currentThread();
+        try {
+            Batch batch = subscriber.take();
+            if (batch.resync()) {
+                subscriber.emitter.send(SseEmitter.event().name(RESYNC_EVENT).data("{}"));
+            }
+            if (batch.kpis() != null) {
+                String kpis = batch.fullKpis() ? fullKpis() : batch.kpis();
+                subscriber.emitter.send(SseEmitter.event().name(KPIS_EVENT).data(kpis));
+            }
+            if (!batch.changes().isEmpty()) {
+                subscriber.emitter.send(SseEmitter.event().name(ORDER_STATUS_EVENT).data(json(batch.changes())));
+            }
+            if (batch.heartbeat() && batch.isEmpty()) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Dropping KPI stream subscriber: {}", ex.getMessage());
+            drop(subscriber);
+            subscriber.emitter.completeWithError(ex);
+        } finally {
+            subscriber.writer = null;
+            // Clear an interrupt aimed at this write so it cannot fail the next subscriber's
+            Thread.interrupted();
+            subscriber.sending.set(false);
+        }
+        // Updates queued while this one was being written would otherwise wait for the next flush
+        if (subscribers.contains(subscriber) && subscriber.hasPending()) {
+            dispatch(subscriber);
+        }
+    }
+
+    // Emitter callbacks and the sender can both drop a subscriber; its slot is released once
+    private void drop(Subscriber subscriber) {
+        if (subscriber.dropped.compareAndSet(false, true)) {
+            subscribers.remove(subscriber);
+            slots.release();
+        }
+    }
+
+    private String fullKpis() {
+        String snapshot = fullSnapshot.get();
+        if (snapshot == null) {
+            snapshot = json(new KpiStreamUpdate(kpiService.getOrdersStatusCount(),
+                    kpiService.getMachineStatusCount(), kpiService.getProductStockAlerts()));
+            fullSnapshot.compareAndSet(null, snapshot);
+        }
+        return snapshot;
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize KPI stream update", ex);
+        }
+    }
+
+    static final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean dropped = new AtomicBoolean();
+        private volatile Thread writer;
+        private volatile long writeStartedAt;
+        private final Map<Long, OrderStatusChange> changes = new LinkedHashMap<>();
+        private String kpis;
+        private boolean fullKpis;
+        private boolean resync;
+        private volatile boolean heartbeat;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // KPI values are snapshots, so a newer one replaces any that was not sent yet. Updates only
+        // carry the groups that changed, so replacing an unsent one switches to sending every group.
+        synchronized void offer(String kpis, List<OrderStatusChange> newChanges, boolean overflowed) {
+            if (kpis != null) {
+                fullKpis = fullKpis || this.kpis != null;
+                this.kpis = kpis;
+            }
+            if (overflowed || changes.size() + newChanges.size() > MAX_PENDING_CHANGES) {
+                changes.clear();
+                resync = true;
+                return;
+            }
+            for (OrderStatusChange change : newChanges) {
+                changes.merge(change.orderId(), change, OrderStatusChange::then);
+            }
+        }
+
+        private synchronized boolean hasPending() {
+            return kpis != null || !changes.isEmpty() || resync;
+        }
+
+        synchronized Batch take() {
+            Batch batch = new Batch(kpis, fullKpis, List.copyOf(changes.values()), resync, heartbeat);
+            kpis = null;
+            fullKpis = false;
+            changes.clear();
+            resync = false;
+            heartbeat = false;
+            return batch;
+        }
+    }
+
+    record Batch(String kpis, boolean fullKpis, List<OrderStatusChange> changes,
+                         boolean resync, boolean heartbeat) {
+        boolean isEmpty() {
+            return kpis == null && changes.isEmpty() && !resync;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.MachineReliability;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.MachineStatusSpan;
+import com.manufacturing.backend.config.ObservabilityConfig;
+import com.manufacturing.backend.event.MachineChangedEvent;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.MachineStatusInterval;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.MachineStatusIntervalRepository;
+import io.micrometer.observation.annotation.Observed;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Records machine status changes as intervals and computes availability, MTBF and MTTR from them.
+ * <p>
+ * An interval is opened when a machine is created or changes status and closed by the next
+ * change, in the transaction of the change. Reliability over a window is computed in one pass
+ * over the overlapping intervals, streamed as projections without sorting, with a fixed-size
+ * accumulator per machine.
+ */
+@Slf4j
+@Observed(name = ObservabilityConfig.SERVICE_OBSERVATION)
+@Service
+@AllArgsConstructor
+public class MachineReliabilityService {
+    private static final int DEFAULT_WINDOW_DAYS = 30;
+
+    private final MachineStatusIntervalRepository machineStatusIntervalRepository;
+    private final MachineRepository machineRepository;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMachineChanged(MachineChangedEvent event) {
+        if (event.deleted()) {
+            machineStatusIntervalRepository.deleteByMachineId(event.machineId());
+            return;
+        }
+        if (event.before() == event.after()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (event.before() != null) {
+            machineStatusIntervalRepository.closeCurrent(event.machineId(), now);
+        }
+        machineStatusIntervalRepository.save(MachineStatusInterval.builder()
+                .machineId(event.machineId()).status(event.after()).startedAt(now).build());
+    }
+
+    /**
+     * Open an interval at startup for the machines that have none, e.g. created before intervals
+     * were recorded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void openMissingIntervals() {
+        LocalDateTime now = LocalDateTime.now();
+        List<MachineStatusInterval> missing = new ArrayList<>();
+        for (Machine machine : machineRepository.findWithoutCurrentStatusInterval()) {
+            missing.add(MachineStatusInterval.builder()
+                    .machineId(machine.getId()).status(machine.getStatus()).startedAt(now).build());
+        }
+        if (!missing.isEmpty()) {
+            machineStatusIntervalRepository.saveAll(missing);
+            log.info("Opened status intervals for {} machines", missing.size());
+        }
+    }
+
+    /**
+     * Availability, MTBF and MTTR of every machine with recorded intervals in {@code [from, to)}.
+     *
+     * @param from      Start of the window, 30 days before {@code to} by default
+     * @param to        End of the window, now by default
+     * @param machineId Machine to restrict to, or null for every machine
+     * @return One entry per machine, ordered by machine ID
+     * @throws IllegalArgumentException if {@code from} is not before {@code to}
+     */
+    @Transactional(readOnly = true)
+    public List<MachineReliability> getReliability(LocalDateTime from, LocalDateTime to, Long machineId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime end = to != null ? to : now;
+        LocalDateTime start = from != null ? from : end.minusDays(DEFAULT_WINDOW_DAYS);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        Map<Long, long[]> seconds;
+        try (Stream<MachineStatusSpan> spans = machineStatusIntervalRepository.streamOverlapping(start, end, machineId)) {
+            seconds = accumulate(spans, epochSecond(start), epochSecond(end), epochSecond(now));
+        }
+        Map<Long, String> names = machineRepository.findAllById(seconds.keySet()).stream()
+                .collect(Collectors.toMap(Machine::getId, Machine::getName));
+        return seconds.entrySet().stream()
+                .map(entry -> reliability(entry.getKey(), names.get(entry.getKey()), entry.getValue()))
+                .sorted(Comparator.comparing(MachineReliability::machineId))
+                .toList();
+    }
+
+    /**
+     * Seconds per status within the window, indexed by ordinal, then the number of failures in
+     * the last slot.
+     */
+    static Map<Long, long[]> accumulate(Stream<MachineStatusSpan> spans, long from, long to, long now) {
+        int failures = MachineStatus.values().length;
+        Map<Long, long[]> totals = new HashMap<>();
+        Function<Long, long[]> newTotals = id -> new long[failures + 1];
+        spans.forEach(span -> {
+            long start = Math.max(epochSecond(span.startedAt()), from);
+            long end = Math.min(span.endedAt() != null ? epochSecond(span.endedAt()) : now, to);
+            long[] machine = totals.computeIfAbsent(span.machineId(), newTotals);
+            if (end > start) {
+                machine[span.status().ordinal()] += end - start;
+            }
+            if (span.status() == MachineStatus.ERROR) {
+                machine[failures]++;
+            }
+        });
+        return totals;
+    }
+
+    static MachineReliability reliability(Long machineId, String name, long[] seconds) {
+        long up = seconds[MachineStatus.OPERATIONAL.ordinal()] + seconds[MachineStatus.IDLE.ordinal()];
+        long repair = seconds[MachineStatus.ERROR.ordinal()];
+        long maintenance = seconds[MachineStatus.UNDER_SERVICE.ordinal()];
+        int failures = (int) seconds[MachineStatus.values().length];
+        long scheduled = up + repair + maintenance;
+        return new MachineReliability(machineId, name,
+                scheduled > 0 ? up * 100.0 / scheduled : 0.0,
+                failures,
+                failures > 0 ? hours(up) / failures : null,
+                failures > 0 ? hours(repair) / failures : null,
+                hours(up), hours(repair), hours(maintenance));
+    }
+
+    private static double hours(long seconds) {
+        return seconds / 3600.0;
+    }
+
+    // Intervals are stamped with LocalDateTime.now(), so they are read in the system zone to get
+    // the elapsed time right across daylight saving changes
+    static long epochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,234 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.MachineCapacity;
+import com.manufacturing.backend.common.MachineLoad;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderFilter;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ScheduleResult;
+import com.manufacturing.backend.common.ScheduledOrder;
+import com.manufacturing.backend.config.ObservabilityConfig;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.transaction.Transactional;
+import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Assigns pending orders to the machines that accept orders, minimizing the makespan.
+ * <p>
+ * Orders are placed longest first (LPT), each on the machine that would finish it earliest,
+ * counting the orders already in progress. Machines are kept in min-heaps by load, one per
+ * capacity, in a map ordered by capacity, next to a set of every machine ordered by load. A
+ * machine can only finish an order before the least loaded one if it is faster, so each placement
+ * walks the larger capacities from the fastest down and stops as soon as even the least load
+ * could not beat the best end found; slower capacities are never looked at. Each machine then
+ * runs its orders shortest first, which does not change the makespan but shortens the average
+ * completion time.
+ * <p>
+ * Applying a schedule locks only the orders it reassigns, once the plan is computed. If any of
+ * them changed since it was read, the run fails with a conflict and can be retried.
+ */
+@Observed(name = ObservabilityConfig.SERVICE_OBSERVATION)
+@Service
+@AllArgsConstructor
+public class MachineSchedulingService {
+    static final Set<ManufacturingOrderStatus> SCHEDULABLE_STATUSES = EnumSet.of(
+            ManufacturingOrderStatus.AWAITING_APPROVAL,
+            ManufacturingOrderStatus.PLANNED
+    );
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+    private static final ManufacturingOrderFilter NO_FILTER = new ManufacturingOrderFilter(null, null, null, null, null, null);
+
+    private final ManufacturingOrderRepository manufacturingOrderRepository;
+    private final MachineRepository machineRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Compute a schedule for every order awaiting approval or planned, and optionally apply it.
+     *
+     * @param dryRun Whether to only return the schedule, without reassigning any order
+     * @return Schedule of every pending order
+     * @throws IllegalArgumentException if no machine accepts orders
+     * @throws OptimisticLockingFailureException if an order to reassign changed while planning
+     */
+    @Transactional
+    public ScheduleResult schedule(boolean dryRun) {
+        Set<MachineStatus> accepting = EnumSet.noneOf(MachineStatus.class);
+        for (MachineStatus status : MachineStatus.values()) {
+            if (status.acceptsOrders()) {
+                accepting.add(status);
+            }
+        }
+        List<MachineCapacity> machines = machineRepository.findCapacitiesByStatusIn(accepting);
+        if (machines.isEmpty()) {
+            throw new IllegalArgumentException("No machine accepts orders");
+        }
+        Map<Long, Long> busyUnits = new HashMap<>();
+        for (MachineLoad row : manufacturingOrderRepository.sumQuantityByMachineForStatuses(
+                EnumSet.of(ManufacturingOrderStatus.IN_PROGRESS))) {
+            busyUnits.put(row.machineId(), row.load());
+        }
+        List<ManufacturingOrderSnapshot> orders = manufacturingOrderRepository.findSnapshotsByStatusIn(SCHEDULABLE_STATUSES);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<MachineQueue> queues = plan(orders, machines, busyUnits);
+        List<ScheduledOrder> assignments = new ArrayList<>(orders.size());
+        Map<Long, List<ManufacturingOrderSnapshot>> moves = new HashMap<>();
+        double makespanHours = 0;
+        for (MachineQueue queue : queues) {
+            double hours = queue.busyHours;
+            for (int i = 0; i < queue.orders.size(); i++) {
+                ManufacturingOrderSnapshot order = queue.orders.get(i);
+                double end = hours + (double) order.quantity() / queue.capacity;
+                boolean reassigned = !Objects.equals(order.machineId(), queue.machineId);
+                assignments.add(new ScheduledOrder(order.id(), queue.machineId, i + 1,
+                        plus(now, hours), plus(now, end), reassigned));
+                if (reassigned) {
+                    moves.computeIfAbsent(queue.machineId, id -> new ArrayList<>()).add(order);
+                }
+                hours = end;
+            }
+            makespanHours = Math.max(makespanHours, hours);
+        }
+
+        int reassigned = moves.values().stream().mapToInt(List::size).sum();
+        if (!dryRun && reassigned > 0) {
+            apply(moves, now);
+        }
+        return new ScheduleResult(!dryRun, orders.size(), machines.size(), reassigned,
+                plus(now, makespanHours), assignments);
+    }
+
+    /**
+     * Assign every order to a machine and order each machine queue.
+     *
+     * @param busyUnits Units already in progress per machine ID
+     * @return One queue per machine
+     */
+    static List<MachineQueue> plan(List<ManufacturingOrderSnapshot> orders, List<MachineCapacity> machines,
+                                   Map<Long, Long> busyUnits) {
+        TreeMap<Integer, PriorityQueue<MachineQueue>> heapsByCapacity = new TreeMap<>();
+        TreeSet<MachineQueue> byLoad = new TreeSet<>();
+        List<MachineQueue> queues = new ArrayList<>(machines.size());
+        for (MachineCapacity machine : machines) {
+            MachineQueue queue = new MachineQueue(machine.machineId(), Math.max(1, machine.capacity()),
+                    busyUnits.getOrDefault(machine.machineId(), 0L));
+            queues.add(queue);
+            heapsByCapacity.computeIfAbsent(queue.capacity, capacity -> new PriorityQueue<>()).add(queue);
+            byLoad.add(queue);
+        }
+
+        ManufacturingOrderSnapshot[] longestFirst = orders.toArray(ManufacturingOrderSnapshot[]::new);
+        Arrays.sort(longestFirst, (a, b) -> a.quantity() != b.quantity()
+                ? Integer.compare(b.quantity(), a.quantity())
+                : Long.compare(a.id(), b.id()));
+        for (ManufacturingOrderSnapshot order : longestFirst) {
+            // The least loaded machine (lowest ID on ties) is the top of its heap, and no machine as
+            // slow as it can finish earlier or, at the same time, with a lower ID
+            MachineQueue least = byLoad.first();
+            MachineQueue best = least;
+            double bestEnd = least.loadHours + (double) order.quantity() / least.capacity;
+            for (PriorityQueue<MachineQueue> heap : heapsByCapacity.tailMap(least.capacity, false).descendingMap().values()) {
+                MachineQueue top = heap.peek();
+                if (least.loadHours + (double) order.quantity() / top.capacity > bestEnd) {
+                    break;
+                }
+                double end = top.loadHours + (double) order.quantity() / top.capacity;
+                if (end < bestEnd || (end == bestEnd && top.machineId < best.machineId)) {
+                    best = top;
+                    bestEnd = end;
+                }
+            }
+            PriorityQueue<MachineQueue> heap = heapsByCapacity.get(best.capacity);
+            heap.poll();
+            byLoad.remove(best);
+            best.loadHours = bestEnd;
+            best.orders.add(order);
+            heap.add(best);
+            byLoad.add(best);
+        }
+        // Orders were added longest first; run them shortest first
+        queues.forEach(queue -> Collections.reverse(queue.orders));
+        return queues;
+    }
+
+    private void apply(Map<Long, List<ManufacturingOrderSnapshot>> moves, LocalDateTime now) {
+        List<ManufacturingOrderChangedEvent> changes = new ArrayList<>();
+        moves.forEach((machineId, orders) -> {
+            Machine machine = machineRepository.getReferenceById(machineId);
+            for (int from = 0; from < orders.size(); from += UPDATE_CHUNK_SIZE) {
+                List<ManufacturingOrderSnapshot> chunk = orders.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, orders.size()));
+                manufacturingOrderRepository.reassignMachine(lockUnchanged(chunk), machine, now);
+            }
+            for (ManufacturingOrderSnapshot order : orders) {
+                changes.add(new ManufacturingOrderChangedEvent(order, new ManufacturingOrderSnapshot(order.id(),
+                        order.status(), order.date(), machineId, order.productId(), order.quantity())));
+            }
+        });
+        eventPublisher.publishEvent(new ManufacturingOrdersBulkChangedEvent(changes));
+    }
+
+    // Lock the orders to reassign and check they are still as planned, so the plan is not applied
+    // over a concurrent change
+    private List<Long> lockUnchanged(List<ManufacturingOrderSnapshot> planned) {
+        List<Long> ids = planned.stream().map(ManufacturingOrderSnapshot::id).toList();
+        manufacturingOrderRepository.lockIds(ids, NO_FILTER, SCHEDULABLE_STATUSES, ids.size());
+        Set<ManufacturingOrderSnapshot> current = new HashSet<>(manufacturingOrderRepository.findSnapshotsByIdIn(ids));
+        for (ManufacturingOrderSnapshot order : planned) {
+            if (!current.contains(order)) {
+                throw new OptimisticLockingFailureException("Manufacturing order with ID " + order.id()
+                        + " was modified while scheduling");
+            }
+        }
+        return ids;
+    }
+
+    private static LocalDateTime plus(LocalDateTime start, double hours) {
+        return start.plusSeconds(Math.round(hours * 3600));
+    }
+
+    // Ordered by load, then machine ID so that ties are broken the same way on every run
+    static final class MachineQueue implements Comparable<MachineQueue> {
+        final long machineId;
+        final int capacity;
+        final double busyHours;
+        double loadHours;
+        final List<ManufacturingOrderSnapshot> orders = new ArrayList<>();
+
+        private MachineQueue(Long machineId, int capacity, long busyUnits) {
+            this.machineId = machineId;
+            this.capacity = capacity;
+            this.busyHours = (double) busyUnits / capacity;
+            this.loadHours = busyHours;
+        }
+
+        @Override
+        public int compareTo(MachineQueue other) {
+            int byLoad = Double.compare(loadHours, other.loadHours);
+            return byLoad != 0 ? byLoad : Long.compare(machineId, other.machineId);
+        }
+    }
+}
@@ -1,19 +1,38 @@
 package com.manufacturing.backend.service;
 
+import com.manufacturing.backend.common.CursorPage;
+import com.manufacturing.backend.common.KeysetCursor;
+import com.manufacturing.backend.common.MachinePatchPayload;
 import com.manufacturing.backend.common.MachinePayload;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.config.ObservabilityConfig;
+import com.manufacturing.backend.event.MachineChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersCascadeDeletedEvent;
 import com.manufacturing.backend.model.Machine;
 import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
+@Observed(name = ObservabilityConfig.SERVICE_OBSERVATION)
 @Service
 @AllArgsConstructor
 public class MachineService {
 
     private final MachineRepository machineRepository;
+    private final ManufacturingOrderRepository manufacturingOrderRepository;
+    private final StockService stockService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Retrieve all machines.
@@ -24,6 +43,22 @@ public class MachineService {
         return this.machineRepository.findAll();
     }
 
+    /**
+     * Retrieve one page of machines ordered by ID.
+     *
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit  Page size
+     * @return Page of machines and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor or the limit is invalid
+     */
+    public CursorPage<Machine> findMachinePage(String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.pageSize(limit);
+        List<Machine> rows = this.machineRepository.findByIdGreaterThanOrderByIdAsc(
+                after != null ? after.id() : 0L, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, machine -> new KeysetCursor(null, machine.getId()));
+    }
+
     /**
      * Save a new or updated product.
      *
@@ -39,8 +74,13 @@ public class MachineService {
         } else {
             machine.setLastMaintenanceDate(null);
         }
+        if (payload.capacity() != null) {
+            machine.setCapacity(payload.capacity());
+        }
 
-        return this.machineRepository.save(machine);
+        Machine savedMachine = this.machineRepository.save(machine);
+        this.eventPublisher.publishEvent(new MachineChangedEvent(savedMachine.getId(), null, savedMachine.getStatus()));
+        return savedMachine;
     }
 
 
@@ -57,36 +97,101 @@ public class MachineService {
 
     /**
      * Update an existing machine.
+     * The loaded machine is changed in place and flushed by dirty checking rather than merged, so
+     * its orders and employees are never loaded or cascaded to.
      *
-     * @param id      ID of the machine to update
-     * @param machine Updated machine data
+     * @param id              ID of the machine to update
+     * @param machine         Updated machine data
+     * @param expectedVersion Version the client last saw, or null to skip the check
      * @return Optional containing the updated product if found, empty otherwise
+     * @throws OptimisticLockingFailureException if the machine was modified by someone else
      */
-    public Optional<Machine> updateMachine(Long id, MachinePayload machine) {
-        Machine machineToUpdate = new Machine();
-        machineToUpdate.setId(id);
-        machineToUpdate.setName(machine.name());
-        machineToUpdate.setStatus(machine.status());
-        if (machine.lastMaintenanceDate() != null) {
-            machineToUpdate.setLastMaintenanceDate(machine.lastMaintenanceDate());
-        } else {
-            machineToUpdate.setLastMaintenanceDate(null);
-        }
+    @Transactional
+    public Optional<Machine> updateMachine(Long id, MachinePayload machine, Long expectedVersion) {
+        return this.machineRepository.findById(id)
+                .map(machineToUpdate -> {
+                    checkVersion(machineToUpdate, expectedVersion);
+                    MachineStatus previousStatus = machineToUpdate.getStatus();
+                    machineToUpdate.setName(machine.name());
+                    machineToUpdate.setStatus(machine.status());
+                    machineToUpdate.setLastMaintenanceDate(machine.lastMaintenanceDate());
+                    if (machine.capacity() != null) {
+                        machineToUpdate.setCapacity(machine.capacity());
+                    }
+                    this.eventPublisher.publishEvent(new MachineChangedEvent(id, previousStatus, machineToUpdate.getStatus()));
+                    return machineToUpdate;
+                });
+    }
 
+    /**
+     * Change only the given fields of a machine.
+     * Issues a single UPDATE of the changed columns, or none when nothing changed.
+     *
+     * @param id              ID of the machine to update
+     * @param patch           Fields to change; null fields are left unchanged
+     * @param expectedVersion Version the client last saw, or null to skip the check
+     * @return Optional containing the updated machine if found, empty otherwise
+     * @throws OptimisticLockingFailureException if the machine was modified by someone else
+     */
+    @Transactional
+    public Optional<Machine> patchMachine(Long id, MachinePatchPayload patch, Long expectedVersion) {
         return this.machineRepository.findById(id)
-                .map(existingProduct -> {
-                    machineToUpdate.setId(id); 
-                    return this.machineRepository.save(machineToUpdate);
+                .map(machine -> {
+                    checkVersion(machine, expectedVersion);
+                    MachineStatus previousStatus = machine.getStatus();
+                    boolean changed = false;
+                    if (patch.name() != null && !patch.name().equals(machine.getName())) {
+                        machine.setName(patch.name());
+                        changed = true;
+                    }
+                    if (patch.status() != null && patch.status() != machine.getStatus()) {
+                        machine.setStatus(patch.status());
+                        changed = true;
+                    }
+                    if (patch.lastMaintenanceDate() != null
+                            && !Objects.equals(patch.lastMaintenanceDate(), machine.getLastMaintenanceDate())) {
+                        machine.setLastMaintenanceDate(patch.lastMaintenanceDate());
+                        changed = true;
+                    }
+                    if (patch.capacity() != null && patch.capacity() != machine.getCapacity()) {
+                        machine.setCapacity(patch.capacity());
+                        changed = true;
+                    }
+                    if (changed) {
+                        this.eventPublisher.publishEvent(new MachineChangedEvent(id, previousStatus, machine.getStatus()));
+                    }
+                    return machine;
                 });
     }
 
     /**
-     * Delete a machine by its ID.
+     * Delete a machine by its ID, together with its orders and employees.
+     * The stock reserved by its open orders is released first, and their deletion published, since
+     * the cascade removes the orders without going through {@link StockService} or the order events.
      *
-     * @param id machine ID to delete
+     * @param id              machine ID to delete
+     * @param expectedVersion Version the client last saw, or null to skip the check
+     * @throws OptimisticLockingFailureException if the machine was modified by someone else
      */
-    public void deleteMachine(Long id) {
-        this.machineRepository.deleteById(id);
+    @Transactional
+    public void deleteMachine(Long id, Long expectedVersion) {
+        this.machineRepository.findById(id).ifPresent(machine -> {
+            checkVersion(machine, expectedVersion);
+            List<ManufacturingOrderSnapshot> orders = this.manufacturingOrderRepository.findSnapshotsByMachineId(id);
+            this.stockService.releaseReservations(orders);
+            if (!orders.isEmpty()) {
+                this.eventPublisher.publishEvent(new ManufacturingOrdersCascadeDeletedEvent(orders));
+            }
+            this.machineRepository.delete(machine);
+            this.eventPublisher.publishEvent(new MachineChangedEvent(id, machine.getStatus(), null));
+        });
+    }
+
+    private static void checkVersion(Machine machine, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(machine.getVersion())) {
+            throw new OptimisticLockingFailureException("Machine with ID " + machine.getId()
+                    + " is at version " + machine.getVersion() + ", not " + expectedVersion);
+        }
     }
 
 }
@@ -0,0 +1,149 @@
+package com.manufacturing.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manufacturing.backend.common.ExportFormat;
+import com.manufacturing.backend.common.ManufacturingOrderExportRow;
+import com.manufacturing.backend.config.ObservabilityConfig;
+import com.manufacturing.backend.repository.ArchivedManufacturingOrderRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import io.micrometer.observation.annotation.Observed;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Streams the order book to an output stream row by row. Rows are read as projections through a
+ * forward-only cursor, so no entity enters the persistence context and memory stays flat. Active
+ * and archived orders are read through one cursor each and merged by ID.
+ */
+@Observed(name = ObservabilityConfig.SERVICE_OBSERVATION)
+@Service
+@AllArgsConstructor
+public class ManufacturingOrderExportService {
+    private static final String CSV_HEADER =
+            "id,project,status,quantity,date,productId,productName,machineId,machineName,createdAt,updatedAt";
+
+    private final ManufacturingOrderRepository manufacturingOrderRepository;
+    private final ArchivedManufacturingOrderRepository archivedManufacturingOrderRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Write every order, or every order modified since a given instant, to the output stream.
+     * Archived orders are included, see {@link OrderArchiveService}.
+     *
+     * @param out    Destination, left open
+     * @param format Output format
+     * @param since  Only orders modified at or after this instant, or null for a full export
+     */
+    @Transactional(readOnly = true)
+    public void exportOrders(OutputStream out, ExportFormat format, LocalDateTime since) {
+        try (Stream<ManufacturingOrderExportRow> active = manufacturingOrderRepository.streamExportRows(since);
+             Stream<ManufacturingOrderExportRow> archived = archivedManufacturingOrderRepository.streamExportRows(since)) {
+            Iterator<ManufacturingOrderExportRow> rows = mergeById(active.iterator(), archived.iterator());
+            if (format == ExportFormat.CSV) {
+                writeCsv(out, rows);
+            } else {
+                writeNdjson(out, rows);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Both inputs are ordered by ID and an order is never in both tables
+    private static Iterator<ManufacturingOrderExportRow> mergeById(Iterator<ManufacturingOrderExportRow> left,
+                                                                   Iterator<ManufacturingOrderExportRow> right) {
+        return new Iterator<>() {
+            private ManufacturingOrderExportRow nextLeft = left.hasNext() ? left.next() : null;
+            private ManufacturingOrderExportRow nextRight = right.hasNext() ? right.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextLeft != null || nextRight != null;
+            }
+
+            @Override
+            public ManufacturingOrderExportRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ManufacturingOrderExportRow row;
+                if (nextRight == null || (nextLeft != null && nextLeft.id() < nextRight.id())) {
+                    row = nextLeft;
+                    nextLeft = left.hasNext() ? left.next() : null;
+                } else {
+                    row = nextRight;
+                    nextRight = right.hasNext() ? right.next() : null;
+                }
+                return row;
+            }
+        };
+    }
+
+    private void writeNdjson(OutputStream out, Iterator<ManufacturingOrderExportRow> rows) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Rows are separated by the newline alone, not Jackson's default space
+            generator.setRootValueSeparator(null);
+            while (rows.hasNext()) {
+                objectMapper.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private void writeCsv(OutputStream out, Iterator<ManufacturingOrderExportRow> rows) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            ManufacturingOrderExportRow row = rows.next();
+            writer.write(String.valueOf(row.id()));
+            writer.write(',');
+            writeCsvField(writer, row.project());
+            writer.write(',');
+            writer.write(row.status().name());
+            writer.write(',');
+            writer.write(String.valueOf(row.quantity()));
+            writer.write(',');
+            writer.write(String.valueOf(row.date()));
+            writer.write(',');
+            writer.write(String.valueOf(row.productId()));
+            writer.write(',');
+            writeCsvField(writer, row.productName());
+            writer.write(',');
+            writer.write(String.valueOf(row.machineId()));
+            writer.write(',');
+            writeCsvField(writer, row.machineName());
+            writer.write(',');
+            writer.write(String.valueOf(row.createdAt()));
+            writer.write(',');
+            writer.write(row.updatedAt() != null ? row.updatedAt().toString() : "");
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
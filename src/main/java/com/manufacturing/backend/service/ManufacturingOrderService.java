@@ -1,75 +1,217 @@
 package com.manufacturing.backend.service;
 
 
+import com.manufacturing.backend.common.BatchItemResult;
+import com.manufacturing.backend.common.BulkStatusUpdatePayload;
+import com.manufacturing.backend.common.BulkStatusUpdateResult;
 import com.manufacturing.backend.common.CreateManufacturingOrderPayload;
+import com.manufacturing.backend.common.CursorPage;
+import com.manufacturing.backend.common.KeysetCursor;
+import com.manufacturing.backend.common.MachineReference;
+import com.manufacturing.backend.common.ManufacturingOrderField;
+import com.manufacturing.backend.common.ManufacturingOrderFilter;
+import com.manufacturing.backend.common.ManufacturingOrderResponse;
 import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductReference;
+import com.manufacturing.backend.common.ReferenceMode;
 import com.manufacturing.backend.common.UpdateManufacturingOrderPayload;
+import com.manufacturing.backend.config.ObservabilityConfig;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
 import com.manufacturing.backend.model.Machine;
 import com.manufacturing.backend.model.ManufacturingOrder;
 import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.ArchivedManufacturingOrderRepository;
 import com.manufacturing.backend.repository.MachineRepository;
 import com.manufacturing.backend.repository.ManufacturingOrderRepository;
 import com.manufacturing.backend.repository.ProductRepository;
+import io.micrometer.observation.annotation.Observed;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
+@Observed(name = ObservabilityConfig.SERVICE_OBSERVATION)
 @Service
 @AllArgsConstructor
 public class ManufacturingOrderService {
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+
     private final ManufacturingOrderRepository manufacturingOrderRepository;
     private final ProductRepository productRepository;
+    private final ArchivedManufacturingOrderRepository archivedManufacturingOrderRepository;
     private final MachineRepository machineRepository;
+    private final StockService stockService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a new manufacturing order.
      *
      * @param payload Payload to save of type ManufacturingOrderPayload
      * @Return Saved manufacturing order
+     * @throws IllegalArgumentException if the product or machine is not found, the machine does not
+     *                                  accept orders, or stock is insufficient
      */
 
     @Transactional
     public ManufacturingOrder createOrder(CreateManufacturingOrderPayload payload) {
-        Product product = productRepository.findById(payload.productId())
+        Product product = productRepository.findReferenceById(payload.productId())
+                .map(ManufacturingOrderService::productOf)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + payload.productId()));
 
-        Machine machine = machineRepository.findById(payload.machineId())
+        Machine machine = machineRepository.findReferenceById(payload.machineId())
+                .map(ManufacturingOrderService::machineOf)
                 .orElseThrow(() -> new IllegalArgumentException("Machine not found with ID: " + payload.machineId()));
+        checkAcceptsOrders(machine);
+
+        ManufacturingOrder savedOrder = manufacturingOrderRepository.save(newOrder(payload, product, machine));
+        ManufacturingOrderSnapshot after = ManufacturingOrderSnapshot.of(savedOrder);
+        stockService.applyOrderChange(null, after);
+        eventPublisher.publishEvent(ManufacturingOrderChangedEvent.created(after));
+        return savedOrder;
+    }
+
+    /**
+     * Create many manufacturing orders at once.
+     * Referenced products and machines are loaded with one IN query each and the orders are
+     * inserted in JDBC batches. Items referencing an unknown product or machine, or whose stock
+     * cannot be reserved, are rejected individually without failing the others.
+     *
+     * @param payloads Orders to create
+     * @return One result per payload, in the same order
+     */
+    @Transactional
+    public List<BatchItemResult> createOrders(List<CreateManufacturingOrderPayload> payloads) {
+        Map<Long, Product> products = productRepository.findAllById(
+                        payloads.stream().map(CreateManufacturingOrderPayload::productId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<Long, Machine> machines = machineRepository.findAllById(
+                        payloads.stream().map(CreateManufacturingOrderPayload::machineId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Machine::getId, Function.identity()));
+
+        List<BatchItemResult> results = new ArrayList<>(payloads.size());
+        List<ManufacturingOrder> orders = new ArrayList<>(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            CreateManufacturingOrderPayload payload = payloads.get(i);
+            Product product = products.get(payload.productId());
+            Machine machine = machines.get(payload.machineId());
+            if (product == null) {
+                results.add(BatchItemResult.failure(i, "Product not found with ID: " + payload.productId()));
+            } else if (machine == null) {
+                results.add(BatchItemResult.failure(i, "Machine not found with ID: " + payload.machineId()));
+            } else if (!machine.getStatus().acceptsOrders()) {
+                results.add(BatchItemResult.failure(i, notAccepting(machine)));
+            } else if (!stockService.tryReserve(product.getId(), payload.quantity())) {
+                results.add(BatchItemResult.failure(i, "Insufficient stock for product with ID: " + payload.productId()));
+            } else {
+                results.add(null);
+                orders.add(newOrder(payload, product, machine));
+            }
+        }
 
+        List<ManufacturingOrder> savedOrders = manufacturingOrderRepository.saveAll(orders);
+        int saved = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                ManufacturingOrder savedOrder = savedOrders.get(saved++);
+                results.set(i, BatchItemResult.success(i, savedOrder.getId()));
+                eventPublisher.publishEvent(ManufacturingOrderChangedEvent.created(ManufacturingOrderSnapshot.of(savedOrder)));
+            }
+        }
+        return results;
+    }
+
+    private static void checkAcceptsOrders(Machine machine) {
+        if (!machine.getStatus().acceptsOrders()) {
+            throw new IllegalArgumentException(notAccepting(machine));
+        }
+    }
+
+    private static String notAccepting(Machine machine) {
+        return "Machine with ID: " + machine.getId() + " does not accept orders while " + machine.getStatus();
+    }
+
+    // Detached copy of the cached product, owned by one order: only its ID is written, and the
+    // version tells Hibernate that it is not a new product
+    private static Product productOf(ProductReference product) {
+        return Product.builder()
+                .id(product.id())
+                .name(product.name())
+                .type(product.type())
+                .version(product.version())
+                .build();
+    }
+
+    // Detached copy of the cached machine, owned by one order, like productOf
+    private static Machine machineOf(MachineReference machine) {
+        return Machine.builder()
+                .id(machine.id())
+                .name(machine.name())
+                .status(machine.status())
+                .capacity(machine.capacity())
+                .version(machine.version())
+                .build();
+    }
+
+    private static ManufacturingOrder newOrder(CreateManufacturingOrderPayload payload, Product product, Machine machine) {
         ManufacturingOrder order = new ManufacturingOrder();
         order.setProject(payload.project());
-        order.setStatus(ManufacturingOrderStatus.AWAITING_APPROVAL); 
+        order.setStatus(ManufacturingOrderStatus.AWAITING_APPROVAL);
         order.setQuantity(payload.quantity());
         order.setDate(payload.date());
         order.setProduct(product);
         order.setMachine(machine);
-
-        return manufacturingOrderRepository.save(order);
+        return order;
     }
 
     /**
      * Update an existing manufacturing order.
      *
-     * @param id      ID of the manufacturing order to update
-     * @param payload Payload containing updated data
+     * @param id              ID of the manufacturing order to update
+     * @param payload         Payload containing updated data
+     * @param expectedVersion Version the client last saw, or null to skip the check
      * @return Updated manufacturing order
-     * @throws IllegalArgumentException if the order or product is not found
+     * @throws IllegalArgumentException if the order or product is not found, the status transition
+     *                                  is not allowed or stock is insufficient
+     * @throws OptimisticLockingFailureException if the order was modified by someone else
      */
     @Transactional
-    public ManufacturingOrder updateOrder(Long id, UpdateManufacturingOrderPayload payload) {
+    public ManufacturingOrder updateOrder(Long id, UpdateManufacturingOrderPayload payload, Long expectedVersion) {
         ManufacturingOrder order = manufacturingOrderRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Manufacturing order not found with ID: " + id));
+        checkVersion(order, expectedVersion);
+        if (payload.status() != order.getStatus()) {
+            checkTransition(order.getStatus(), payload.status());
+        }
 
-        Product product = productRepository.findById(payload.productId())
+        Product product = productRepository.findReferenceById(payload.productId())
+                .map(ManufacturingOrderService::productOf)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + payload.productId()));
 
-        Machine machine = machineRepository.findById(payload.machineId())
+        Machine machine = machineRepository.findReferenceById(payload.machineId())
+                .map(ManufacturingOrderService::machineOf)
                 .orElseThrow(() -> new IllegalArgumentException("Machine not found with ID: " + payload.machineId()));
+        if (!machine.getId().equals(order.getMachine().getId())) {
+            checkAcceptsOrders(machine);
+        }
 
+        ManufacturingOrderSnapshot before = ManufacturingOrderSnapshot.of(order);
         order.setProject(payload.project());
         order.setStatus(payload.status());
         order.setQuantity(payload.quantity());
@@ -77,30 +219,67 @@ public class ManufacturingOrderService {
         order.setProduct(product);
         order.setMachine(machine);
 
-        return manufacturingOrderRepository.save(order);
+        ManufacturingOrder savedOrder = manufacturingOrderRepository.save(order);
+        ManufacturingOrderSnapshot after = ManufacturingOrderSnapshot.of(savedOrder);
+        stockService.applyOrderChange(before, after);
+        eventPublisher.publishEvent(new ManufacturingOrderChangedEvent(before, after));
+        return savedOrder;
     }
 
     /**
      * Delete a manufacturing order by its ID.
      *
-     * @param id ID of the manufacturing order to delete
+     * @param id              ID of the manufacturing order to delete
+     * @param expectedVersion Version the client last saw, or null to skip the check
      * @throws IllegalArgumentException if the order is not found
+     * @throws OptimisticLockingFailureException if the order was modified by someone else
      */
     @Transactional
-    public void deleteOrder(Long id) {
+    public void deleteOrder(Long id, Long expectedVersion) {
         ManufacturingOrder order = manufacturingOrderRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Manufacturing order not found with ID: " + id));
+        checkVersion(order, expectedVersion);
+        ManufacturingOrderSnapshot before = ManufacturingOrderSnapshot.of(order);
         manufacturingOrderRepository.delete(order);
+        stockService.applyOrderChange(before, null);
+        eventPublisher.publishEvent(ManufacturingOrderChangedEvent.deleted(before));
     }
 
     /**
-     * Retrieve all manufacturing orders.
+     * Retrieve one page of manufacturing orders ordered by date, then ID. Archived orders are only
+     * listed on request, merged with the active ones, see {@link OrderArchiveService}.
      *
-     * @Return List of all manufacturing orders
+     * @param filter          Filters to apply
+     * @param cursor          Cursor returned with the previous page, or null for the first page
+     * @param limit           Page size
+     * @param fields          Fields to return
+     * @param refs            How to render the product and machine
+     * @param includeArchived Whether archived orders are listed too
+     * @return Page of orders and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor or the limit is invalid
      */
-
-    public List<ManufacturingOrder> getAllOrders() {
-        return manufacturingOrderRepository.findAll();
+    public CursorPage<ManufacturingOrderResponse> getOrders(ManufacturingOrderFilter filter, String cursor, int limit,
+                                                            Set<ManufacturingOrderField> fields, ReferenceMode refs,
+                                                            boolean includeArchived) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (after != null && after.date() == null) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        int pageSize = CursorPage.pageSize(limit);
+        List<ManufacturingOrderResponse> rows = manufacturingOrderRepository.findPage(filter, after, pageSize + 1, fields, refs);
+        if (includeArchived) {
+            // Both pages are ordered by (date, id) and an order is never in both tables
+            rows = new ArrayList<>(rows);
+            rows.addAll(archivedManufacturingOrderRepository.findPage(filter, after, pageSize + 1, fields, refs));
+            rows.sort(Comparator.comparing(ManufacturingOrderResponse::date).thenComparing(ManufacturingOrderResponse::id));
+            rows = rows.subList(0, Math.min(rows.size(), pageSize + 1));
+        }
+        CursorPage<ManufacturingOrderResponse> page = CursorPage.of(rows, pageSize, order -> new KeysetCursor(order.date(), order.id()));
+        if (fields.contains(ManufacturingOrderField.ID) && fields.contains(ManufacturingOrderField.DATE)) {
+            return page;
+        }
+        // ID and date were only selected to build the cursor
+        return new CursorPage<>(page.items().stream().map(order -> order.only(fields)).toList(), page.nextCursor());
     }
 
 
@@ -114,19 +293,123 @@ public class ManufacturingOrderService {
         return manufacturingOrderRepository.findById(id);
     }
 
+    /**
+     * Retrieve an order moved to the archive by its ID. Archived orders are read-only.
+     *
+     * @param id Manufacturing order ID
+     * @return Optional containing the archived order if found, empty otherwise
+     */
+    public Optional<ManufacturingOrderResponse> getArchivedOrderById(Long id) {
+        return archivedManufacturingOrderRepository.findById(id).map(ManufacturingOrderResponse::of);
+    }
+
 
     /**
      * Update Manufacturing status by ID
+     * The change is a conditional UPDATE per status the transition is allowed from, issued before
+     * anything is read, so concurrent transitions of the same order cannot overwrite each other.
+     * The order is only read once updated, or to tell why no row matched.
      *
-     * @param id Manufacturing order ID
-     * @return Optional containing the manufacturing order if found, empty otherwise
-     * @throws IllegalArgumentException if the order is not found
+     * @param id              Manufacturing order ID
+     * @param status          New status
+     * @param expectedVersion Version the client last saw, or null to skip the check
+     * @return Updated manufacturing order, unchanged if already in the status, or empty if not found
+     * @throws IllegalArgumentException if the transition is not allowed or stock is insufficient
+     * @throws OptimisticLockingFailureException if the order was modified by someone else
      */
     @Transactional
-    public ManufacturingOrder updateStatus(Long id, ManufacturingOrderStatus status) {
-        ManufacturingOrder order = manufacturingOrderRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Manufacturing order not found with ID: " + id));
-        order.setStatus(status);
-        return manufacturingOrderRepository.save(order);
+    public Optional<ManufacturingOrder> updateStatus(Long id, ManufacturingOrderStatus status, Long expectedVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        // Each transition has one source status but voiding, so this is almost always one UPDATE
+        for (ManufacturingOrderStatus from : ManufacturingOrderStatus.sourcesOf(status)) {
+            if (manufacturingOrderRepository.updateStatusIfCurrent(id, expectedVersion, from, status, now) == 1) {
+                // The row is locked by the update, so this reads exactly the state just written
+                ManufacturingOrder order = manufacturingOrderRepository.findById(id).orElseThrow();
+                ManufacturingOrderSnapshot after = ManufacturingOrderSnapshot.of(order);
+                ManufacturingOrderSnapshot before = new ManufacturingOrderSnapshot(after.id(), from, after.date(),
+                        after.machineId(), after.productId(), after.quantity());
+                stockService.applyOrderChange(before, after);
+                eventPublisher.publishEvent(new ManufacturingOrderChangedEvent(before, after));
+                return Optional.of(order);
+            }
+        }
+
+        Optional<ManufacturingOrder> current = manufacturingOrderRepository.findById(id);
+        current.ifPresent(order -> {
+            checkVersion(order, expectedVersion);
+            if (order.getStatus() != status) {
+                checkTransition(order.getStatus(), status);
+                // Allowed, so the order moved to another source status between the updates
+                throw new OptimisticLockingFailureException("Manufacturing order with ID " + id + " was modified concurrently");
+            }
+        });
+        return current;
+    }
+
+    /**
+     * Move every order selected by ID and/or filter to a new status.
+     * Orders whose current status does not allow the transition are left untouched. The matching
+     * rows are locked in ID order, then updated with one UPDATE per chunk of IDs, with stock
+     * adjusted once per product.
+     * <p>
+     * This is a locking read followed by set-based updates rather than a single
+     * {@code UPDATE ... WHERE status IN (...)}: the change events feeding the stock, KPI, rollup
+     * and event log need each order's state before the update, which a JPQL bulk update does not
+     * return, and reading it without the lock could disagree with what the UPDATE then changes.
+     * Locking in ID order also makes concurrent bulk updates wait for each other instead of
+     * deadlocking. A selection may match at most {@link BulkStatusUpdatePayload#MAX_ORDERS}
+     * orders, so a broad filter cannot lock an unbounded part of the table.
+     *
+     * @param payload IDs and filter selecting the orders, and the new status
+     * @return Number of orders updated, and the requested IDs that were not
+     * @throws IllegalArgumentException if not enough stock is available to complete the orders,
+     *                                  or if the selection matches too many orders
+     */
+    @Transactional
+    public BulkStatusUpdateResult updateStatuses(BulkStatusUpdatePayload payload) {
+        List<Long> requested = payload.ids() == null || payload.ids().isEmpty() ? null : payload.ids();
+        ManufacturingOrderFilter filter = new ManufacturingOrderFilter(
+                payload.currentStatus(), payload.machineId(), null, payload.project(), null, null);
+        List<Long> ids = manufacturingOrderRepository.lockIds(
+                requested, filter, ManufacturingOrderStatus.sourcesOf(payload.status()), BulkStatusUpdatePayload.MAX_ORDERS + 1);
+        if (ids.size() > BulkStatusUpdatePayload.MAX_ORDERS) {
+            throw new IllegalArgumentException("The selection matches more than " + BulkStatusUpdatePayload.MAX_ORDERS
+                    + " orders; narrow the filter or update them in several requests");
+        }
+
+        List<ManufacturingOrderChangedEvent> changes = new ArrayList<>(ids.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < ids.size(); from += UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, ids.size()));
+            for (ManufacturingOrderSnapshot before : manufacturingOrderRepository.findSnapshotsByIdIn(chunk)) {
+                changes.add(new ManufacturingOrderChangedEvent(before, new ManufacturingOrderSnapshot(before.id(),
+                        payload.status(), before.date(), before.machineId(), before.productId(), before.quantity())));
+            }
+            manufacturingOrderRepository.updateStatusByIdIn(chunk, payload.status(), now);
+        }
+        if (!changes.isEmpty()) {
+            stockService.applyStatusChanges(changes);
+            eventPublisher.publishEvent(new ManufacturingOrdersBulkChangedEvent(changes));
+        }
+
+        List<Long> skippedIds = null;
+        if (requested != null) {
+            Set<Long> updated = new HashSet<>(ids);
+            skippedIds = requested.stream().filter(id -> !updated.contains(id)).distinct().toList();
+        }
+        return new BulkStatusUpdateResult(ids.size(), skippedIds);
+    }
+
+    private static void checkVersion(ManufacturingOrder order, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+            throw new OptimisticLockingFailureException("Manufacturing order with ID " + order.getId()
+                    + " is at version " + order.getVersion() + ", not " + expectedVersion);
+        }
+    }
+
+    private static void checkTransition(ManufacturingOrderStatus from, ManufacturingOrderStatus to) {
+        if (!from.canTransitionTo(to)) {
+            throw new IllegalArgumentException("Invalid status transition from " + from + " to " + to);
+        }
     }
 }
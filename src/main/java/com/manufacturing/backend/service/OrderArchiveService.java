@@ -0,0 +1,120 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.event.MachineChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersArchivedEvent;
+import com.manufacturing.backend.event.ManufacturingOrdersCascadeDeletedEvent;
+import com.manufacturing.backend.event.ProductChangedEvent;
+import com.manufacturing.backend.repository.ArchivedManufacturingOrderRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moves completed and voided orders that have not changed for a while from
+ * {@code manufacturing_order} to {@code manufacturing_order_archive}, so the KPI queries and the
+ * default order list only scan active and recent orders.
+ * <p>
+ * Each batch is locked, copied and deleted in its own short transaction. Archived orders can still
+ * be read by ID, and keep counting in the order status KPIs and the daily rollup. The export
+ * still includes them, and the order list does when asked to, e.g. for a {@code from}/{@code to}
+ * range reaching back before {@code orders.archive.after}; their timeline events stay in
+ * {@code order_event}.
+ */
+@Slf4j
+@Service
+public class OrderArchiveService {
+    static final List<String> ARCHIVABLE_STATUSES = Arrays.stream(ManufacturingOrderStatus.values())
+            .filter(ManufacturingOrderStatus::isFinal)
+            .map(Enum::name)
+            .toList();
+
+    private final ManufacturingOrderRepository manufacturingOrderRepository;
+    private final ArchivedManufacturingOrderRepository archivedManufacturingOrderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration archiveAfter;
+    private final int batchSize;
+
+    public OrderArchiveService(ManufacturingOrderRepository manufacturingOrderRepository,
+                               ArchivedManufacturingOrderRepository archivedManufacturingOrderRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${orders.archive.after:P90D}") Duration archiveAfter,
+                               @Value("${orders.archive.batch-size:1000}") int batchSize) {
+        this.manufacturingOrderRepository = manufacturingOrderRepository;
+        this.archivedManufacturingOrderRepository = archivedManufacturingOrderRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Archive every order in a final status last changed before the configured age.
+     *
+     * @return Number of orders archived
+     */
+    @Scheduled(initialDelayString = "${orders.archive.interval:PT1H}", fixedDelayString = "${orders.archive.interval:PT1H}")
+    public int archiveOldOrders() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+        int total = 0;
+        int archived;
+        do {
+            archived = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            total += archived;
+        } while (archived == batchSize);
+        if (total > 0) {
+            log.info("Archived {} orders completed or voided before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = manufacturingOrderRepository.lockIdsByStatusInUpdatedBefore(ARCHIVABLE_STATUSES, cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedManufacturingOrderRepository.copyFromOrders(ids);
+        manufacturingOrderRepository.deleteByIdIn(ids);
+        eventPublisher.publishEvent(new ManufacturingOrdersArchivedEvent(ids));
+        return ids.size();
+    }
+
+    // Live orders of a deleted machine or product are removed by cascade; remove the archived ones
+    // too, publishing their deletion as the services do for the live ones
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMachineChanged(MachineChangedEvent event) {
+        if (event.deleted()) {
+            publishDeletion(archivedManufacturingOrderRepository.findSnapshotsByMachineId(event.machineId()));
+            archivedManufacturingOrderRepository.deleteByMachineId(event.machineId());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            publishDeletion(archivedManufacturingOrderRepository.findSnapshotsByProductId(event.productId()));
+            archivedManufacturingOrderRepository.deleteByProductId(event.productId());
+        }
+    }
+
+    private void publishDeletion(List<ManufacturingOrderSnapshot> orders) {
+        if (!orders.isEmpty()) {
+            eventPublisher.publishEvent(new ManufacturingOrdersCascadeDeletedEvent(orders));
+        }
+    }
+}
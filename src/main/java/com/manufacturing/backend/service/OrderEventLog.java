@@ -0,0 +1,389 @@
+package com.manufacturing.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.OrderEventType;
+import com.manufacturing.backend.common.OrderTimeline;
+import com.manufacturing.backend.common.OrderTimelineEvent;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrdersCascadeDeletedEvent;
+import com.manufacturing.backend.model.OrderEvent;
+import com.manufacturing.backend.repository.OrderEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Append-only log of order lifecycle events: creation, status change, machine reassignment and
+ * deletion.
+ * <p>
+ * Committed order changes are turned into events on the writing thread and offered to a bounded
+ * lock-free ring buffer. Before the listener returns they are appended to a local write-ahead
+ * file and fsync'ed, with group commit: the writer that gets the file drains everything buffered
+ * so far, including the events of the writers queued behind it, and syncs it once, so concurrent
+ * writers share one sync instead of paying one each. A scheduled writer then inserts the appended
+ * events with JDBC batches and empties the file, off the write path. If the insert fails, or the
+ * process stops before it, the file is replayed on the next run; events carry their own ID, so
+ * rows inserted twice are skipped.
+ * <p>
+ * Delivery is therefore at-least-once for every change whose request has returned: only a crash
+ * between the database commit and the append, the time of one sync, can lose an event. Orders
+ * removed by the cascade of a machine or product deletion are logged as deleted from the
+ * snapshots published before the deletion.
+ */
+@Slf4j
+@Component
+public class OrderEventLog {
+    private static final String INSERT_SQL = """
+            insert into order_event (id, order_id, type, from_status, to_status, from_machine_id, to_machine_id, occurred_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderEventRepository orderEventRepository;
+    private final ObjectMapper objectMapper;
+    private final RingBuffer<OrderEvent> buffer;
+    private final int batchSize;
+    private final Path walPath;
+    private final FileChannel wal;
+    // Guards the file, the consumer side of the buffer, appended and pending, apart from flush(),
+    // so a writer waits for at most the append in progress, never for the inserts of a flush
+    private final Object walLock = new Object();
+    // Buffer positions below this one are in the file
+    private long appended;
+    // Events in the write-ahead file not inserted yet, in order; null when the file holds events
+    // that are not in memory (after a restart or a failed insert) and must be replayed from it
+    private List<OrderEvent> pending = new ArrayList<>();
+
+    public OrderEventLog(JdbcTemplate jdbcTemplate,
+                         OrderEventRepository orderEventRepository,
+                         ObjectMapper objectMapper,
+                         @Value("${order-events.buffer-size:65536}") int bufferSize,
+                         @Value("${order-events.batch-size:500}") int batchSize,
+                         @Value("${order-events.wal-path:data/order-events.wal}") Path walPath) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderEventRepository = orderEventRepository;
+        this.objectMapper = objectMapper;
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.batchSize = batchSize;
+        this.walPath = walPath;
+        Path directory = walPath.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        this.wal = FileChannel.open(walPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (wal.size() > 0) {
+            log.info("Order event log: {} bytes left in {}, replaying them", wal.size(), walPath);
+            pending = null;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(ManufacturingOrderChangedEvent event) {
+        List<OrderEvent> events = new ArrayList<>(2);
+        collect(event, LocalDateTime.now(), events);
+        capture(events);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrdersChanged(ManufacturingOrdersBulkChangedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderEvent> events = new ArrayList<>(event.changes().size());
+        event.changes().forEach(change -> collect(change, now, events));
+        capture(events);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrdersCascadeDeleted(ManufacturingOrdersCascadeDeletedEvent deletion) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderEvent> events = new ArrayList<>(deletion.orders().size());
+        deletion.orders().forEach(order -> events.add(event(order.id(), OrderEventType.DELETED, order, null, now)));
+        capture(events);
+    }
+
+    /**
+     * Events and time spent per status of one order.
+     * Events not inserted yet, at most one flush interval old, are not included.
+     */
+    public OrderTimeline getTimeline(Long orderId) {
+        List<OrderEvent> events = orderEventRepository.findByOrderIdOrderByOccurredAtAsc(orderId);
+        return new OrderTimeline(orderId, events.stream().map(OrderTimelineEvent::of).toList(),
+                dwellSeconds(events, LocalDateTime.now()));
+    }
+
+    /**
+     * Seconds spent in each status, from consecutive status events. The last status counts until
+     * {@code now}, unless it is final or the order was deleted.
+     */
+    static Map<ManufacturingOrderStatus, Long> dwellSeconds(List<OrderEvent> events, LocalDateTime now) {
+        Map<ManufacturingOrderStatus, Long> dwell = new EnumMap<>(ManufacturingOrderStatus.class);
+        ManufacturingOrderStatus status = null;
+        LocalDateTime since = null;
+        for (OrderEvent event : events) {
+            if (event.getType() == OrderEventType.REASSIGNED) {
+                continue;
+            }
+            if (status != null) {
+                dwell.merge(status, Duration.between(since, event.getOccurredAt()).toSeconds(), Long::sum);
+            }
+            status = event.getType() == OrderEventType.DELETED ? null : event.getToStatus();
+            since = event.getOccurredAt();
+        }
+        if (status != null && !status.isFinal()) {
+            dwell.merge(status, Duration.between(since, now).toSeconds(), Long::sum);
+        }
+        return dwell;
+    }
+
+    /**
+     * Insert the events of the write-ahead file into the database.
+     */
+    @Scheduled(fixedDelayString = "${order-events.flush-interval:PT0.2S}")
+    public synchronized void flush() {
+        List<OrderEvent> inserting;
+        synchronized (walLock) {
+            inserting = pending != null ? List.copyOf(pending) : null;
+        }
+        try {
+            if (inserting == null) {
+                // Rare recovery path: writers wait for the replay before appending
+                synchronized (walLock) {
+                    replay();
+                    pending = new ArrayList<>();
+                }
+                return;
+            }
+            if (inserting.isEmpty()) {
+                return;
+            }
+            insert(inserting);
+            synchronized (walLock) {
+                if (pending == null) {
+                    // An append failed during the insert: the next flush replays the whole file
+                    return;
+                }
+                if (pending.size() == inserting.size()) {
+                    wal.truncate(0);
+                    pending = new ArrayList<>();
+                } else {
+                    // Events were appended during the insert: keep the file, whose inserted events
+                    // are skipped as duplicates if it is ever replayed, until a flush empties it
+                    pending = new ArrayList<>(pending.subList(inserting.size(), pending.size()));
+                }
+            }
+        } catch (DataAccessException | IOException ex) {
+            log.warn("Could not write order events, keeping them in {}: {}", walPath, ex.getMessage());
+            synchronized (walLock) {
+                pending = null;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        synchronized (walLock) {
+            wal.close();
+        }
+    }
+
+    private static void collect(ManufacturingOrderChangedEvent change, LocalDateTime now, List<OrderEvent> events) {
+        ManufacturingOrderSnapshot before = change.before();
+        ManufacturingOrderSnapshot after = change.after();
+        if (before == null) {
+            events.add(event(after.id(), OrderEventType.CREATED, null, after, now));
+        } else if (after == null) {
+            events.add(event(before.id(), OrderEventType.DELETED, before, null, now));
+        } else {
+            if (before.status() != after.status()) {
+                events.add(event(after.id(), OrderEventType.STATUS_CHANGED, before, after, now));
+            }
+            if (!Objects.equals(before.machineId(), after.machineId())) {
+                events.add(event(after.id(), OrderEventType.REASSIGNED, before, after, now));
+            }
+        }
+    }
+
+    private static OrderEvent event(Long orderId, OrderEventType type, ManufacturingOrderSnapshot before,
+                                    ManufacturingOrderSnapshot after, LocalDateTime now) {
+        return OrderEvent.builder()
+                .id(UUID.randomUUID())
+                .orderId(orderId)
+                .type(type)
+                .fromStatus(before != null ? before.status() : null)
+                .toStatus(after != null ? after.status() : null)
+                .fromMachineId(before != null ? before.machineId() : null)
+                .toMachineId(after != null ? after.machineId() : null)
+                .occurredAt(now)
+                .build();
+    }
+
+    // Returns once the events are in the file, appended by this writer or one ahead of it
+    private void capture(List<OrderEvent> events) {
+        long last = -1;
+        for (OrderEvent event : events) {
+            long position = buffer.offer(event);
+            while (position < 0) {
+                // Full: make room by appending what is buffered, which this writer waits for anyway
+                appendBuffered(-1);
+                position = buffer.offer(event);
+            }
+            last = position;
+        }
+        if (last >= 0) {
+            appendBuffered(last);
+        }
+    }
+
+    /**
+     * Append every buffered event to the file with one sync, unless the event at {@code position}
+     * is already there. Writers queue on the lock while a sync is running, and the next one to get
+     * it appends the events of all of them.
+     */
+    private void appendBuffered(long position) {
+        synchronized (walLock) {
+            if (position >= 0 && appended > position) {
+                return;
+            }
+            List<OrderEvent> group = new ArrayList<>(buffer.size());
+            // A writer may have claimed a position below ours without publishing its event yet
+            do {
+                if (buffer.drainTo(group, buffer.capacity()) == 0) {
+                    Thread.onSpinWait();
+                }
+            } while (appended + group.size() <= position);
+            appended += group.size();
+            if (group.isEmpty()) {
+                return;
+            }
+            try {
+                append(group);
+                if (pending != null) {
+                    pending.addAll(group);
+                }
+            } catch (IOException ex) {
+                // Part of the group may be in the file, so replay it rather than trust pending
+                pending = null;
+                log.error("Could not append {} order events to {}, inserting them directly", group.size(), walPath, ex);
+                try {
+                    insert(group);
+                } catch (DataAccessException insertEx) {
+                    log.error("Lost {} order events", group.size(), insertEx);
+                }
+            }
+        }
+    }
+
+    private void append(List<OrderEvent> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 200);
+        for (OrderEvent event : events) {
+            lines.write(objectMapper.writeValueAsBytes(event));
+            lines.write('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(lines.toByteArray());
+        while (bytes.hasRemaining()) {
+            wal.write(bytes);
+        }
+        wal.force(false);
+    }
+
+    private void replay() throws IOException {
+        int replayed = 0;
+        int malformed = 0;
+        List<OrderEvent> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(walPath, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                try {
+                    batch.add(objectMapper.readValue(line, OrderEvent.class));
+                } catch (JsonProcessingException ex) {
+                    // Typically the last line, cut short by a crash during the append
+                    malformed++;
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    insert(batch);
+                    replayed += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        insert(batch);
+        replayed += batch.size();
+        wal.truncate(0);
+        if (replayed == 0 && malformed == 0) {
+            return;
+        }
+        log.info("Order event log: replayed {} events from {} ({} malformed lines skipped)", replayed, walPath, malformed);
+    }
+
+    private void insert(List<OrderEvent> events) {
+        for (int from = 0; from < events.size(); from += batchSize) {
+            List<OrderEvent> chunk = events.subList(from, Math.min(from + batchSize, events.size()));
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), OrderEventLog::bind);
+            } catch (DataIntegrityViolationException ex) {
+                // Part of the chunk was inserted before: a replay after a crash or a failed insert
+                for (OrderEvent event : chunk) {
+                    try {
+                        jdbcTemplate.update(INSERT_SQL, statement -> bind(statement, event));
+                    } catch (DuplicateKeyException duplicate) {
+                        // Already logged
+                    } catch (DataIntegrityViolationException invalid) {
+                        log.warn("Skipping invalid order event {}: {}", event.getId(), invalid.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, OrderEvent event) throws SQLException {
+        statement.setObject(1, event.getId());
+        statement.setLong(2, event.getOrderId());
+        statement.setString(3, event.getType().name());
+        statement.setString(4, event.getFromStatus() != null ? event.getFromStatus().name() : null);
+        statement.setString(5, event.getToStatus() != null ? event.getToStatus().name() : null);
+        setLong(statement, 6, event.getFromMachineId());
+        setLong(statement, 7, event.getToMachineId());
+        statement.setTimestamp(8, Timestamp.valueOf(event.getOccurredAt()));
+    }
+
+    private static void setLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value != null) {
+            statement.setLong(index, value);
+        } else {
+            statement.setNull(index, Types.BIGINT);
+        }
+    }
+}
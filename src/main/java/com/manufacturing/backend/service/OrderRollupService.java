@@ -0,0 +1,204 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.DailyRollupRow;
+import com.manufacturing.backend.event.MachineChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
+import com.manufacturing.backend.event.OrderRollupRebuiltEvent;
+import com.manufacturing.backend.event.ProductChangedEvent;
+import com.manufacturing.backend.repository.ArchivedManufacturingOrderRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import com.manufacturing.backend.repository.OrderDailyRollupRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the {@code OrderDailyRollup} table from the order write path.
+ * <p>
+ * Each order change moves one unit (and the order quantity) from the rollup row of the old
+ * state to the row of the new one. The changes of a transaction are netted per row and written
+ * just before it commits, inside it, so the rollup commits or rolls back together with the
+ * orders. They are written sorted by row key in one multi-row upsert, so two transactions moving
+ * orders between the same rows in opposite directions lock the rows in the same order instead of
+ * deadlocking.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class OrderRollupService {
+
+    private final OrderDailyRollupRepository orderDailyRollupRepository;
+    private final ManufacturingOrderRepository manufacturingOrderRepository;
+    private final ArchivedManufacturingOrderRepository archivedManufacturingOrderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @EventListener
+    public void onOrderChanged(ManufacturingOrderChangedEvent event) {
+        PendingDeltas pending = pendingDeltas();
+        pending.add(event.before(), -1);
+        pending.add(event.after(), 1);
+        pending.flushIfNoTransaction();
+    }
+
+    @EventListener
+    public void onOrdersChanged(ManufacturingOrdersBulkChangedEvent event) {
+        PendingDeltas pending = pendingDeltas();
+        for (ManufacturingOrderChangedEvent change : event.changes()) {
+            pending.add(change.before(), -1);
+            pending.add(change.after(), 1);
+        }
+        pending.flushIfNoTransaction();
+    }
+
+    // Orders of a deleted machine or product were removed by cascade without going through the order write path
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMachineChanged(MachineChangedEvent event) {
+        if (event.deleted()) {
+            orderDailyRollupRepository.deleteByMachineId(event.machineId());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            orderDailyRollupRepository.deleteByProductId(event.productId());
+        }
+    }
+
+    /**
+     * Fill the rollup on the first start after it was introduced.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (orderDailyRollupRepository.count() == 0 && manufacturingOrderRepository.count() > 0) {
+            int rows = rebuild();
+            log.info("Order rollup backfilled: {} rows", rows);
+        }
+    }
+
+    /**
+     * Recompute the whole rollup from the orders and archived orders tables. The archived orders
+     * are added row by row, as they may fall in the same rows as the active ones.
+     *
+     * @return Number of rollup rows written
+     */
+    @Transactional
+    public int rebuild() {
+        orderDailyRollupRepository.deleteAllRows();
+        int rows = orderDailyRollupRepository.backfill();
+        for (DailyRollupRow row : archivedManufacturingOrderRepository.sumGroupedByDay()) {
+            rows += orderDailyRollupRepository.increment(row.day(), row.status(), row.machineId(), row.productId(),
+                    row.orderCount(), row.quantitySum());
+        }
+        eventPublisher.publishEvent(new OrderRollupRebuiltEvent(rows));
+        return rows;
+    }
+
+    /**
+     * Remove the rows left at zero by orders moving to another status, machine or product.
+     *
+     * @return Number of rows removed
+     */
+    public int pruneEmptyRows() {
+        return orderDailyRollupRepository.deleteEmptyRows();
+    }
+
+    /**
+     * Deltas of the current transaction, written before it commits; without a transaction, a fresh
+     * instance that the caller writes immediately.
+     */
+    private PendingDeltas pendingDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new PendingDeltas(false);
+        }
+        PendingDeltas pending = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingDeltas(true);
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    // In the order of the rollup's unique key
+    record RowKey(LocalDate day, ManufacturingOrderStatus status, Long machineId, Long productId)
+            implements Comparable<RowKey> {
+        private static final Comparator<RowKey> ORDER = Comparator.comparing(RowKey::day)
+                .thenComparing(RowKey::status)
+                .thenComparing(RowKey::machineId)
+                .thenComparing(RowKey::productId);
+
+        @Override
+        public int compareTo(RowKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private final class PendingDeltas implements TransactionSynchronization {
+        private final boolean transactional;
+        private final Map<RowKey, long[]> deltas = new TreeMap<>();
+
+        private PendingDeltas(boolean transactional) {
+            this.transactional = transactional;
+        }
+
+        void add(ManufacturingOrderSnapshot order, int sign) {
+            if (order == null) {
+                return;
+            }
+            long[] delta = deltas.computeIfAbsent(new RowKey(order.date().toLocalDate(), order.status(),
+                    order.machineId(), order.productId()), key -> new long[2]);
+            delta[0] += sign;
+            delta[1] += (long) sign * order.quantity();
+        }
+
+        void flushIfNoTransaction() {
+            if (!transactional) {
+                write();
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            write();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(OrderRollupService.this);
+        }
+
+        private void write() {
+            // Changes that cancel out, e.g. an update within the same row, write nothing
+            List<DailyRollupRow> rows = new ArrayList<>(deltas.size());
+            deltas.forEach((key, delta) -> {
+                if (delta[0] != 0 || delta[1] != 0) {
+                    rows.add(new DailyRollupRow(key.day(), key.status(), key.machineId(), key.productId(),
+                            delta[0], delta[1]));
+                }
+            });
+            deltas.clear();
+            if (!rows.isEmpty()) {
+                orderDailyRollupRepository.incrementAll(rows);
+            }
+        }
+    }
+}
@@ -1,20 +1,36 @@
 package com.manufacturing.backend.service;
 
 
+import com.manufacturing.backend.common.CursorPage;
+import com.manufacturing.backend.common.KeysetCursor;
+import com.manufacturing.backend.common.ProductPatchPayload;
 import com.manufacturing.backend.common.ProductPayload;
+import com.manufacturing.backend.config.ObservabilityConfig;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersCascadeDeletedEvent;
+import com.manufacturing.backend.event.ProductChangedEvent;
 import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
 import com.manufacturing.backend.repository.ProductRepository;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
 
+@Observed(name = ObservabilityConfig.SERVICE_OBSERVATION)
 @Service
 @AllArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ManufacturingOrderRepository manufacturingOrderRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Retrieve all products.
@@ -25,6 +41,22 @@ public class ProductService {
         return this.productRepository.findAll();
     }
 
+    /**
+     * Retrieve one page of products ordered by ID.
+     *
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit  Page size
+     * @return Page of products and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor or the limit is invalid
+     */
+    public CursorPage<Product> findProductPage(String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.pageSize(limit);
+        List<Product> rows = this.productRepository.findByIdGreaterThanOrderByIdAsc(
+                after != null ? after.id() : 0L, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, product -> new KeysetCursor(null, product.getId()));
+    }
+
     /**
      * Save a new or updated product.
      *
@@ -37,8 +69,11 @@ public class ProductService {
         product.setType(payload.type());
         product.setStock(payload.stock());
         product.setSupplier(payload.supplier());
+        product.setReorderThreshold(payload.reorderThreshold());
 
-        return this.productRepository.save(product);
+        Product savedProduct = this.productRepository.save(product);
+        this.eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId(), false));
+        return savedProduct;
     }
 
     /**
@@ -54,32 +89,114 @@ public class ProductService {
 
     /**
      * Update an existing product.
+     * The loaded product is changed in place and flushed by dirty checking rather than merged, so
+     * its orders are never loaded or cascaded to.
+     *
+     * @param id              ID of the product to update
+     * @param product         Updated product data
+     * @param expectedVersion Version the client last saw, or null to skip the check
+     * @return Optional containing the updated product if found, empty otherwise
+     * @throws IllegalArgumentException if the stock would be lower than the units reserved by open orders
+     * @throws OptimisticLockingFailureException if the product was modified by someone else
+     */
+    @Transactional
+    public Optional<Product> updateProduct(Long id, ProductPayload product, Long expectedVersion) {
+        return productRepository.findForUpdateById(id)
+                .map(productToUpdate -> {
+                    checkVersion(productToUpdate, expectedVersion);
+                    checkStock(productToUpdate, product.stock());
+                    productToUpdate.setName(product.name());
+                    productToUpdate.setType(product.type());
+                    productToUpdate.setStock(product.stock());
+                    productToUpdate.setSupplier(product.supplier());
+                    if (product.reorderThreshold() != null) {
+                        productToUpdate.setReorderThreshold(product.reorderThreshold());
+                    } else if (productToUpdate.getReorderThreshold() == null) {
+                        productToUpdate.setReorderThreshold(product.type().defaultReorderThreshold());
+                    }
+                    eventPublisher.publishEvent(new ProductChangedEvent(id, false));
+                    return productToUpdate;
+                });
+    }
+
+    /**
+     * Change only the given fields of a product.
+     * Issues a single UPDATE of the changed columns, or none when nothing changed.
      *
-     * @param id      ID of the product to update
-     * @param product Updated product data
+     * @param id              ID of the product to update
+     * @param patch           Fields to change; null fields are left unchanged
+     * @param expectedVersion Version the client last saw, or null to skip the check
      * @return Optional containing the updated product if found, empty otherwise
+     * @throws IllegalArgumentException if the stock would be lower than the units reserved by open orders
+     * @throws OptimisticLockingFailureException if the product was modified by someone else
      */
-    public Optional<Product> updateProduct(Long id, ProductPayload product) {
-        Product productToUpdate = new Product();
-        productToUpdate.setId(id);
-        productToUpdate.setName(product.name());
-        productToUpdate.setType(product.type());
-        productToUpdate.setStock(product.stock());
-        productToUpdate.setSupplier(product.supplier());
-
-        return productRepository.findById(id)
-                .map(existingProduct -> {
-                    productToUpdate.setId(id); 
-                    return productRepository.save(productToUpdate);
+    @Transactional
+    public Optional<Product> patchProduct(Long id, ProductPatchPayload patch, Long expectedVersion) {
+        return productRepository.findForUpdateById(id)
+                .map(product -> {
+                    checkVersion(product, expectedVersion);
+                    boolean changed = false;
+                    if (patch.name() != null && !patch.name().equals(product.getName())) {
+                        product.setName(patch.name());
+                        changed = true;
+                    }
+                    if (patch.type() != null && patch.type() != product.getType()) {
+                        product.setType(patch.type());
+                        changed = true;
+                    }
+                    if (patch.stock() != null && patch.stock() != product.getStock()) {
+                        checkStock(product, patch.stock());
+                        product.setStock(patch.stock());
+                        changed = true;
+                    }
+                    if (patch.supplier() != null && !patch.supplier().equals(product.getSupplier())) {
+                        product.setSupplier(patch.supplier());
+                        changed = true;
+                    }
+                    if (patch.reorderThreshold() != null && !patch.reorderThreshold().equals(product.getReorderThreshold())) {
+                        product.setReorderThreshold(patch.reorderThreshold());
+                        changed = true;
+                    }
+                    if (changed) {
+                        eventPublisher.publishEvent(new ProductChangedEvent(id, false));
+                    }
+                    return product;
                 });
     }
 
     /**
-     * Delete a product by its ID.
+     * Delete a product by its ID, together with its orders, whose deletion is published first since
+     * the cascade removes them without going through the order events.
      *
-     * @param id Product ID to delete
+     * @param id              Product ID to delete
+     * @param expectedVersion Version the client last saw, or null to skip the check
+     * @throws OptimisticLockingFailureException if the product was modified by someone else
      */
-    public void deleteProduct(Long id) {
-        this.productRepository.deleteById(id);
+    @Transactional
+    public void deleteProduct(Long id, Long expectedVersion) {
+        this.productRepository.findById(id).ifPresent(product -> {
+            checkVersion(product, expectedVersion);
+            List<ManufacturingOrderSnapshot> orders = this.manufacturingOrderRepository.findSnapshotsByProductId(id);
+            if (!orders.isEmpty()) {
+                this.eventPublisher.publishEvent(new ManufacturingOrdersCascadeDeletedEvent(orders));
+            }
+            this.productRepository.delete(product);
+            this.eventPublisher.publishEvent(new ProductChangedEvent(id, true));
+        });
+    }
+
+    // The product is locked, so no reservation can be added between this check and the commit
+    private static void checkStock(Product product, int stock) {
+        if (stock < product.getReservedStock()) {
+            throw new IllegalArgumentException("Stock of product with ID: " + product.getId() + " cannot be less than the "
+                    + product.getReservedStock() + " units reserved by open orders");
+        }
+    }
+
+    private static void checkVersion(Product product, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new OptimisticLockingFailureException("Product with ID " + product.getId()
+                    + " is at version " + product.getVersion() + ", not " + expectedVersion);
+        }
     }
 }
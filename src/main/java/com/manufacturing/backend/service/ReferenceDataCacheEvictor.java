@@ -0,0 +1,42 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.config.CacheConfig;
+import com.manufacturing.backend.event.MachineChangedEvent;
+import com.manufacturing.backend.event.ProductChangedEvent;
+import lombok.AllArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts cached products and machines once a change to them is committed. Evicting after commit
+ * (rather than inside the writing transaction) keeps concurrent readers from re-caching the
+ * previous state; the cache TTL bounds how long a read racing with the commit can stay stale.
+ */
+@Component
+@AllArgsConstructor
+public class ReferenceDataCacheEvictor {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Cached references carry no stock, so reservations leave them valid
+        if (!event.stockOnly()) {
+            evict(CacheConfig.PRODUCTS_CACHE, event.productId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMachineChanged(MachineChangedEvent event) {
+        evict(CacheConfig.MACHINES_CACHE, event.machineId());
+    }
+
+    private void evict(String cacheName, Long id) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(id);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.event.MachineChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrdersArchivedEvent;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
+import com.manufacturing.backend.event.OrderRollupRebuiltEvent;
+import com.manufacturing.backend.event.ProductChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version and last change time of each resource, so unchanged GETs can be answered with
+ * 304 Not Modified before any query runs.
+ * <p>
+ * Versions are bumped by the change events of the write paths, after the transaction has
+ * completed and every after-commit listener (such as {@link KpiStore}) has run: a tag read
+ * before a request computes its body can therefore only be older than the data, never newer.
+ * ETags carry the process start time, so they do not survive a restart.
+ */
+@Component
+public class ResourceVersionTracker {
+
+    public enum Resource {
+        PRODUCTS,
+        MACHINES,
+        ORDERS
+    }
+
+    /**
+     * Validators for a response.
+     *
+     * @param eTag         Strong entity tag, unquoted
+     * @param lastModified Time of the last change in epoch milliseconds, or -1 if it should not be sent
+     */
+    public record Tag(String eTag, long lastModified) {}
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Resource, Tracked> tracked = new EnumMap<>(Resource.class);
+
+    public ResourceVersionTracker() {
+        for (Resource resource : Resource.values()) {
+            tracked.put(resource, new Tracked());
+        }
+    }
+
+    /**
+     * Current validators of a response built from the given resources.
+     */
+    public Tag tag(Resource... resources) {
+        return tag(null, resources);
+    }
+
+    /**
+     * Current validators of a response built from the given resources and from a value not
+     * tracked here, e.g. the current date. No Last-Modified is given for such a response.
+     *
+     * @param variant Value the response also depends on, or null
+     */
+    public Tag tag(Object variant, Resource... resources) {
+        StringBuilder eTag = new StringBuilder(instance);
+        long lastModified = 0;
+        for (Resource resource : resources) {
+            Tracked state = tracked.get(resource);
+            eTag.append('-').append(resource.ordinal()).append('.').append(state.version.get());
+            lastModified = Math.max(lastModified, state.lastModified.get());
+        }
+        if (variant != null) {
+            eTag.append('-').append(variant);
+            return new Tag(eTag.toString(), -1);
+        }
+        // HTTP dates have second precision: until that second is over, another change could
+        // share the date, so only the ETag is sent
+        long second = lastModified - lastModified % 1000;
+        return new Tag(eTag.toString(), System.currentTimeMillis() >= second + 1000 ? second : -1);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onOrderChanged(ManufacturingOrderChangedEvent event) {
+        bump(Resource.ORDERS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onOrdersChanged(ManufacturingOrdersBulkChangedEvent event) {
+        bump(Resource.ORDERS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onOrdersArchived(ManufacturingOrdersArchivedEvent event) {
+        bump(Resource.ORDERS);
+    }
+
+    // The trend is read from the rollup, which a rebuild may change without any order changing
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onOrderRollupRebuilt(OrderRollupRebuiltEvent event) {
+        bump(Resource.ORDERS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onMachineChanged(MachineChangedEvent event) {
+        bump(Resource.MACHINES);
+        if (event.deleted()) {
+            bump(Resource.ORDERS);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bump(Resource.PRODUCTS);
+        if (event.deleted()) {
+            bump(Resource.ORDERS);
+        }
+    }
+
+    // Also called after a rollback, which only costs clients one full response
+    private void bump(Resource resource) {
+        Tracked state = tracked.get(resource);
+        state.version.incrementAndGet();
+        state.lastModified.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+
+    private static final class Tracked {
+        private final AtomicLong version = new AtomicLong();
+        // Changes made before this process started are not known, so start from the start time
+        private final AtomicLong lastModified = new AtomicLong(System.currentTimeMillis());
+    }
+}
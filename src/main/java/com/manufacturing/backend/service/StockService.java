@@ -0,0 +1,179 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.config.ObservabilityConfig;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ProductChangedEvent;
+import com.manufacturing.backend.repository.ProductRepository;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.transaction.Transactional;
+import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keeps {@code Product.stock} and {@code Product.reservedStock} in line with the orders.
+ * <p>
+ * Open orders reserve their quantity, completing an order consumes it and voiding or deleting
+ * an open order releases it. Every change is a single conditional UPDATE, so concurrent orders
+ * on the same product serialize on the row lock and can never oversell.
+ */
+@Observed(name = ObservabilityConfig.SERVICE_OBSERVATION)
+@Service
+@AllArgsConstructor
+public class StockService {
+    private static final Set<ManufacturingOrderStatus> RESERVING_STATUSES = EnumSet.of(
+            ManufacturingOrderStatus.AWAITING_APPROVAL,
+            ManufacturingOrderStatus.PLANNED,
+            ManufacturingOrderStatus.IN_PROGRESS
+    );
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Try to reserve stock for a new order.
+     *
+     * @param productId Product ID
+     * @param quantity  Units to reserve
+     * @return true if reserved, false if not enough stock is available
+     */
+    @Transactional
+    public boolean tryReserve(Long productId, int quantity) {
+        if (productRepository.reserveStock(productId, quantity) == 0) {
+            return false;
+        }
+        changed(productId);
+        return true;
+    }
+
+    /**
+     * Apply the stock effect of an order change.
+     *
+     * @param before Order before the change, null for a creation
+     * @param after  Order after the change, null for a deletion
+     * @throws IllegalArgumentException if not enough stock is available
+     */
+    @Transactional
+    public void applyOrderChange(ManufacturingOrderSnapshot before, ManufacturingOrderSnapshot after) {
+        boolean heldBefore = before != null && RESERVING_STATUSES.contains(before.status());
+        boolean heldAfter = after != null && RESERVING_STATUSES.contains(after.status());
+        boolean completedBefore = before != null && before.status() == ManufacturingOrderStatus.COMPLETED;
+        boolean completedAfter = after != null && after.status() == ManufacturingOrderStatus.COMPLETED;
+        boolean sameProduct = before != null && after != null && Objects.equals(before.productId(), after.productId());
+
+        if (heldBefore && heldAfter && sameProduct) {
+            int delta = after.quantity() - before.quantity();
+            if (delta > 0) {
+                reserve(after.productId(), delta);
+            } else if (delta < 0) {
+                productRepository.releaseStock(after.productId(), -delta);
+                changed(after.productId());
+            }
+            return;
+        }
+        if (heldBefore && completedAfter && sameProduct && before.quantity() == after.quantity()) {
+            if (productRepository.consumeReservedStock(after.productId(), after.quantity()) == 0) {
+                throw insufficientStock(after.productId());
+            }
+            changed(after.productId());
+            return;
+        }
+        if (completedBefore && completedAfter) {
+            return;
+        }
+
+        // General case: undo the effect of the previous state, then apply the new one
+        if (heldBefore) {
+            productRepository.releaseStock(before.productId(), before.quantity());
+            changed(before.productId());
+        } else if (completedBefore && after != null) {
+            productRepository.restock(before.productId(), before.quantity());
+            changed(before.productId());
+        }
+        if (heldAfter) {
+            reserve(after.productId(), after.quantity());
+        } else if (completedAfter) {
+            if (productRepository.consumeStock(after.productId(), after.quantity()) == 0) {
+                throw insufficientStock(after.productId());
+            }
+            changed(after.productId());
+        }
+    }
+
+    /**
+     * Apply the stock effect of many status changes, with one UPDATE per product instead of one per
+     * order. Quantities and products must be the same before and after each change.
+     *
+     * @throws IllegalArgumentException if not enough stock is available
+     */
+    @Transactional
+    public void applyStatusChanges(List<ManufacturingOrderChangedEvent> changes) {
+        Map<Long, Integer> released = new HashMap<>();
+        Map<Long, Integer> consumed = new HashMap<>();
+        for (ManufacturingOrderChangedEvent change : changes) {
+            ManufacturingOrderSnapshot before = change.before();
+            ManufacturingOrderSnapshot after = change.after();
+            if (!RESERVING_STATUSES.contains(before.status()) || RESERVING_STATUSES.contains(after.status())) {
+                applyOrderChange(before, after);
+            } else if (after.status() == ManufacturingOrderStatus.COMPLETED) {
+                consumed.merge(after.productId(), after.quantity(), Math::addExact);
+            } else {
+                released.merge(after.productId(), after.quantity(), Math::addExact);
+            }
+        }
+        released.forEach((productId, quantity) -> {
+            productRepository.releaseStock(productId, quantity);
+            changed(productId);
+        });
+        consumed.forEach((productId, quantity) -> {
+            if (productRepository.consumeReservedStock(productId, quantity) == 0) {
+                throw insufficientStock(productId);
+            }
+            changed(productId);
+        });
+    }
+
+    /**
+     * Release the units reserved by orders about to be deleted without going through
+     * {@link #applyOrderChange}, e.g. by the cascade of a machine deletion, with one UPDATE per
+     * product.
+     */
+    @Transactional
+    public void releaseReservations(Collection<ManufacturingOrderSnapshot> orders) {
+        Map<Long, Integer> released = new HashMap<>();
+        for (ManufacturingOrderSnapshot order : orders) {
+            if (RESERVING_STATUSES.contains(order.status())) {
+                released.merge(order.productId(), order.quantity(), Math::addExact);
+            }
+        }
+        released.forEach((productId, quantity) -> {
+            productRepository.releaseStock(productId, quantity);
+            changed(productId);
+        });
+    }
+
+    private void reserve(Long productId, int quantity) {
+        if (productRepository.reserveStock(productId, quantity) == 0) {
+            throw insufficientStock(productId);
+        }
+        changed(productId);
+    }
+
+    private void changed(Long productId) {
+        eventPublisher.publishEvent(ProductChangedEvent.stockChanged(productId));
+    }
+
+    private static IllegalArgumentException insufficientStock(Long productId) {
+        return new IllegalArgumentException("Insufficient stock for product with ID: " + productId);
+    }
+}
@@ -0,0 +1,187 @@
+package com.manufacturing.backend;
+
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import com.manufacturing.backend.repository.ProductRepository;
+import com.manufacturing.backend.service.KpiStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares throughput and p99 latency of the order list and KPI endpoints with Tomcat on
+ * platform threads and on virtual threads, each time booting the application on an embedded
+ * H2 database seeded with the same data.
+ * <p>
+ * Run with {@code mvn -Pload-test,java21 test} on Java 21+; on older JVMs only the platform
+ * thread mode runs. Tune with {@code -Dload.concurrency}, {@code -Dload.requests} and
+ * {@code -Dload.orders}.
+ */
+@Tag("load")
+class ThreadingModeLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 400);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 20_000);
+    private static final int ORDERS = Integer.getInteger("load.orders", 20_000);
+    private static final int WARMUP_REQUESTS = 2_000;
+
+    private static final List<String> PATHS = List.of(
+            "/api/manufacturing-orders/?limit=50",
+            "/api/manufacturing-orders/?status=PLANNED&limit=50",
+            "/api/kpis/orders-status-count",
+            "/api/kpis/machine-status-count",
+            "/api/kpis/product-stock-alerts",
+            "/api/kpis/employee-workload",
+            "/api/kpis/orders-trend",
+            "/api/kpis/machine-utilization"
+    );
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        Map<String, Result> results = new LinkedHashMap<>();
+        results.put("platform", run("platform", false));
+        if (Runtime.version().feature() >= 21) {
+            results.put("virtual", run("virtual", true));
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + ": skipping the virtual thread mode");
+        }
+
+        System.out.printf("%n%-10s %10s %12s %10s %10s %8s%n", "mode", "requests", "req/s", "p50 ms", "p99 ms", "errors");
+        results.forEach((mode, result) -> System.out.printf("%-10s %10d %12.0f %10.1f %10.1f %8d%n",
+                mode, result.requests(), result.throughput(), result.p50Millis(), result.p99Millis(), result.errors()));
+
+        results.values().forEach(result -> assertThat(result.errors()).isZero());
+    }
+
+    private static Result run(String mode, boolean virtualThreads) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(BackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+                );
+        if (virtualThreads) {
+            builder.profiles("virtual-threads");
+        }
+        try (ConfigurableApplicationContext context = builder.run()) {
+            seed(context);
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(8);
+            try {
+                HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+                fire(client, port, WARMUP_REQUESTS);
+                return fire(client, port, REQUESTS);
+            } finally {
+                clientExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        MachineRepository machineRepository = context.getBean(MachineRepository.class);
+        ManufacturingOrderRepository orderRepository = context.getBean(ManufacturingOrderRepository.class);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            products.add(Product.builder().name("Product " + i).type(ProductType.values()[i % ProductType.values().length])
+                    .stock(i).supplier("Supplier " + i % 5).build());
+        }
+        products = productRepository.saveAll(products);
+        List<Machine> machines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            machines.add(Machine.builder().name("Machine " + i)
+                    .status(MachineStatus.values()[i % MachineStatus.values().length]).build());
+        }
+        machines = machineRepository.saveAll(machines);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime start = LocalDateTime.now().minusDays(90);
+        List<ManufacturingOrder> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            ManufacturingOrder order = new ManufacturingOrder();
+            order.setProject("Project " + i % 100);
+            order.setStatus(ManufacturingOrderStatus.values()[i % ManufacturingOrderStatus.values().length]);
+            order.setQuantity(1 + random.nextInt(100));
+            order.setDate(start.plusMinutes(random.nextInt(90 * 24 * 60)));
+            order.setProduct(products.get(random.nextInt(products.size())));
+            order.setMachine(machines.get(random.nextInt(machines.size())));
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+        // The KPI store was loaded at startup, before the seed data existed
+        context.getBean(KpiStore.class).rebuild();
+    }
+
+    private static Result fire(HttpClient client, int port, int requests) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>(CONCURRENCY);
+
+        long startedAt = System.nanoTime();
+        for (int w = 0; w < CONCURRENCY; w++) {
+            workers.add(clients.submit(() -> {
+                for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                    HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + PATHS.get(i % PATHS.size()))).GET().build();
+                    long sentAt = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception ex) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - sentAt;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.MINUTES);
+
+        Arrays.sort(latencies);
+        return new Result(requests, requests * 1e9 / elapsedNanos,
+                latencies[(int) (requests * 0.50)] / 1e6, latencies[(int) (requests * 0.99)] / 1e6, errors.get());
+    }
+
+    private record Result(int requests, double throughput, double p50Millis, double p99Millis, int errors) {}
+}
@@ -0,0 +1,96 @@
+package com.manufacturing.backend.controller;
+
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.repository.MachineRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class KpiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MachineRepository machineRepository;
+
+    @AfterEach
+    void tearDown() {
+        machineRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void countsAreNotModifiedUntilAWriteBumpsTheTag() throws Exception {
+        Machine press = machineRepository.save(Machine.builder()
+                .name("Press").status(MachineStatus.OPERATIONAL).build());
+        MvcResult first = awaitLastModified("/api/kpis/machine-status-count");
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/api/kpis/machine-status-count").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/kpis/machine-status-count").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(patch("/api/machines/{id}", press.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\": \"ERROR\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/kpis/machine-status-count").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ERROR").value(1));
+        // Within the second of the change no Last-Modified is sent, so If-Modified-Since cannot match
+        mockMvc.perform(get("/api/kpis/machine-status-count").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void rebuildingTheRollupInvalidatesTheTrend() throws Exception {
+        String eTag = mockMvc.perform(get("/api/kpis/orders-trend"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+
+        mockMvc.perform(post("/api/kpis/orders-trend/rebuild"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/kpis/orders-trend").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    // Last-Modified is left out until the second of the last change is over
+    private MvcResult awaitLastModified(String path) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(3).toNanos();
+        MvcResult result = mockMvc.perform(get(path)).andExpect(status().isOk()).andReturn();
+        while (result.getResponse().getHeader(HttpHeaders.LAST_MODIFIED) == null) {
+            assertThat(System.nanoTime()).as("Last-Modified of " + path).isLessThan(deadline);
+            Thread.sleep(50);
+            result = mockMvc.perform(get(path)).andExpect(status().isOk()).andReturn();
+        }
+        return result;
+    }
+}
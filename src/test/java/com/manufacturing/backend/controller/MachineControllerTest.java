@@ -0,0 +1,182 @@
+package com.manufacturing.backend.controller;
+
+import com.manufacturing.backend.common.CreateManufacturingOrderPayload;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.OrderEventType;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.OrderEvent;
+import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import com.manufacturing.backend.repository.OrderEventRepository;
+import com.manufacturing.backend.repository.ProductRepository;
+import com.manufacturing.backend.service.ManufacturingOrderService;
+import com.manufacturing.backend.service.OrderEventLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class MachineControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MachineRepository machineRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ManufacturingOrderRepository manufacturingOrderRepository;
+
+    @Autowired
+    private ManufacturingOrderService manufacturingOrderService;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    private Machine press;
+
+    @BeforeEach
+    void setUp() {
+        press = machineRepository.save(Machine.builder()
+                .name("Press").status(MachineStatus.OPERATIONAL).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        manufacturingOrderRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        machineRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void listIsNotModifiedUntilAMachineChanges() throws Exception {
+        String eTag = mockMvc.perform(get("/api/machines/"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+
+        mockMvc.perform(get("/api/machines/").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(patch("/api/machines/{id}", press.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\": \"IDLE\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/machines/").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].status").value("IDLE"));
+    }
+
+    @Test
+    void writesReturnTheVersionAsETag() throws Exception {
+        mockMvc.perform(patch("/api/machines/{id}", press.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\": \"UNDER_SERVICE\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.status").value("UNDER_SERVICE"));
+        mockMvc.perform(put("/api/machines/{id}", press.getId())
+                        .header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Press 2\", \"status\": \"OPERATIONAL\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+    }
+
+    @Test
+    void rejectsWritesAgainstAStaleVersion() throws Exception {
+        mockMvc.perform(patch("/api/machines/{id}", press.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\": \"ERROR\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(put("/api/machines/{id}", press.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Press 2\", \"status\": \"ERROR\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(delete("/api/machines/{id}", press.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"3\""))
+                .andExpect(status().isConflict());
+
+        Machine unchanged = machineRepository.findById(press.getId()).orElseThrow();
+        assertThat(unchanged.getStatus()).isEqualTo(MachineStatus.OPERATIONAL);
+        assertThat(unchanged.getVersion()).isZero();
+
+        // "*" matches any version
+        mockMvc.perform(delete("/api/machines/{id}", press.getId())
+                        .header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isOk());
+        assertThat(machineRepository.existsById(press.getId())).isFalse();
+    }
+
+    @Test
+    void deletingAMachineReleasesTheStockOfItsOpenOrders() throws Exception {
+        Product bolt = productRepository.save(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(100).supplier("Acme").build());
+        Machine lathe = machineRepository.save(Machine.builder()
+                .name("Lathe").status(MachineStatus.OPERATIONAL).build());
+        LocalDateTime date = LocalDateTime.of(2025, 3, 1, 8, 0);
+        manufacturingOrderService.createOrder(new CreateManufacturingOrderPayload("Alpha", 7, date, bolt.getId(), press.getId()));
+        manufacturingOrderService.createOrder(new CreateManufacturingOrderPayload("Alpha", 5, date, bolt.getId(), press.getId()));
+        manufacturingOrderService.createOrder(new CreateManufacturingOrderPayload("Beta", 3, date, bolt.getId(), lathe.getId()));
+        assertThat(productRepository.findById(bolt.getId()).orElseThrow().getReservedStock()).isEqualTo(15);
+
+        mockMvc.perform(delete("/api/machines/{id}", press.getId()))
+                .andExpect(status().isOk());
+
+        // The order on the other machine keeps its reservation
+        assertThat(productRepository.findById(bolt.getId()).orElseThrow().getReservedStock()).isEqualTo(3);
+        assertThat(manufacturingOrderRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void deletingAMachineLogsTheDeletionOfItsOrders() throws Exception {
+        Product bolt = productRepository.save(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(100).supplier("Acme").build());
+        ManufacturingOrder order = manufacturingOrderService.createOrder(new CreateManufacturingOrderPayload(
+                "Alpha", 7, LocalDateTime.of(2025, 3, 1, 8, 0), bolt.getId(), press.getId()));
+
+        mockMvc.perform(delete("/api/machines/{id}", press.getId()))
+                .andExpect(status().isOk());
+        orderEventLog.flush();
+
+        assertThat(orderEventRepository.findByOrderIdOrderByOccurredAtAsc(order.getId()))
+                .extracting(OrderEvent::getType)
+                .containsExactly(OrderEventType.CREATED, OrderEventType.DELETED);
+    }
+}
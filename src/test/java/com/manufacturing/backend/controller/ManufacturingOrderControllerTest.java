@@ -0,0 +1,289 @@
+package com.manufacturing.backend.controller;
+
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.ArchivedManufacturingOrderRepository;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import com.manufacturing.backend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class ManufacturingOrderControllerTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ManufacturingOrderRepository manufacturingOrderRepository;
+
+    @Autowired
+    private ArchivedManufacturingOrderRepository archivedManufacturingOrderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MachineRepository machineRepository;
+
+    private Product bolt;
+    private Machine press;
+    private List<Long> orderIds;
+
+    @BeforeEach
+    void setUp() {
+        bolt = productRepository.save(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(100).supplier("Acme").build());
+        press = machineRepository.save(Machine.builder()
+                .name("Press").status(MachineStatus.OPERATIONAL).build());
+        orderIds = manufacturingOrderRepository.saveAll(List.of(
+                order("Alpha", ManufacturingOrderStatus.PLANNED, DAY),
+                order("Line 2, \"north\"", ManufacturingOrderStatus.COMPLETED, DAY.plusDays(1)),
+                order("Gamma", ManufacturingOrderStatus.IN_PROGRESS, DAY.plusDays(2))
+        )).stream().map(ManufacturingOrder::getId).toList();
+    }
+
+    @AfterEach
+    void tearDown() {
+        manufacturingOrderRepository.deleteAllInBatch();
+        archivedManufacturingOrderRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        machineRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void exportsNdjsonRowByRow() throws Exception {
+        String body = export("NDJSON", null, "application/x-ndjson", "manufacturing-orders.ndjson");
+
+        List<String> lines = body.lines().toList();
+        assertThat(body).endsWith("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0))
+                .startsWith("{\"id\":" + orderIds.get(0) + ",\"project\":\"Alpha\",\"status\":\"PLANNED\",\"quantity\":2,")
+                .contains("\"productId\":" + bolt.getId(), "\"productName\":\"Bolt\"",
+                        "\"machineId\":" + press.getId(), "\"machineName\":\"Press\"");
+        assertThat(lines.get(2)).startsWith("{\"id\":" + orderIds.get(2) + ",");
+    }
+
+    @Test
+    void exportsCsvWithHeaderAndQuoting() throws Exception {
+        String body = export("CSV", null, "text/csv", "manufacturing-orders.csv");
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0))
+                .isEqualTo("id,project,status,quantity,date,productId,productName,machineId,machineName,createdAt,updatedAt");
+        assertThat(lines.get(1)).startsWith(orderIds.get(0) + ",Alpha,PLANNED,2,2025-03-01T08:00,"
+                + bolt.getId() + ",Bolt," + press.getId() + ",Press,");
+        assertThat(lines.get(2)).startsWith(orderIds.get(1) + ",\"Line 2, \"\"north\"\"\",COMPLETED,2,");
+    }
+
+    @Test
+    void exportsOnlyOrdersModifiedSince() throws Exception {
+        jdbcTemplate.update("update manufacturing_order set updated_at = ?", LocalDateTime.of(2020, 1, 1, 0, 0));
+        jdbcTemplate.update("update manufacturing_order set updated_at = ? where id = ?",
+                LocalDateTime.of(2024, 6, 1, 0, 0), orderIds.get(1));
+
+        String body = export("NDJSON", "2024-01-01T00:00:00", "application/x-ndjson", "manufacturing-orders.ndjson");
+
+        assertThat(body.lines()).singleElement().asString().startsWith("{\"id\":" + orderIds.get(1) + ",");
+    }
+
+    @Test
+    void exportsArchivedOrdersAndListsThemOnRequest() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            archivedManufacturingOrderRepository.copyFromOrders(List.of(orderIds.get(1)));
+            manufacturingOrderRepository.deleteAllByIdInBatch(List.of(orderIds.get(1)));
+        });
+
+        List<String> lines = export("CSV", null, "text/csv", "manufacturing-orders.csv").lines().toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(1)).startsWith(orderIds.get(0) + ",");
+        assertThat(lines.get(2)).startsWith(orderIds.get(1) + ",\"Line 2, \"\"north\"\"\",COMPLETED,2,2025-03-02T08:00,"
+                + bolt.getId() + ",Bolt," + press.getId() + ",Press,");
+        assertThat(lines.get(3)).startsWith(orderIds.get(2) + ",");
+
+        mockMvc.perform(get("/api/manufacturing-orders/").param("fields", "id"))
+                .andExpect(jsonPath("$.items[*].id").value(contains(orderIds.get(0).intValue(), orderIds.get(2).intValue())));
+        mockMvc.perform(get("/api/manufacturing-orders/").param("fields", "id").param("includeArchived", "true"))
+                .andExpect(jsonPath("$.items[*].id").value(contains(
+                        orderIds.get(0).intValue(), orderIds.get(1).intValue(), orderIds.get(2).intValue())));
+    }
+
+    @Test
+    void listsSparseFieldsetsAndIdOnlyReferences() throws Exception {
+        mockMvc.perform(get("/api/manufacturing-orders/").param("fields", "id,status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.items[0].length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(orderIds.get(0)))
+                .andExpect(jsonPath("$.items[0].status").value("PLANNED"));
+        mockMvc.perform(get("/api/manufacturing-orders/").param("fields", "product,machine").param("refs", "IDS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].length()").value(2))
+                .andExpect(jsonPath("$.items[0].product.length()").value(1))
+                .andExpect(jsonPath("$.items[0].product.id").value(bolt.getId()))
+                .andExpect(jsonPath("$.items[0].machine.length()").value(1))
+                .andExpect(jsonPath("$.items[0].machine.id").value(press.getId()));
+        mockMvc.perform(get("/api/manufacturing-orders/").param("fields", "id,colour"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown field: colour"));
+    }
+
+    @Test
+    void rejectsOrdersOnAMachineThatDoesNotAcceptThem() throws Exception {
+        Machine broken = machineRepository.save(Machine.builder()
+                .name("Lathe").status(MachineStatus.UNDER_SERVICE).build());
+        String error = "Machine with ID: " + broken.getId() + " does not accept orders while UNDER_SERVICE";
+
+        mockMvc.perform(post("/api/manufacturing-orders/")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batchItem(bolt.getId(), broken.getId(), 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(error));
+        mockMvc.perform(put("/api/manufacturing-orders/{id}", orderIds.get(0))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"project\": \"Alpha\", \"status\": \"PLANNED\", \"quantity\": 2, "
+                                + "\"date\": \"2025-03-01T08:00:00\", \"productId\": " + bolt.getId()
+                                + ", \"machineId\": " + broken.getId() + "}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(error));
+
+        assertThat(manufacturingOrderRepository.count()).isEqualTo(orderIds.size());
+        assertThat(manufacturingOrderRepository.findById(orderIds.get(0)).orElseThrow().getMachine().getId())
+                .isEqualTo(press.getId());
+    }
+
+    @Test
+    void batchCreatesValidOrdersAndReportsTheOthers() throws Exception {
+        Machine broken = machineRepository.save(Machine.builder()
+                .name("Lathe").status(MachineStatus.ERROR).build());
+        String orders = String.join(",",
+                batchItem(bolt.getId(), press.getId(), 40),
+                batchItem(9999L, press.getId(), 1),
+                batchItem(bolt.getId(), broken.getId(), 1),
+                batchItem(bolt.getId(), press.getId(), 70),
+                batchItem(bolt.getId(), press.getId(), 60));
+
+        mockMvc.perform(post("/api/manufacturing-orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orders\": [" + orders + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[*].index").value(contains(0, 1, 2, 3, 4)))
+                .andExpect(jsonPath("$[0].id").isNumber())
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].error").value("Product not found with ID: 9999"))
+                .andExpect(jsonPath("$[2].error").value("Machine with ID: " + broken.getId()
+                        + " does not accept orders while ERROR"))
+                // 40 of the 100 in stock are reserved by the first order
+                .andExpect(jsonPath("$[3].error").value("Insufficient stock for product with ID: " + bolt.getId()))
+                .andExpect(jsonPath("$[4].id").isNumber());
+
+        assertThat(manufacturingOrderRepository.count()).isEqualTo(orderIds.size() + 2);
+        assertThat(productRepository.findById(bolt.getId()).orElseThrow().getReservedStock()).isEqualTo(100);
+    }
+
+    @Test
+    void batchRejectsAnInvalidItemAsAWhole() throws Exception {
+        mockMvc.perform(post("/api/manufacturing-orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orders\": [" + batchItem(bolt.getId(), press.getId(), 1) + ","
+                                + batchItem(bolt.getId(), press.getId(), 0) + "]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/manufacturing-orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orders\": []}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.orders").value("Orders are required"));
+
+        assertThat(manufacturingOrderRepository.count()).isEqualTo(orderIds.size());
+    }
+
+    @Test
+    void updatesStatusUnderIfMatch() throws Exception {
+        mockMvc.perform(put("/api/manufacturing-orders/{id}/status", orderIds.get(0))
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("\"IN_PROGRESS\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.status").value("IN_PROGRESS"));
+        mockMvc.perform(put("/api/manufacturing-orders/{id}/status", orderIds.get(0))
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("\"COMPLETED\""))
+                .andExpect(status().isConflict());
+        mockMvc.perform(put("/api/manufacturing-orders/{id}/status", 9999L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("\"COMPLETED\""))
+                .andExpect(status().isNotFound());
+    }
+
+    private static String batchItem(Long productId, Long machineId, int quantity) {
+        return "{\"project\": \"Batch\", \"quantity\": " + quantity + ", \"date\": \"2025-04-01T08:00:00\", "
+                + "\"productId\": " + productId + ", \"machineId\": " + machineId + "}";
+    }
+
+    private String export(String format, String since, String contentType, String fileName) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/manufacturing-orders/export")
+                        .param("format", format)
+                        .param("since", since))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, contentType))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\""))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private ManufacturingOrder order(String project, ManufacturingOrderStatus status, LocalDateTime date) {
+        return ManufacturingOrder.builder()
+                .project(project).status(status).quantity(2).date(date).product(bolt).machine(press).build();
+    }
+}
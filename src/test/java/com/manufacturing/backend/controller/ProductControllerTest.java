@@ -0,0 +1,175 @@
+package com.manufacturing.backend.controller;
+
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class ProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Product bolt;
+
+    @BeforeEach
+    void setUp() {
+        bolt = productRepository.save(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(100).supplier("Acme").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void listIsNotModifiedUntilAProductChanges() throws Exception {
+        String eTag = mockMvc.perform(get("/api/products/"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("Bolt"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+
+        mockMvc.perform(get("/api/products/").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(patch("/api/products/{id}", bolt.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stock\": 80}"))
+                .andExpect(status().isOk());
+
+        String changed = mockMvc.perform(get("/api/products/").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].stock").value(80))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void writesReturnTheVersionAsETag() throws Exception {
+        mockMvc.perform(patch("/api/products/{id}", bolt.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stock\": 80}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.stock").value(80));
+        mockMvc.perform(put("/api/products/{id}", bolt.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Hex bolt\", \"type\": \"COMPONENT\", \"stock\": 80, \"supplier\": \"Acme\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+    }
+
+    @Test
+    void putKeepsTheReorderThresholdWhenOmitted() throws Exception {
+        mockMvc.perform(patch("/api/products/{id}", bolt.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"reorderThreshold\": 42}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/products/{id}", bolt.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Bolt\", \"type\": \"MODULE\", \"stock\": 90, \"supplier\": \"Acme\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reorderThreshold").value(42));
+        mockMvc.perform(put("/api/products/{id}", bolt.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Bolt\", \"type\": \"MODULE\", \"stock\": 90, \"supplier\": \"Acme\", \"reorderThreshold\": 7}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reorderThreshold").value(7));
+    }
+
+    @Test
+    void rejectsStockBelowTheReservedUnits() throws Exception {
+        jdbcTemplate.update("update product set reserved_stock = 30 where id = ?", bolt.getId());
+        String error = "Stock of product with ID: " + bolt.getId()
+                + " cannot be less than the 30 units reserved by open orders";
+
+        mockMvc.perform(patch("/api/products/{id}", bolt.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stock\": 29}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(error));
+        mockMvc.perform(put("/api/products/{id}", bolt.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Bolt\", \"type\": \"COMPONENT\", \"stock\": 29, \"supplier\": \"Acme\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(error));
+        assertThat(productRepository.findById(bolt.getId()).orElseThrow().getStock()).isEqualTo(100);
+
+        mockMvc.perform(patch("/api/products/{id}", bolt.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stock\": 30}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(30))
+                .andExpect(jsonPath("$.reservedStock").value(30));
+    }
+
+    @Test
+    void rejectsWritesAgainstAStaleVersion() throws Exception {
+        mockMvc.perform(patch("/api/products/{id}", bolt.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stock\": 80}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(put("/api/products/{id}", bolt.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Hex bolt\", \"type\": \"COMPONENT\", \"stock\": 80, \"supplier\": \"Acme\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(delete("/api/products/{id}", bolt.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"3\""))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/api/products/{id}", bolt.getId())
+                        .header(HttpHeaders.IF_MATCH, "not a version")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stock\": 80}"))
+                .andExpect(status().isBadRequest());
+
+        Product unchanged = productRepository.findById(bolt.getId()).orElseThrow();
+        assertThat(unchanged.getStock()).isEqualTo(100);
+        assertThat(unchanged.getVersion()).isZero();
+
+        mockMvc.perform(delete("/api/products/{id}", bolt.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isOk());
+        assertThat(productRepository.existsById(bolt.getId())).isFalse();
+    }
+}
@@ -0,0 +1,182 @@
+package com.manufacturing.backend.controller;
+
+import com.manufacturing.backend.common.EmployeePosition;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.model.Employee;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.EmployeeRepository;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import com.manufacturing.backend.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the fetch plans of the read endpoints: each one must issue a fixed number of SQL
+ * statements however many rows it returns, so N+1 regressions fail here. Partial updates must
+ * likewise stay at one SELECT and one UPDATE, without touching child collections.
+ * <p>
+ * Counts come from the session factory's statistics, which see every thread, rather than from
+ * the per-thread {@link com.manufacturing.backend.config.SqlStatementCounter}.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class SqlStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ManufacturingOrderRepository manufacturingOrderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MachineRepository machineRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    private Statistics statistics;
+    private Long orderId;
+    private Long machineId;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        List<Product> products = productRepository.saveAll(List.of(
+                Product.builder().name("Bolt").type(ProductType.COMPONENT).stock(100).supplier("Acme").build(),
+                Product.builder().name("Frame").type(ProductType.MODULE).stock(100).supplier("Acme").build()));
+        List<Machine> machines = machineRepository.saveAll(List.of(
+                Machine.builder().name("Press").status(MachineStatus.OPERATIONAL).build(),
+                Machine.builder().name("Lathe").status(MachineStatus.IDLE).build()));
+
+        List<ManufacturingOrder> orders = new ArrayList<>();
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            orders.add(ManufacturingOrder.builder()
+                    .project("Line " + i)
+                    .status(ManufacturingOrderStatus.PLANNED)
+                    .quantity(1 + i)
+                    .date(LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i))
+                    .product(products.get(i % 2))
+                    .machine(machines.get(i % 2))
+                    .build());
+            employees.add(Employee.builder()
+                    .name("Employee " + i)
+                    .position(EmployeePosition.ASSEMBLY_OPERATOR)
+                    .employeeMachine(machines.get(i % 2))
+                    .build());
+        }
+        orderId = manufacturingOrderRepository.saveAll(orders).get(0).getId();
+        machineId = machines.get(0).getId();
+        productId = products.get(0).getId();
+        employeeRepository.saveAll(employees);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        manufacturingOrderRepository.deleteAllInBatch();
+        employeeRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        machineRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void orderListIsOneStatement() throws Exception {
+        mockMvc.perform(get("/api/manufacturing-orders/").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(20))
+                .andExpect(jsonPath("$.items[0].product.name").exists())
+                .andExpect(jsonPath("$.items[0].machine.name").exists());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void orderByIdIsOneStatement() throws Exception {
+        mockMvc.perform(get("/api/manufacturing-orders/{id}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.product.name").exists());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void employeeListIsOneStatement() throws Exception {
+        mockMvc.perform(get("/api/employees/").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(20))
+                .andExpect(jsonPath("$.items[0].employeeMachine.name").exists());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void machineRenameIsOneUpdateWithoutChildren() throws Exception {
+        mockMvc.perform(patch("/api/machines/{id}", machineId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Press 2\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Press 2"))
+                .andExpect(jsonPath("$.status").value("OPERATIONAL"))
+                .andExpect(jsonPath("$.version").value(1));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        assertThat(manufacturingOrderRepository.count()).isEqualTo(20);
+        assertThat(employeeRepository.count()).isEqualTo(20);
+    }
+
+    @Test
+    void productPatchIsOneUpdateWithoutChildren() throws Exception {
+        mockMvc.perform(patch("/api/products/{id}", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stock\": 42}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(42))
+                .andExpect(jsonPath("$.name").value("Bolt"));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(manufacturingOrderRepository.count()).isEqualTo(20);
+    }
+}
@@ -0,0 +1,86 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.KpiDashboard;
+import com.manufacturing.backend.common.ProductStockLevel;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.common.TrendGranularity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KpiDashboardServiceTest {
+
+    private static final ProductStockLevel BOLT_ALERT = new ProductStockLevel(1L, "Bolt", ProductType.COMPONENT, 2, 10);
+
+    private final KpiService kpiService = mock(KpiService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private ThreadPoolTaskExecutor executor;
+    private KpiDashboardService kpiDashboardService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.initialize();
+        kpiDashboardService = new KpiDashboardService(kpiService, executor, transactionManager, Duration.ofSeconds(2), Duration.ofSeconds(10));
+
+        when(kpiService.getOrdersStatusCount()).thenReturn(Map.of("PLANNED", 3L));
+        when(kpiService.getMachineStatusCount()).thenReturn(Map.of("OPERATIONAL", 1L));
+        when(kpiService.getProductStockAlerts()).thenReturn(List.of(BOLT_ALERT));
+        when(kpiService.getEmployeeWorkload()).thenThrow(new IllegalStateException("database down"));
+        when(kpiService.getOrdersTrend(any(), any(), any(TrendGranularity.class))).thenReturn(Map.of("2025-03-01", 3L));
+        when(kpiService.getMachineUtilization(any(), any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return Map.of("Press", 100.0);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void returnsPartialResultWhenKpisFailOrTimeOut() {
+        long startedAt = System.nanoTime();
+        KpiDashboard dashboard = kpiDashboardService.getDashboard(30, Duration.ofMillis(200));
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertThat(elapsedMillis).isLessThan(2_000);
+        assertThat(dashboard.ordersStatusCount()).containsEntry("PLANNED", 3L);
+        assertThat(dashboard.productStockAlerts()).containsExactly(BOLT_ALERT);
+        assertThat(dashboard.ordersTrend()).containsEntry("2025-03-01", 3L);
+        assertThat(dashboard.employeeWorkload()).isNull();
+        assertThat(dashboard.machineUtilization()).isNull();
+        assertThat(dashboard.unavailable()).containsExactlyInAnyOrder(
+                KpiDashboardService.EMPLOYEE_WORKLOAD, KpiDashboardService.MACHINE_UTILIZATION);
+    }
+
+    @Test
+    void boundsEveryKpiQueryByTheTimeLeftUntilTheDeadline() {
+        kpiDashboardService.getDashboard(30, Duration.ofMillis(1_500));
+
+        // Each KPI runs in a read-only transaction whose timeout becomes the query timeout
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, atLeastOnce()).getTransaction(definitions.capture());
+        assertThat(definitions.getAllValues()).hasSize(4).allSatisfy(definition -> {
+            assertThat(definition.isReadOnly()).isTrue();
+            assertThat(definition.getTimeout()).isBetween(1, 2);
+        });
+    }
+}
@@ -0,0 +1,232 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.EmployeePosition;
+import com.manufacturing.backend.common.EmployeeWorkload;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductDemand;
+import com.manufacturing.backend.common.ProductStockCover;
+import com.manufacturing.backend.common.ProductStockLevel;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.common.TrendGranularity;
+import com.manufacturing.backend.common.UtilizationWeight;
+import com.manufacturing.backend.model.Employee;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({KpiService.class, KpiStore.class, OrderRollupService.class})
+class KpiServiceTest {
+
+    @Autowired
+    private KpiService kpiService;
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Product bolt = entityManager.persist(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(4).supplier("Acme").build());
+        Product frame = entityManager.persist(Product.builder()
+                .name("Frame").type(ProductType.MODULE).stock(40).supplier("Acme").build());
+        Machine press = entityManager.persist(Machine.builder()
+                .name("Press").status(MachineStatus.OPERATIONAL).build());
+        Machine lathe = entityManager.persist(Machine.builder()
+                .name("Lathe").status(MachineStatus.ERROR).build());
+        entityManager.persist(Employee.builder()
+                .name("Alex").position(EmployeePosition.LINE_LEAD).employeeMachine(press).build());
+
+        LocalDateTime day = LocalDateTime.of(2025, 3, 1, 8, 0);
+        entityManager.persist(order(bolt, press, ManufacturingOrderStatus.PLANNED, day));
+        entityManager.persist(order(bolt, press, ManufacturingOrderStatus.PLANNED, day.plusHours(4)));
+        entityManager.persist(order(frame, press, ManufacturingOrderStatus.COMPLETED, day.plusDays(1)));
+        entityManager.persist(order(frame, lathe, ManufacturingOrderStatus.VOIDED, day.plusDays(1)));
+        entityManager.flush();
+        entityManager.clear();
+        orderRollupService.rebuild();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void computesKpisWithoutHydratingEntities() {
+        // Status counts come from KpiStore, which loads in its own transaction and so cannot see
+        // the rows of this rolled-back test; KpiStoreTest covers them
+        assertThat(kpiService.getProductStockAlerts()).extracting(ProductStockLevel::name).containsExactly("Bolt");
+        assertThat(kpiService.getEmployeeWorkload())
+                .extracting(EmployeeWorkload::name, EmployeeWorkload::machineCount)
+                .containsExactly(tuple("Alex", 1L));
+        assertThat(kpiService.getOrdersTrend(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31), TrendGranularity.DAY))
+                .containsExactly(
+                        entry("2025-03-01", 2L),
+                        entry("2025-03-02", 2L));
+        assertThat(kpiService.getOrdersTrend(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 31), TrendGranularity.MONTH))
+                .containsExactly(entry("2025-03-01", 4L));
+        assertThat(kpiService.getOrdersTrend(LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 2), TrendGranularity.WEEK))
+                .containsExactly(entry("2025-02-24", 2L));
+        assertThat(kpiService.getMachineUtilization(null, null, UtilizationWeight.ORDER_COUNT))
+                .containsEntry("Press", 75.0)
+                .containsEntry("Lathe", 25.0);
+        assertThat(kpiService.getMachineUtilization(
+                LocalDateTime.of(2025, 3, 2, 0, 0), null, UtilizationWeight.QUANTITY))
+                .containsEntry("Press", 50.0)
+                .containsEntry("Lathe", 50.0);
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getEntityFetchCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void weighsMachineUtilizationWithinAHalfOpenWindow() {
+        ManufacturingOrder large = order(entityManager.find(Product.class, productId("Frame")),
+                entityManager.find(Machine.class, machineId("Lathe")), ManufacturingOrderStatus.PLANNED,
+                LocalDateTime.of(2025, 3, 3, 8, 0));
+        large.setQuantity(15);
+        entityManager.persist(large);
+        entityManager.flush();
+
+        // Upper bound excluded: the orders of March 2nd at 08:00 are left out, machines without load stay at 0
+        assertThat(kpiService.getMachineUtilization(LocalDateTime.of(2025, 3, 1, 0, 0),
+                LocalDateTime.of(2025, 3, 2, 8, 0), UtilizationWeight.ORDER_COUNT))
+                .containsOnly(entry("Press", 100.0), entry("Lathe", 0.0));
+        // Press: 1 order of 5, Lathe: 2 orders of 5 and 15
+        assertThat(kpiService.getMachineUtilization(LocalDateTime.of(2025, 3, 2, 0, 0),
+                LocalDateTime.of(2025, 3, 4, 0, 0), UtilizationWeight.ORDER_COUNT))
+                .hasSize(2)
+                .hasEntrySatisfying("Press", percent -> assertThat(percent).isCloseTo(100.0 / 3, within(1e-9)))
+                .hasEntrySatisfying("Lathe", percent -> assertThat(percent).isCloseTo(200.0 / 3, within(1e-9)));
+        assertThat(kpiService.getMachineUtilization(LocalDateTime.of(2025, 3, 2, 0, 0),
+                LocalDateTime.of(2025, 3, 4, 0, 0), UtilizationWeight.QUANTITY))
+                .containsOnly(entry("Press", 20.0), entry("Lathe", 80.0));
+        assertThat(kpiService.getMachineUtilization(LocalDateTime.of(2025, 4, 1, 0, 0), null, UtilizationWeight.QUANTITY))
+                .containsOnly(entry("Press", 0.0), entry("Lathe", 0.0));
+        assertThatThrownBy(() -> kpiService.getMachineUtilization(LocalDateTime.of(2025, 3, 2, 0, 0),
+                LocalDateTime.of(2025, 3, 2, 0, 0), UtilizationWeight.ORDER_COUNT))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void keepsEmployeesWithTheSameNameApart() {
+        entityManager.persist(Employee.builder().name("Alex").position(EmployeePosition.LINE_LEAD)
+                .employeeMachine(entityManager.find(Machine.class, machineId("Lathe"))).build());
+        entityManager.flush();
+
+        assertThat(kpiService.getEmployeeWorkload())
+                .extracting(EmployeeWorkload::name, EmployeeWorkload::machineCount)
+                .containsExactly(tuple("Alex", 1L), tuple("Alex", 1L));
+    }
+
+    @Test
+    void usesPerProductReorderThresholdsWithoutNameCollisions() {
+        // Same name as the first bolt, available stock 8: below its own threshold of 9
+        entityManager.persist(Product.builder()
+                .name("Bolt").type(ProductType.RESOURCE).stock(8).reorderThreshold(9).supplier("Other").build());
+        // Type default of 20
+        entityManager.persist(Product.builder()
+                .name("Sand").type(ProductType.RESOURCE).stock(15).supplier("Acme").build());
+        entityManager.flush();
+
+        assertThat(kpiService.getProductStockAlerts())
+                .extracting(ProductStockLevel::name, ProductStockLevel::available, ProductStockLevel::reorderThreshold)
+                .containsExactly(
+                        tuple("Bolt", 4, 10),
+                        tuple("Bolt", 8, 9),
+                        tuple("Sand", 15, 20));
+    }
+
+    @Test
+    void ranksProductsByDaysOfCover() {
+        Product frame = entityManager.find(Product.class, productId("Frame"));
+        LocalDateTime soon = LocalDateTime.now().plusDays(1);
+        entityManager.persist(order(frame, entityManager.find(Machine.class, machineId("Press")),
+                ManufacturingOrderStatus.IN_PROGRESS, soon));
+        // Beyond the horizon: not counted
+        entityManager.persist(order(frame, entityManager.find(Machine.class, machineId("Press")),
+                ManufacturingOrderStatus.PLANNED, soon.plusDays(60)));
+        entityManager.flush();
+
+        // Bolt: stock 4, 10 units open (overdue), Frame: stock 40, 5 units open
+        assertThat(kpiService.getStockCover(10, 30))
+                .extracting(ProductStockCover::name, ProductStockCover::openQuantity, ProductStockCover::daysOfCover)
+                .containsExactly(
+                        tuple("Bolt", 10L, 12.0),
+                        tuple("Frame", 5L, 240.0));
+        assertThat(kpiService.getStockCover(1, 30)).extracting(ProductStockCover::name).containsExactly("Bolt");
+    }
+
+    @Test
+    void keepsTheMostCriticalProductsWithABoundedHeap() {
+        List<ProductDemand> demand = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            demand.add(new ProductDemand(id, "Product " + id, (int) ((id * 7919) % 1000), 10));
+        }
+        List<ProductStockCover> expected = demand.stream()
+                .map(row -> new ProductStockCover(row.productId(), row.name(), row.stock(), row.openQuantity(),
+                        row.stock() * 30.0 / row.openQuantity()))
+                .sorted(Comparator.comparingDouble(ProductStockCover::daysOfCover).thenComparing(ProductStockCover::productId))
+                .limit(5)
+                .toList();
+
+        assertThat(KpiService.mostCritical(demand.stream(), 5, 30)).containsExactlyElementsOf(expected);
+    }
+
+    private Long productId(String name) {
+        return entityManager.getEntityManager()
+                .createQuery("select p.id from Product p where p.name = :name", Long.class)
+                .setParameter("name", name).getSingleResult();
+    }
+
+    private Long machineId(String name) {
+        return entityManager.getEntityManager()
+                .createQuery("select m.id from Machine m where m.name = :name", Long.class)
+                .setParameter("name", name).getSingleResult();
+    }
+
+    private static ManufacturingOrder order(Product product, Machine machine,
+                                            ManufacturingOrderStatus status, LocalDateTime date) {
+        return ManufacturingOrder.builder()
+                .project("Line 1")
+                .status(status)
+                .quantity(5)
+                .date(date)
+                .product(product)
+                .machine(machine)
+                .build();
+    }
+}
@@ -0,0 +1,185 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.MachineStatusCount;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.OrderStatusCount;
+import com.manufacturing.backend.event.MachineChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
+import com.manufacturing.backend.repository.ArchivedManufacturingOrderRepository;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KpiStoreTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    private final ManufacturingOrderRepository orderRepository = mock(ManufacturingOrderRepository.class);
+    private final MachineRepository machineRepository = mock(MachineRepository.class);
+    private final ArchivedManufacturingOrderRepository archiveRepository = mock(ArchivedManufacturingOrderRepository.class);
+    private KpiStore kpiStore;
+
+    @BeforeEach
+    void setUp() {
+        when(orderRepository.countGroupedByStatus()).thenReturn(List.of(
+                new OrderStatusCount(ManufacturingOrderStatus.PLANNED, 2L)));
+        when(archiveRepository.countGroupedByStatus()).thenReturn(List.of(
+                new OrderStatusCount(ManufacturingOrderStatus.COMPLETED, 5L)));
+        when(machineRepository.countGroupedByStatus()).thenReturn(List.of(
+                new MachineStatusCount(MachineStatus.OPERATIONAL, 1L)));
+        kpiStore = new KpiStore(orderRepository, machineRepository, archiveRepository,
+                mock(PlatformTransactionManager.class));
+        kpiStore.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadsActiveAndArchivedOrders() {
+        assertThat(kpiStore.getOrderStatusCounts()).containsOnly(entry("PLANNED", 2L), entry("COMPLETED", 5L));
+        assertThat(kpiStore.getMachineStatusCounts()).containsOnly(entry("OPERATIONAL", 1L));
+    }
+
+    @Test
+    void appliesChangesIncrementally() {
+        Object cached = kpiStore.getOrderStatusCounts();
+        assertThat(kpiStore.getOrderStatusCounts()).isSameAs(cached);
+
+        kpiStore.onOrderChanged(ManufacturingOrderChangedEvent.created(order(1L, ManufacturingOrderStatus.AWAITING_APPROVAL)));
+        kpiStore.onOrderChanged(new ManufacturingOrderChangedEvent(
+                order(2L, ManufacturingOrderStatus.PLANNED), order(2L, ManufacturingOrderStatus.IN_PROGRESS)));
+        kpiStore.onOrdersChanged(new ManufacturingOrdersBulkChangedEvent(List.of(
+                new ManufacturingOrderChangedEvent(order(3L, ManufacturingOrderStatus.PLANNED), null))));
+        kpiStore.onMachineChanged(new MachineChangedEvent(1L, MachineStatus.OPERATIONAL, MachineStatus.ERROR));
+
+        assertThat(kpiStore.getOrderStatusCounts()).isNotSameAs(cached).containsOnly(
+                entry("AWAITING_APPROVAL", 1L), entry("IN_PROGRESS", 1L), entry("COMPLETED", 5L));
+        assertThat(kpiStore.getMachineStatusCounts()).containsOnly(entry("ERROR", 1L));
+    }
+
+    @Test
+    void appliesTransactionalChangesOnlyOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        kpiStore.onOrderChanged(ManufacturingOrderChangedEvent.created(order(1L, ManufacturingOrderStatus.PLANNED)));
+        kpiStore.onOrderChanged(ManufacturingOrderChangedEvent.created(order(2L, ManufacturingOrderStatus.PLANNED)));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        // One synchronization per transaction, however many events
+        assertThat(synchronizations).hasSize(1);
+        assertThat(kpiStore.getOrderStatusCounts()).containsEntry("PLANNED", 2L);
+
+        complete(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(kpiStore.getOrderStatusCounts()).containsEntry("PLANNED", 4L);
+
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        kpiStore.onOrderChanged(ManufacturingOrderChangedEvent.created(order(3L, ManufacturingOrderStatus.PLANNED)));
+        TransactionSynchronization rolledBack = TransactionSynchronizationManager.getSynchronizations().get(0);
+        rolledBack.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(kpiStore.getOrderStatusCounts()).containsEntry("PLANNED", 4L);
+    }
+
+    @Test
+    void rebuildWaitsForCommittingTransactions() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch committing = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<?> writer = executor.submit(() -> {
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    kpiStore.onOrderChanged(ManufacturingOrderChangedEvent.created(order(1L, ManufacturingOrderStatus.PLANNED)));
+                    TransactionSynchronization synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+                    synchronization.beforeCommit(false);
+                    committing.countDown();
+                    release.await();
+                    synchronization.afterCommit();
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+                return null;
+            });
+            committing.await();
+            // The committed order is visible to the rebuild query
+            when(orderRepository.countGroupedByStatus()).thenReturn(List.of(
+                    new OrderStatusCount(ManufacturingOrderStatus.PLANNED, 3L)));
+            Future<?> rebuild = executor.submit(() -> kpiStore.rebuild());
+
+            Thread.sleep(100);
+            assertThat(rebuild).isNotDone();
+            release.countDown();
+            writer.get(5, TimeUnit.SECONDS);
+            rebuild.get(5, TimeUnit.SECONDS);
+
+            // Counted once: the change was applied before the rebuild replaced the counters
+            assertThat(kpiStore.getOrderStatusCounts()).containsEntry("PLANNED", 3L);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void reconcileReportsAndRepairsDrift() {
+        assertThat(kpiStore.reconcile(true)).isEmpty();
+
+        when(orderRepository.countGroupedByStatus()).thenReturn(List.of(
+                new OrderStatusCount(ManufacturingOrderStatus.PLANNED, 7L)));
+        assertThat(kpiStore.reconcile(false)).containsExactly("orders.PLANNED: expected 7 but store has 2");
+        assertThat(kpiStore.getOrderStatusCounts()).containsEntry("PLANNED", 2L);
+
+        assertThat(kpiStore.reconcile(true)).hasSize(1);
+        assertThat(kpiStore.getOrderStatusCounts()).containsEntry("PLANNED", 7L);
+        assertThat(kpiStore.reconcile(true)).isEmpty();
+    }
+
+    @Test
+    void reloadsOrdersAfterAMachineDeletionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        kpiStore.onMachineChanged(new MachineChangedEvent(1L, MachineStatus.OPERATIONAL, null));
+        when(orderRepository.countGroupedByStatus()).thenReturn(List.of());
+
+        complete(TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(kpiStore.getOrderStatusCounts()).containsOnly(entry("COMPLETED", 5L));
+        assertThat(kpiStore.getMachineStatusCounts()).isEmpty();
+        verify(orderRepository, times(2)).countGroupedByStatus();
+    }
+
+    private static void complete(List<TransactionSynchronization> synchronizations, int status) {
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static ManufacturingOrderSnapshot order(Long id, ManufacturingOrderStatus status) {
+        return new ManufacturingOrderSnapshot(id, status, DATE, 1L, 1L, 1);
+    }
+}
@@ -0,0 +1,259 @@
+package com.manufacturing.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.OrderStatusChange;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Flushes and heartbeats are triggered by the tests: the schedules are set far apart so they do
+ * not interleave with them.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "kpi.stream.interval=PT1H",
+        "kpi.stream.heartbeat=PT1H"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class KpiStreamBroadcasterTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private KpiStreamBroadcaster kpiStreamBroadcaster;
+
+    private final List<MvcResult> streams = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        streams.forEach(stream -> stream.getRequest().getAsyncContext().complete());
+    }
+
+    @Test
+    void coalescesStatusChangesPerOrderIntoOneUpdate() throws Exception {
+        MvcResult stream = subscribe();
+        awaitContent(stream, content -> content.contains("event:kpis"));
+
+        kpiStreamBroadcaster.onOrderChanged(ManufacturingOrderChangedEvent.created(order(1L, ManufacturingOrderStatus.AWAITING_APPROVAL)));
+        kpiStreamBroadcaster.onOrderChanged(change(1L, ManufacturingOrderStatus.AWAITING_APPROVAL, ManufacturingOrderStatus.PLANNED));
+        kpiStreamBroadcaster.onOrderChanged(change(1L, ManufacturingOrderStatus.PLANNED, ManufacturingOrderStatus.IN_PROGRESS));
+        kpiStreamBroadcaster.onOrderChanged(change(2L, ManufacturingOrderStatus.PLANNED, ManufacturingOrderStatus.VOIDED));
+        kpiStreamBroadcaster.flush();
+
+        String content = awaitContent(stream, text -> text.contains("event:order-status"));
+        assertThat(count(content, "event:kpis")).isEqualTo(2);
+        assertThat(count(content, "event:order-status")).isOne();
+        assertThat(content).contains(
+                "{\"orderId\":1,\"previousStatus\":null,\"status\":\"IN_PROGRESS\"}",
+                "{\"orderId\":2,\"previousStatus\":\"PLANNED\",\"status\":\"VOIDED\"}");
+
+        // Nothing changed since, so the next flush sends nothing
+        kpiStreamBroadcaster.flush();
+        kpiStreamBroadcaster.heartbeat();
+        assertThat(awaitContent(stream, text -> text.contains(":heartbeat"))).isEqualTo(content + ":heartbeat\n\n");
+    }
+
+    @Test
+    void sendsResyncInsteadOfAnOverflowingBacklog() throws Exception {
+        MvcResult stream = subscribe();
+        awaitContent(stream, content -> content.contains("event:kpis"));
+
+        kpiStreamBroadcaster.onOrdersChanged(new ManufacturingOrdersBulkChangedEvent(IntStream.rangeClosed(1, 10_001)
+                .mapToObj(id -> change((long) id, ManufacturingOrderStatus.PLANNED, ManufacturingOrderStatus.IN_PROGRESS))
+                .toList()));
+        kpiStreamBroadcaster.flush();
+
+        String content = awaitContent(stream, text -> text.contains("event:resync"));
+        assertThat(content).doesNotContain("event:order-status");
+    }
+
+    @Test
+    void heartbeatKeepsIdleStreamsAlive() throws Exception {
+        MvcResult stream = subscribe();
+        awaitContent(stream, content -> content.contains("event:kpis"));
+
+        kpiStreamBroadcaster.heartbeat();
+
+        assertThat(awaitContent(stream, content -> content.contains(":heartbeat"))).endsWith(":heartbeat\n\n");
+    }
+
+    @Test
+    void anUnsentUpdateIsReplacedByANewerOne() {
+        KpiStreamBroadcaster.Subscriber subscriber = new KpiStreamBroadcaster.Subscriber(new SseEmitter());
+        subscriber.offer("{\"orders\":1}", List.of(
+                new OrderStatusChange(1L, ManufacturingOrderStatus.PLANNED, ManufacturingOrderStatus.IN_PROGRESS)), false);
+        subscriber.offer("{\"machines\":2}", List.of(
+                new OrderStatusChange(1L, ManufacturingOrderStatus.IN_PROGRESS, ManufacturingOrderStatus.COMPLETED)), false);
+
+        KpiStreamBroadcaster.Batch batch = subscriber.take();
+
+        assertThat(batch.kpis()).isEqualTo("{\"machines\":2}");
+        // The replaced update held other groups, so every group is sent instead
+        assertThat(batch.fullKpis()).isTrue();
+        assertThat(batch.changes()).containsExactly(
+                new OrderStatusChange(1L, ManufacturingOrderStatus.PLANNED, ManufacturingOrderStatus.COMPLETED));
+        assertThat(subscriber.take().isEmpty()).isTrue();
+    }
+
+    @Test
+    void anOverflowDropsTheBacklogForAResync() {
+        KpiStreamBroadcaster.Subscriber subscriber = new KpiStreamBroadcaster.Subscriber(new SseEmitter());
+        subscriber.offer(null, List.of(
+                new OrderStatusChange(1L, ManufacturingOrderStatus.PLANNED, ManufacturingOrderStatus.IN_PROGRESS)), false);
+
+        subscriber.offer(null, List.of(), true);
+
+        KpiStreamBroadcaster.Batch batch = subscriber.take();
+        assertThat(batch.resync()).isTrue();
+        assertThat(batch.changes()).isEmpty();
+    }
+
+    @Test
+    void rejectsSubscribersBeyondTheLimit() {
+        KpiStreamBroadcaster broadcaster = new KpiStreamBroadcaster(mock(KpiService.class), new ObjectMapper(),
+                1, Duration.ofMinutes(1), 1, Duration.ofSeconds(10));
+        try {
+            broadcaster.subscribe();
+
+            assertThatThrownBy(broadcaster::subscribe)
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+            assertThat(broadcaster.getSubscriberCount()).isOne();
+        } finally {
+            broadcaster.shutdown();
+        }
+    }
+
+    @Test
+    void concurrentSubscribersCannotExceedTheLimit() throws Exception {
+        KpiStreamBroadcaster broadcaster = new KpiStreamBroadcaster(mock(KpiService.class), new ObjectMapper(),
+                2, Duration.ofMinutes(1), 1, Duration.ofSeconds(10));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        broadcaster.subscribe();
+                        return true;
+                    } catch (ResponseStatusException ex) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for (Future<Boolean> attempt : attempts) {
+                accepted += attempt.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertThat(accepted).isEqualTo(2);
+            assertThat(broadcaster.getSubscriberCount()).isEqualTo(2);
+        } finally {
+            executor.shutdownNow();
+            broadcaster.shutdown();
+        }
+    }
+
+    @Test
+    void dropsASubscriberWhoseWriteStaysBlocked() throws Exception {
+        KpiStreamBroadcaster broadcaster = new KpiStreamBroadcaster(mock(KpiService.class), new ObjectMapper(),
+                1, Duration.ofMinutes(1), 1, Duration.ofMillis(50));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            broadcaster.register(new SseEmitter() {
+                @Override
+                public void send(SseEventBuilder builder) {
+                    writing.countDown();
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException ex) {
+                        interrupted.countDown();
+                    }
+                }
+            });
+            assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(100);
+
+            broadcaster.dropStalledSubscribers();
+
+            assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(broadcaster.getSubscriberCount()).isZero();
+            // The slot is free again
+            broadcaster.subscribe();
+            assertThat(broadcaster.getSubscriberCount()).isOne();
+        } finally {
+            broadcaster.shutdown();
+        }
+    }
+
+    private MvcResult subscribe() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/kpis/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        streams.add(stream);
+        return stream;
+    }
+
+    // Events are written by the sender pool in several parts, so wait for whole events to show up
+    private static String awaitContent(MvcResult stream, Predicate<String> condition) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String content = stream.getResponse().getContentAsString();
+        while (!content.endsWith("\n\n") || !condition.test(content)) {
+            assertThat(System.nanoTime()).as("stream content: %s", content).isLessThan(deadline);
+            Thread.sleep(10);
+            content = stream.getResponse().getContentAsString();
+        }
+        return content;
+    }
+
+    private static int count(String content, String text) {
+        return content.split(text, -1).length - 1;
+    }
+
+    private static ManufacturingOrderChangedEvent change(Long id, ManufacturingOrderStatus from, ManufacturingOrderStatus to) {
+        return new ManufacturingOrderChangedEvent(order(id, from), order(id, to));
+    }
+
+    private static ManufacturingOrderSnapshot order(Long id, ManufacturingOrderStatus status) {
+        return new ManufacturingOrderSnapshot(id, status, DATE, 1L, 1L, 1);
+    }
+}
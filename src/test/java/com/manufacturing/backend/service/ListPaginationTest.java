@@ -0,0 +1,228 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.CursorPage;
+import com.manufacturing.backend.common.EmployeePosition;
+import com.manufacturing.backend.common.KeysetCursor;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderField;
+import com.manufacturing.backend.common.ManufacturingOrderFilter;
+import com.manufacturing.backend.common.ManufacturingOrderResponse;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.common.ReferenceMode;
+import com.manufacturing.backend.model.Employee;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.ArchivedManufacturingOrderRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ManufacturingOrderService.class, StockService.class, EmployeeService.class})
+class ListPaginationTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 3, 1, 8, 0);
+    private static final ManufacturingOrderFilter NO_FILTER = new ManufacturingOrderFilter(null, null, null, null, null, null);
+
+    @Autowired
+    private ManufacturingOrderService manufacturingOrderService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ManufacturingOrderRepository manufacturingOrderRepository;
+
+    @Autowired
+    private ArchivedManufacturingOrderRepository archivedManufacturingOrderRepository;
+
+    private Product bolt;
+    private Product frame;
+    private Machine press;
+    private Machine lathe;
+    private final List<Long> orderIdsByDate = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        bolt = entityManager.persist(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(100).supplier("Acme").build());
+        frame = entityManager.persist(Product.builder()
+                .name("Frame").type(ProductType.MODULE).stock(100).supplier("Acme").build());
+        press = entityManager.persist(Machine.builder()
+                .name("Press").status(MachineStatus.OPERATIONAL).build());
+        lathe = entityManager.persist(Machine.builder()
+                .name("Lathe").status(MachineStatus.OPERATIONAL).build());
+
+        // Two orders share each date, so the cursor has to break ties on the ID
+        for (int i = 0; i < 6; i++) {
+            ManufacturingOrder order = new ManufacturingOrder();
+            order.setProject(i % 2 == 0 ? "Alpha" : "Beta");
+            order.setStatus(i < 4 ? ManufacturingOrderStatus.PLANNED : ManufacturingOrderStatus.COMPLETED);
+            order.setQuantity(1);
+            order.setDate(DAY.plusDays(i / 2));
+            order.setProduct(i % 3 == 0 ? frame : bolt);
+            order.setMachine(i < 3 ? press : lathe);
+            orderIdsByDate.add(entityManager.persist(order).getId());
+        }
+        for (String name : List.of("Alex", "Sam", "Kim")) {
+            entityManager.persist(Employee.builder()
+                    .name(name).position(EmployeePosition.LINE_LEAD).employeeMachine(press).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void walksOrderPagesByDateThenId() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<ManufacturingOrderResponse> page = orders(NO_FILTER, cursor, 4);
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(4);
+            page.items().forEach(order -> seen.add(order.id()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(2);
+        assertThat(seen).containsExactlyElementsOf(orderIdsByDate);
+    }
+
+    @Test
+    void resumesAfterTheCursorWithinTheSameDate() {
+        CursorPage<ManufacturingOrderResponse> first = orders(NO_FILTER, null, 3);
+
+        assertThat(first.items()).extracting(ManufacturingOrderResponse::id)
+                .containsExactlyElementsOf(orderIdsByDate.subList(0, 3));
+        assertThat(KeysetCursor.decode(first.nextCursor()))
+                .isEqualTo(new KeysetCursor(DAY.plusDays(1), orderIdsByDate.get(2)));
+        assertThat(orders(NO_FILTER, first.nextCursor(), 3).items()).extracting(ManufacturingOrderResponse::id)
+                .containsExactlyElementsOf(orderIdsByDate.subList(3, 6));
+    }
+
+    @Test
+    void appliesEveryFilter() {
+        assertThat(ids(new ManufacturingOrderFilter(ManufacturingOrderStatus.COMPLETED, null, null, null, null, null)))
+                .containsExactlyElementsOf(orderIdsByDate.subList(4, 6));
+        assertThat(ids(new ManufacturingOrderFilter(null, press.getId(), null, null, null, null)))
+                .containsExactlyElementsOf(orderIdsByDate.subList(0, 3));
+        assertThat(ids(new ManufacturingOrderFilter(null, null, frame.getId(), null, null, null)))
+                .containsExactly(orderIdsByDate.get(0), orderIdsByDate.get(3));
+        assertThat(ids(new ManufacturingOrderFilter(null, null, null, "Beta", null, null)))
+                .containsExactly(orderIdsByDate.get(1), orderIdsByDate.get(3), orderIdsByDate.get(5));
+        // from is inclusive, to is exclusive
+        assertThat(ids(new ManufacturingOrderFilter(null, null, null, null, DAY.plusDays(1), DAY.plusDays(2))))
+                .containsExactlyElementsOf(orderIdsByDate.subList(2, 4));
+        assertThat(ids(new ManufacturingOrderFilter(ManufacturingOrderStatus.PLANNED, lathe.getId(), bolt.getId(), "Alpha", null, null)))
+                .isEmpty();
+    }
+
+    @Test
+    void rejectsInvalidCursorsAndLimits() {
+        assertThatThrownBy(() -> orders(NO_FILTER, "not a cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        // An ID-only cursor belongs to the other listings
+        assertThatThrownBy(() -> orders(NO_FILTER, new KeysetCursor(null, 1L).encode(), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orders(NO_FILTER, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void returnsOnlyTheRequestedFields() {
+        CursorPage<ManufacturingOrderResponse> page = manufacturingOrderService.getOrders(NO_FILTER, null, 2,
+                ManufacturingOrderField.parse("status, quantity"), ReferenceMode.SUMMARY, false);
+
+        assertThat(page.items()).containsOnly(
+                new ManufacturingOrderResponse(null, null, ManufacturingOrderStatus.PLANNED, 1, null, null, null, null, null, null));
+        // The cursor is built from the date and ID even when they were not requested
+        assertThat(KeysetCursor.decode(page.nextCursor())).isEqualTo(new KeysetCursor(DAY, orderIdsByDate.get(1)));
+    }
+
+    @Test
+    void rendersReferencesAsSummariesOrIds() {
+        ManufacturingOrderResponse summary = manufacturingOrderService.getOrders(NO_FILTER, null, 1,
+                ManufacturingOrderField.parse("id,product,machine"), ReferenceMode.SUMMARY, false).items().get(0);
+        ManufacturingOrderResponse ids = manufacturingOrderService.getOrders(NO_FILTER, null, 1,
+                ManufacturingOrderField.parse("id,product,machine"), ReferenceMode.IDS, false).items().get(0);
+
+        assertThat(summary.product()).isEqualTo(new ManufacturingOrderResponse.ProductRef(frame.getId(), "Frame", ProductType.MODULE));
+        assertThat(summary.machine()).isEqualTo(new ManufacturingOrderResponse.MachineRef(press.getId(), "Press", MachineStatus.OPERATIONAL));
+        assertThat(ids).isEqualTo(new ManufacturingOrderResponse(orderIdsByDate.get(0), null, null, null, null,
+                new ManufacturingOrderResponse.ProductRef(frame.getId(), null, null),
+                new ManufacturingOrderResponse.MachineRef(press.getId(), null, null), null, null, null));
+    }
+
+    @Test
+    void listsArchivedOrdersOnlyOnRequest() {
+        List<Long> archived = List.of(orderIdsByDate.get(1), orderIdsByDate.get(4));
+        archivedManufacturingOrderRepository.copyFromOrders(archived);
+        manufacturingOrderRepository.deleteAllByIdInBatch(archived);
+
+        assertThat(ids(NO_FILTER)).doesNotContainAnyElementsOf(archived);
+
+        List<ManufacturingOrderResponse> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ManufacturingOrderResponse> page = manufacturingOrderService.getOrders(NO_FILTER, cursor, 4,
+                    ManufacturingOrderField.parse("id,machine"), ReferenceMode.SUMMARY, true);
+            seen.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertThat(seen).extracting(ManufacturingOrderResponse::id).containsExactlyElementsOf(orderIdsByDate);
+        assertThat(seen.get(4)).isEqualTo(new ManufacturingOrderResponse(orderIdsByDate.get(4), null, null, null, null,
+                null, new ManufacturingOrderResponse.MachineRef(lathe.getId(), "Lathe", MachineStatus.OPERATIONAL),
+                null, null, null));
+        // History queries filter the archive like the active orders
+        assertThat(manufacturingOrderService.getOrders(
+                new ManufacturingOrderFilter(null, null, null, "Beta", DAY, DAY.plusDays(1)), null, 10,
+                ManufacturingOrderField.parse("id"), ReferenceMode.IDS, true).items())
+                .extracting(ManufacturingOrderResponse::id).containsExactly(orderIdsByDate.get(1));
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        assertThatThrownBy(() -> ManufacturingOrderField.parse("id,colour"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown field: colour");
+        assertThat(ManufacturingOrderField.parse(" ")).isEqualTo(EnumSet.allOf(ManufacturingOrderField.class));
+    }
+
+    @Test
+    void pagesEmployeesById() {
+        CursorPage<Employee> first = employeeService.findEmployeePage(null, 2);
+        CursorPage<Employee> second = employeeService.findEmployeePage(first.nextCursor(), 2);
+
+        assertThat(first.items()).extracting(Employee::getName).containsExactly("Alex", "Sam");
+        assertThat(second.items()).extracting(Employee::getName).containsExactly("Kim");
+        assertThat(second.nextCursor()).isNull();
+        assertThat(employeeService.findEmployeePage(null, CursorPage.MAX_LIMIT + 1).items()).hasSize(3);
+    }
+
+    private CursorPage<ManufacturingOrderResponse> orders(ManufacturingOrderFilter filter, String cursor, int limit) {
+        return manufacturingOrderService.getOrders(filter, cursor, limit,
+                EnumSet.allOf(ManufacturingOrderField.class), ReferenceMode.SUMMARY, false);
+    }
+
+    private List<Long> ids(ManufacturingOrderFilter filter) {
+        return orders(filter, null, CursorPage.DEFAULT_LIMIT).items().stream().map(ManufacturingOrderResponse::id).toList();
+    }
+}
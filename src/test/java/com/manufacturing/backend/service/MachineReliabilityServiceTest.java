@@ -0,0 +1,81 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.MachineReliability;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.MachineStatusSpan;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MachineReliabilityServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusHours(24);
+
+    @Test
+    void computesAvailabilityMtbfAndMttrWithinTheWindow() {
+        Stream<MachineStatusSpan> spans = Stream.of(
+                // Starts before the window: only the last 8 hours count
+                span(MachineStatus.OPERATIONAL, -2, 8),
+                span(MachineStatus.ERROR, 8, 10),
+                span(MachineStatus.IDLE, 10, 14),
+                span(MachineStatus.UNDER_SERVICE, 14, 16),
+                span(MachineStatus.ERROR, 16, 17),
+                // Still open: ends at "now", 20 hours into the window
+                span(MachineStatus.OPERATIONAL, 17, null)
+        );
+
+        Map<Long, long[]> seconds = MachineReliabilityService.accumulate(spans, epoch(FROM), epoch(TO), epoch(FROM.plusHours(20)));
+        MachineReliability reliability = MachineReliabilityService.reliability(1L, "Press", seconds.get(1L));
+
+        assertThat(reliability.failures()).isEqualTo(2);
+        assertThat(reliability.upHours()).isCloseTo(15.0, within(1e-9));
+        assertThat(reliability.repairHours()).isCloseTo(3.0, within(1e-9));
+        assertThat(reliability.maintenanceHours()).isCloseTo(2.0, within(1e-9));
+        assertThat(reliability.availability()).isCloseTo(75.0, within(1e-9));
+        assertThat(reliability.mtbfHours()).isCloseTo(7.5, within(1e-9));
+        assertThat(reliability.mttrHours()).isCloseTo(1.5, within(1e-9));
+    }
+
+    @Test
+    void leavesMtbfAndMttrEmptyWithoutFailures() {
+        Map<Long, long[]> seconds = MachineReliabilityService.accumulate(
+                Stream.of(span(MachineStatus.IDLE, 0, 24)), epoch(FROM), epoch(TO), epoch(TO));
+        MachineReliability reliability = MachineReliabilityService.reliability(1L, "Press", seconds.get(1L));
+
+        assertThat(reliability.availability()).isEqualTo(100.0);
+        assertThat(reliability.mtbfHours()).isNull();
+        assertThat(reliability.mttrHours()).isNull();
+    }
+
+    @Test
+    void readsIntervalsInTheSystemZone() {
+        TimeZone systemZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
+        try {
+            // Clocks moved from 02:00 to 03:00 that night
+            LocalDateTime from = LocalDateTime.of(2025, 3, 30, 1, 0);
+            LocalDateTime to = LocalDateTime.of(2025, 3, 30, 4, 0);
+            Map<Long, long[]> seconds = MachineReliabilityService.accumulate(
+                    Stream.of(new MachineStatusSpan(1L, MachineStatus.OPERATIONAL, from, to)), epoch(from), epoch(to), epoch(to));
+
+            assertThat(seconds.get(1L)[MachineStatus.OPERATIONAL.ordinal()]).isEqualTo(2 * 3600);
+        } finally {
+            TimeZone.setDefault(systemZone);
+        }
+    }
+
+    private static MachineStatusSpan span(MachineStatus status, int fromHour, Integer toHour) {
+        return new MachineStatusSpan(1L, status, FROM.plusHours(fromHour), toHour != null ? FROM.plusHours(toHour) : null);
+    }
+
+    private static long epoch(LocalDateTime time) {
+        return MachineReliabilityService.epochSecond(time);
+    }
+}
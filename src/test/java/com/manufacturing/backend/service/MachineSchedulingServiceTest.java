@@ -0,0 +1,229 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.MachineCapacity;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ScheduleResult;
+import com.manufacturing.backend.common.ScheduledOrder;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MachineSchedulingServiceTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    private final ManufacturingOrderRepository orderRepository = mock(ManufacturingOrderRepository.class);
+    private final MachineRepository machineRepository = mock(MachineRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final MachineSchedulingService schedulingService =
+            new MachineSchedulingService(orderRepository, machineRepository, eventPublisher);
+    private final Machine lathe = Machine.builder().id(20L).build();
+
+    @BeforeEach
+    void setUp() {
+        when(machineRepository.findCapacitiesByStatusIn(anyCollection())).thenReturn(List.of(
+                new MachineCapacity(10L, 1), new MachineCapacity(20L, 1)));
+        // Both orders sit on machine 10, so balancing moves one of them to machine 20
+        when(orderRepository.findSnapshotsByStatusIn(MachineSchedulingService.SCHEDULABLE_STATUSES)).thenReturn(List.of(
+                order(1, 4, 10L), order(2, 3, 10L)));
+        when(machineRepository.getReferenceById(20L)).thenReturn(lathe);
+        when(orderRepository.findSnapshotsByIdIn(List.of(2L))).thenReturn(List.of(order(2, 3, 10L)));
+    }
+
+    @Test
+    void balancesIdenticalMachinesLongestFirst() {
+        List<ManufacturingOrderSnapshot> orders = List.of(order(1, 7), order(2, 5), order(3, 4), order(4, 3), order(5, 3), order(6, 2));
+        List<MachineSchedulingService.MachineQueue> queues = MachineSchedulingService.plan(orders,
+                List.of(new MachineCapacity(10L, 1), new MachineCapacity(20L, 1)), Map.of());
+
+        // LPT: 7+3+2 and 5+4+3
+        assertThat(queues).extracting(queue -> queue.loadHours).containsExactly(12.0, 12.0);
+        // Each machine runs its orders shortest first
+        for (MachineSchedulingService.MachineQueue queue : queues) {
+            assertThat(queue.orders).isSortedAccordingTo((a, b) -> Integer.compare(a.quantity(), b.quantity()));
+        }
+    }
+
+    @Test
+    void accountsForCapacityAndWorkInProgress() {
+        List<ManufacturingOrderSnapshot> orders = List.of(order(1, 40), order(2, 40), order(3, 20));
+        List<MachineSchedulingService.MachineQueue> queues = MachineSchedulingService.plan(orders,
+                List.of(new MachineCapacity(10L, 10), new MachineCapacity(20L, 20)), Map.of(20L, 40L));
+
+        // The fast machine starts 2 hours late but still takes most of the work
+        MachineSchedulingService.MachineQueue slow = queues.get(0);
+        MachineSchedulingService.MachineQueue fast = queues.get(1);
+        assertThat(slow.orders).extracting(ManufacturingOrderSnapshot::id).containsExactly(1L);
+        assertThat(fast.orders).extracting(ManufacturingOrderSnapshot::id).containsExactly(3L, 2L);
+        assertThat(fast.loadHours).isEqualTo(5.0);
+    }
+
+    @Test
+    void appliesTheScheduleUnderLock() {
+        ScheduleResult result = schedulingService.schedule(false);
+
+        assertThat(result.applied()).isTrue();
+        assertThat(result.reassigned()).isOne();
+        assertThat(result.assignments()).extracting(ScheduledOrder::orderId, ScheduledOrder::machineId, ScheduledOrder::reassigned)
+                .containsExactlyInAnyOrder(
+                        tuple(1L, 10L, false),
+                        tuple(2L, 20L, true));
+        // Only the reassigned order is locked, once planned, and checked before it is moved
+        InOrder inOrder = inOrder(orderRepository);
+        inOrder.verify(orderRepository).findSnapshotsByStatusIn(MachineSchedulingService.SCHEDULABLE_STATUSES);
+        inOrder.verify(orderRepository).lockIds(eq(List.of(2L)), any(), eq(MachineSchedulingService.SCHEDULABLE_STATUSES), eq(1));
+        inOrder.verify(orderRepository).findSnapshotsByIdIn(List.of(2L));
+        inOrder.verify(orderRepository).reassignMachine(any(), any(), any());
+        verify(orderRepository).reassignMachine(eq(List.of(2L)), same(lathe), any());
+
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue()).isEqualTo(new ManufacturingOrdersBulkChangedEvent(List.of(
+                new ManufacturingOrderChangedEvent(order(2, 3, 10L), order(2, 3, 20L)))));
+    }
+
+    @Test
+    void failsWhenAnOrderToReassignChangedWhilePlanning() {
+        when(orderRepository.findSnapshotsByIdIn(List.of(2L))).thenReturn(List.of(
+                new ManufacturingOrderSnapshot(2L, ManufacturingOrderStatus.IN_PROGRESS, DATE, 10L, 1L, 3)));
+
+        assertThatThrownBy(() -> schedulingService.schedule(false))
+                .isInstanceOf(OptimisticLockingFailureException.class)
+                .hasMessage("Manufacturing order with ID 2 was modified while scheduling");
+        verify(orderRepository, never()).reassignMachine(any(), any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void dryRunNeitherLocksNorWrites() {
+        ScheduleResult result = schedulingService.schedule(true);
+
+        assertThat(result.applied()).isFalse();
+        assertThat(result.reassigned()).isOne();
+        verify(orderRepository, never()).lockIds(any(), any(), any(), anyInt());
+        verify(orderRepository, never()).reassignMachine(any(), any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void rejectsSchedulingWithoutAnAcceptingMachine() {
+        when(machineRepository.findCapacitiesByStatusIn(anyCollection())).thenReturn(List.of());
+
+        assertThatThrownBy(() -> schedulingService.schedule(false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No machine accepts orders");
+        verify(orderRepository, never()).reassignMachine(any(), any(), any());
+    }
+
+    @Test
+    void staysWithinTheListSchedulingBoundOnALargeInstance() {
+        Random random = new Random(42);
+        List<ManufacturingOrderSnapshot> orders = new ArrayList<>(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            orders.add(order(i, 1 + random.nextInt(500)));
+        }
+        List<MachineCapacity> machines = new ArrayList<>(1_000);
+        for (long i = 0; i < 1_000; i++) {
+            machines.add(new MachineCapacity(i, 10 * (1 + random.nextInt(5))));
+        }
+        List<MachineSchedulingService.MachineQueue> queues = MachineSchedulingService.plan(orders, machines, Map.of());
+
+        assertThat(queues.stream().flatMap(queue -> queue.orders.stream()).map(ManufacturingOrderSnapshot::id))
+                .doesNotHaveDuplicates()
+                .hasSize(orders.size());
+        // When the last order of the longest queue was placed, every machine would have finished it
+        // no earlier, which bounds the makespan by (total units + machines * largest order) / total capacity
+        long units = orders.stream().mapToLong(ManufacturingOrderSnapshot::quantity).sum();
+        long capacity = machines.stream().mapToLong(MachineCapacity::capacity).sum();
+        double makespan = queues.stream().mapToDouble(queue -> queue.loadHours).max().orElseThrow();
+        assertThat(makespan)
+                .isGreaterThanOrEqualTo((double) units / capacity)
+                .isLessThanOrEqualTo((double) (units + machines.size() * 500L) / capacity);
+    }
+
+    @Test
+    void placesEachOrderWhereAFullScanWouldWithManyDistinctCapacities() {
+        Random random = new Random(7);
+        List<ManufacturingOrderSnapshot> orders = new ArrayList<>(5_000);
+        for (int i = 0; i < 5_000; i++) {
+            orders.add(order(i, 1 + random.nextInt(200)));
+        }
+        List<MachineCapacity> machines = new ArrayList<>(300);
+        Map<Long, Long> busyUnits = new HashMap<>();
+        for (long i = 0; i < 300; i++) {
+            machines.add(new MachineCapacity(i, 1 + random.nextInt(400)));
+            busyUnits.put(i, (long) random.nextInt(1_000));
+        }
+
+        List<MachineSchedulingService.MachineQueue> queues = MachineSchedulingService.plan(orders, machines, busyUnits);
+
+        // Reference: every order goes to the machine with the earliest end, then the lowest ID
+        Map<Long, Double> load = new HashMap<>();
+        Map<Long, List<Long>> expected = new HashMap<>();
+        for (MachineCapacity machine : machines) {
+            load.put(machine.machineId(), (double) busyUnits.get(machine.machineId()) / machine.capacity());
+            expected.put(machine.machineId(), new ArrayList<>());
+        }
+        List<ManufacturingOrderSnapshot> longestFirst = new ArrayList<>(orders);
+        longestFirst.sort(Comparator.comparingInt(ManufacturingOrderSnapshot::quantity).reversed()
+                .thenComparing(ManufacturingOrderSnapshot::id));
+        for (ManufacturingOrderSnapshot order : longestFirst) {
+            MachineCapacity best = null;
+            double bestEnd = Double.POSITIVE_INFINITY;
+            for (MachineCapacity machine : machines) {
+                double end = load.get(machine.machineId()) + (double) order.quantity() / machine.capacity();
+                if (end < bestEnd) {
+                    best = machine;
+                    bestEnd = end;
+                }
+            }
+            load.put(best.machineId(), bestEnd);
+            expected.get(best.machineId()).add(0, order.id());
+        }
+        for (MachineSchedulingService.MachineQueue queue : queues) {
+            assertThat(queue.orders).extracting(ManufacturingOrderSnapshot::id)
+                    .as("machine %d", queue.machineId)
+                    .containsExactlyElementsOf(expected.get(queue.machineId));
+        }
+    }
+
+    private static ManufacturingOrderSnapshot order(long id, int quantity) {
+        return order(id, quantity, 1L);
+    }
+
+    private static ManufacturingOrderSnapshot order(long id, int quantity, Long machineId) {
+        return new ManufacturingOrderSnapshot(id, ManufacturingOrderStatus.PLANNED, DATE, machineId, 1L, quantity);
+    }
+}
@@ -0,0 +1,100 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.MachinePatchPayload;
+import com.manufacturing.backend.common.MachinePayload;
+import com.manufacturing.backend.common.MachineReliability;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.MachineStatusInterval;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.MachineStatusIntervalRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class MachineStatusIntervalTest {
+
+    @Autowired
+    private MachineService machineService;
+
+    @Autowired
+    private MachineReliabilityService machineReliabilityService;
+
+    @Autowired
+    private MachineRepository machineRepository;
+
+    @Autowired
+    private MachineStatusIntervalRepository machineStatusIntervalRepository;
+
+    @BeforeEach
+    void setUp() {
+        machineStatusIntervalRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void tearDown() {
+        machineStatusIntervalRepository.deleteAllInBatch();
+        machineRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void recordsAnIntervalPerStatusChange() {
+        Machine press = machineService.saveMachine(new MachinePayload("Press", MachineStatus.OPERATIONAL, null, null));
+        machineService.patchMachine(press.getId(), new MachinePatchPayload(null, MachineStatus.ERROR, null, null), null);
+        // Not a status change
+        machineService.patchMachine(press.getId(), new MachinePatchPayload("Press 2", null, null, null), null);
+        machineService.updateMachine(press.getId(), new MachinePayload("Press 2", MachineStatus.OPERATIONAL, null, null), null);
+
+        List<MachineStatusInterval> intervals = intervals(press.getId());
+        assertThat(intervals).extracting(MachineStatusInterval::getStatus).containsExactly(
+                MachineStatus.OPERATIONAL, MachineStatus.ERROR, MachineStatus.OPERATIONAL);
+        assertThat(intervals.subList(0, 2)).allSatisfy(interval -> assertThat(interval.getEndedAt()).isNotNull());
+        assertThat(intervals.get(2).getEndedAt()).isNull();
+        assertThat(machineReliabilityService.getReliability(null, LocalDateTime.now().plusSeconds(1), null))
+                .extracting(MachineReliability::machineId, MachineReliability::failures)
+                .containsExactly(tuple(press.getId(), 1));
+
+        machineService.deleteMachine(press.getId(), null);
+        assertThat(intervals(press.getId())).isEmpty();
+    }
+
+    @Test
+    void opensIntervalsOnlyForMachinesWithoutAnOpenOne() {
+        Machine tracked = machineService.saveMachine(new MachinePayload("Press", MachineStatus.OPERATIONAL, null, null));
+        // Saved without going through the service, as before intervals were recorded
+        Machine untracked = machineRepository.save(Machine.builder().name("Lathe").status(MachineStatus.IDLE).build());
+
+        machineReliabilityService.openMissingIntervals();
+        machineReliabilityService.openMissingIntervals();
+
+        assertThat(intervals(tracked.getId())).hasSize(1);
+        assertThat(intervals(untracked.getId())).singleElement().satisfies(interval -> {
+            assertThat(interval.getStatus()).isEqualTo(MachineStatus.IDLE);
+            assertThat(interval.getEndedAt()).isNull();
+        });
+    }
+
+    private List<MachineStatusInterval> intervals(Long machineId) {
+        return machineStatusIntervalRepository.findAll().stream()
+                .filter(interval -> interval.getMachineId().equals(machineId))
+                .sorted(Comparator.comparing(MachineStatusInterval::getId))
+                .toList();
+    }
+}
@@ -0,0 +1,158 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.BulkStatusUpdatePayload;
+import com.manufacturing.backend.common.BulkStatusUpdateResult;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ManufacturingOrderService.class, StockService.class})
+class ManufacturingOrderStatusUpdateTest {
+
+    @Autowired
+    private ManufacturingOrderService manufacturingOrderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        Product bolt = entityManager.persist(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(10).reservedStock(3).supplier("Acme").build());
+        Machine press = entityManager.persist(Machine.builder()
+                .name("Press").status(MachineStatus.OPERATIONAL).build());
+        ManufacturingOrder order = new ManufacturingOrder();
+        order.setProject("Alpha");
+        order.setStatus(ManufacturingOrderStatus.PLANNED);
+        order.setQuantity(3);
+        order.setDate(LocalDateTime.of(2025, 3, 1, 8, 0));
+        order.setProduct(bolt);
+        order.setMachine(press);
+        orderId = entityManager.persist(order).getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void movesOrderAndBumpsVersion() {
+        ManufacturingOrder updated = manufacturingOrderService.updateStatus(orderId, ManufacturingOrderStatus.IN_PROGRESS, 0L)
+                .orElseThrow();
+
+        assertThat(updated.getStatus()).isEqualTo(ManufacturingOrderStatus.IN_PROGRESS);
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        ManufacturingOrder reloaded = entityManager.find(ManufacturingOrder.class, orderId);
+        assertThat(reloaded.getStatus()).isEqualTo(ManufacturingOrderStatus.IN_PROGRESS);
+        assertThat(reloaded.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void rejectsStaleVersion() {
+        manufacturingOrderService.updateStatus(orderId, ManufacturingOrderStatus.IN_PROGRESS, 0L);
+
+        assertThatThrownBy(() -> manufacturingOrderService.updateStatus(orderId, ManufacturingOrderStatus.VOIDED, 0L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void tellsWhyNoRowWasUpdated() {
+        assertThat(manufacturingOrderService.updateStatus(-1L, ManufacturingOrderStatus.IN_PROGRESS, null)).isEmpty();
+        assertThatThrownBy(() -> manufacturingOrderService.updateStatus(orderId, ManufacturingOrderStatus.IN_PROGRESS, 5L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThatThrownBy(() -> manufacturingOrderService.updateStatus(orderId, ManufacturingOrderStatus.COMPLETED, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("PLANNED to COMPLETED");
+        // Moving to the current status is a no-op, as long as the version still matches
+        assertThat(manufacturingOrderService.updateStatus(orderId, ManufacturingOrderStatus.PLANNED, 0L))
+                .get().extracting(ManufacturingOrder::getVersion).isEqualTo(0L);
+        assertThat(entityManager.find(ManufacturingOrder.class, orderId).getVersion()).isZero();
+    }
+
+    @Test
+    void voidsFromAnyOpenStatusAndReleasesStock() {
+        manufacturingOrderService.updateStatus(orderId, ManufacturingOrderStatus.IN_PROGRESS, null);
+
+        ManufacturingOrder voided = manufacturingOrderService.updateStatus(orderId, ManufacturingOrderStatus.VOIDED, 1L)
+                .orElseThrow();
+
+        assertThat(voided.getStatus()).isEqualTo(ManufacturingOrderStatus.VOIDED);
+        assertThat(voided.getVersion()).isEqualTo(2L);
+        entityManager.clear();
+        assertThat(entityManager.find(Product.class, voided.getProduct().getId()).getReservedStock()).isZero();
+    }
+
+    @Test
+    void rejectsTransitionOutOfTerminalStatus() {
+        manufacturingOrderService.updateStatus(orderId, ManufacturingOrderStatus.VOIDED, null);
+
+        assertThatThrownBy(() -> manufacturingOrderService.updateStatus(orderId, ManufacturingOrderStatus.PLANNED, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("VOIDED to PLANNED");
+        Product bolt = entityManager.find(Product.class, entityManager.find(ManufacturingOrder.class, orderId).getProduct().getId());
+        assertThat(bolt.getReservedStock()).isZero();
+    }
+
+    @Test
+    void bulkUpdateMovesMatchingOrdersAndReleasesStock() {
+        BulkStatusUpdateResult result = manufacturingOrderService.updateStatuses(new BulkStatusUpdatePayload(
+                null, null, "Alpha", ManufacturingOrderStatus.PLANNED, ManufacturingOrderStatus.VOIDED));
+
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.skippedIds()).isNull();
+        ManufacturingOrder reloaded = entityManager.find(ManufacturingOrder.class, orderId);
+        assertThat(reloaded.getStatus()).isEqualTo(ManufacturingOrderStatus.VOIDED);
+        assertThat(reloaded.getVersion()).isEqualTo(1L);
+        assertThat(reloaded.getProduct().getReservedStock()).isZero();
+    }
+
+    @Test
+    void bulkUpdateSkipsOrdersThatCannotTransition() {
+        BulkStatusUpdateResult result = manufacturingOrderService.updateStatuses(new BulkStatusUpdatePayload(
+                List.of(orderId, -1L), null, null, null, ManufacturingOrderStatus.COMPLETED));
+
+        assertThat(result.updated()).isZero();
+        assertThat(result.skippedIds()).containsExactly(orderId, -1L);
+        assertThat(entityManager.find(ManufacturingOrder.class, orderId).getStatus()).isEqualTo(ManufacturingOrderStatus.PLANNED);
+    }
+
+    @Test
+    void bulkUpdateRejectsAFilterMatchingTooManyOrders() {
+        ManufacturingOrder first = entityManager.find(ManufacturingOrder.class, orderId);
+        for (int i = 0; i < BulkStatusUpdatePayload.MAX_ORDERS; i++) {
+            ManufacturingOrder order = new ManufacturingOrder();
+            order.setProject("Alpha");
+            order.setStatus(ManufacturingOrderStatus.PLANNED);
+            order.setQuantity(1);
+            order.setDate(first.getDate());
+            order.setProduct(first.getProduct());
+            order.setMachine(first.getMachine());
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThatThrownBy(() -> manufacturingOrderService.updateStatuses(new BulkStatusUpdatePayload(
+                null, null, "Alpha", null, ManufacturingOrderStatus.VOIDED)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("The selection matches more than 5000 orders");
+        assertThat(entityManager.find(ManufacturingOrder.class, orderId).getStatus()).isEqualTo(ManufacturingOrderStatus.PLANNED);
+    }
+}
@@ -0,0 +1,97 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.OrderStatusCount;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.model.ArchivedManufacturingOrder;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.ArchivedManufacturingOrderRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "orders.archive.batch-size=2"
+})
+@Import(OrderArchiveService.class)
+class OrderArchiveServiceTest {
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private ManufacturingOrderRepository manufacturingOrderRepository;
+
+    @Autowired
+    private ArchivedManufacturingOrderRepository archivedManufacturingOrderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final List<Long> oldFinalIds = new ArrayList<>();
+    private Long recentCompletedId;
+    private Long oldPlannedId;
+
+    @BeforeEach
+    void setUp() {
+        Product bolt = entityManager.persist(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(10).supplier("Acme").build());
+        Machine press = entityManager.persist(Machine.builder()
+                .name("Press").status(MachineStatus.OPERATIONAL).build());
+        for (ManufacturingOrderStatus status : List.of(ManufacturingOrderStatus.COMPLETED,
+                ManufacturingOrderStatus.VOIDED, ManufacturingOrderStatus.COMPLETED)) {
+            oldFinalIds.add(persistOrder(bolt, press, status));
+        }
+        recentCompletedId = persistOrder(bolt, press, ManufacturingOrderStatus.COMPLETED);
+        oldPlannedId = persistOrder(bolt, press, ManufacturingOrderStatus.PLANNED);
+        entityManager.flush();
+        entityManager.getEntityManager()
+                .createNativeQuery("update manufacturing_order set updated_at = :old where id <> :recent")
+                .setParameter("old", LocalDateTime.of(2020, 1, 1, 0, 0))
+                .setParameter("recent", recentCompletedId)
+                .executeUpdate();
+        entityManager.clear();
+    }
+
+    @Test
+    void movesOldFinalOrdersInBatches() {
+        int archived = orderArchiveService.archiveOldOrders();
+
+        assertThat(archived).isEqualTo(3);
+        assertThat(manufacturingOrderRepository.findAll())
+                .extracting(ManufacturingOrder::getId)
+                .containsExactlyInAnyOrder(recentCompletedId, oldPlannedId);
+        assertThat(archivedManufacturingOrderRepository.findAll())
+                .extracting(ArchivedManufacturingOrder::getId)
+                .containsExactlyInAnyOrderElementsOf(oldFinalIds);
+        assertThat(archivedManufacturingOrderRepository.countGroupedByStatus()).containsExactlyInAnyOrder(
+                new OrderStatusCount(ManufacturingOrderStatus.COMPLETED, 2L),
+                new OrderStatusCount(ManufacturingOrderStatus.VOIDED, 1L));
+        assertThat(orderArchiveService.archiveOldOrders()).isZero();
+    }
+
+    private Long persistOrder(Product product, Machine machine, ManufacturingOrderStatus status) {
+        ManufacturingOrder order = new ManufacturingOrder();
+        order.setProject("Alpha");
+        order.setStatus(status);
+        order.setQuantity(3);
+        order.setDate(LocalDateTime.of(2019, 12, 1, 8, 0));
+        order.setProduct(product);
+        order.setMachine(machine);
+        return entityManager.persist(order).getId();
+    }
+}
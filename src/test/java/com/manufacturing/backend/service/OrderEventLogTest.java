@@ -0,0 +1,302 @@
+package com.manufacturing.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.OrderEventType;
+import com.manufacturing.backend.common.OrderTimeline;
+import com.manufacturing.backend.common.OrderTimelineEvent;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ManufacturingOrdersBulkChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrdersCascadeDeletedEvent;
+import com.manufacturing.backend.model.OrderEvent;
+import com.manufacturing.backend.repository.OrderEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderEventLogTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    @TempDir
+    private Path directory;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<OrderEvent> inserted = new ArrayList<>();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private Path wal;
+
+    @BeforeEach
+    void setUp() {
+        wal = directory.resolve("order-events.wal");
+    }
+
+    @Test
+    void replaysWriteAheadFileAfterFailedInsert() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), any(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenAnswer(invocation -> {
+                    inserted.addAll(invocation.<Collection<OrderEvent>>getArgument(1));
+                    return new int[0][];
+                });
+        OrderEventLog log = newLog(16);
+        log.onOrderChanged(ManufacturingOrderChangedEvent.created(snapshot(1L, ManufacturingOrderStatus.PLANNED, 10L)));
+        log.onOrderChanged(new ManufacturingOrderChangedEvent(
+                snapshot(1L, ManufacturingOrderStatus.PLANNED, 10L), snapshot(1L, ManufacturingOrderStatus.IN_PROGRESS, 20L)));
+
+        log.flush();
+        assertThat(inserted).isEmpty();
+        assertThat(Files.size(wal)).isPositive();
+
+        // As after a restart: only the file is left
+        OrderEventLog restarted = newLog(16);
+        restarted.flush();
+
+        assertThat(inserted).extracting(OrderEvent::getType).containsExactly(
+                OrderEventType.CREATED, OrderEventType.STATUS_CHANGED, OrderEventType.REASSIGNED);
+        assertThat(inserted).extracting(OrderEvent::getOrderId).containsOnly(1L);
+        assertThat(Files.size(wal)).isZero();
+        restarted.shutdown();
+        log.shutdown();
+    }
+
+    @Test
+    void writesEventsThatOverflowTheBufferToTheFile() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), any(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    inserted.addAll(invocation.<Collection<OrderEvent>>getArgument(1));
+                    return new int[0][];
+                });
+        OrderEventLog log = newLog(2);
+        List<ManufacturingOrderChangedEvent> changes = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            changes.add(new ManufacturingOrderChangedEvent(
+                    snapshot(id, ManufacturingOrderStatus.PLANNED, 10L), snapshot(id, ManufacturingOrderStatus.VOIDED, 10L)));
+        }
+
+        log.onOrdersChanged(new ManufacturingOrdersBulkChangedEvent(changes));
+        log.flush();
+
+        assertThat(inserted).extracting(OrderEvent::getOrderId).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+        assertThat(Files.size(wal)).isZero();
+        log.shutdown();
+    }
+
+    @Test
+    void overflowingWritersDoNotWaitForTheInserts() throws Exception {
+        CountDownLatch inserting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), any(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    inserting.countDown();
+                    release.await();
+                    inserted.addAll(invocation.<Collection<OrderEvent>>getArgument(1));
+                    return new int[0][];
+                });
+        OrderEventLog log = newLog(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            log.onOrderChanged(ManufacturingOrderChangedEvent.created(snapshot(1L, ManufacturingOrderStatus.PLANNED, 10L)));
+            Future<?> flush = executor.submit(log::flush);
+            assertThat(inserting.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // The buffer holds two events, so the third goes to the file while the first is being inserted
+            Future<?> writer = executor.submit(() -> {
+                for (long id = 2; id <= 4; id++) {
+                    log.onOrderChanged(ManufacturingOrderChangedEvent.created(snapshot(id, ManufacturingOrderStatus.PLANNED, 10L)));
+                }
+            });
+            writer.get(5, TimeUnit.SECONDS);
+            assertThat(flush).isNotDone();
+
+            release.countDown();
+            flush.get(5, TimeUnit.SECONDS);
+            // The file still holds the events appended during the insert
+            assertThat(Files.size(wal)).isPositive();
+            log.flush();
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertThat(inserted).extracting(OrderEvent::getOrderId).containsOnly(1L, 2L, 3L, 4L);
+        assertThat(inserted).extracting(OrderEvent::getId).doesNotHaveDuplicates();
+        assertThat(Files.size(wal)).isZero();
+        log.shutdown();
+    }
+
+    @Test
+    void eventsAreInTheFileWhenTheListenerReturns() throws Exception {
+        OrderEventLog log = newLog(16);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                long base = w * 1_000L;
+                writers.add(executor.submit(() -> {
+                    for (long id = base; id < base + 250; id++) {
+                        log.onOrderChanged(ManufacturingOrderChangedEvent.created(snapshot(id, ManufacturingOrderStatus.PLANNED, 10L)));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Nothing was flushed, yet every event survives a restart
+        List<String> lines = Files.readAllLines(wal);
+        assertThat(lines).hasSize(2_000);
+        List<Long> orderIds = new ArrayList<>();
+        for (String line : lines) {
+            orderIds.add(objectMapper.readValue(line, OrderEvent.class).getOrderId());
+        }
+        assertThat(orderIds).doesNotHaveDuplicates();
+        when(jdbcTemplate.batchUpdate(anyString(), any(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    inserted.addAll(invocation.<Collection<OrderEvent>>getArgument(1));
+                    return new int[0][];
+                });
+        OrderEventLog restarted = newLog(16);
+        restarted.flush();
+        assertThat(inserted).hasSize(2_000);
+        restarted.shutdown();
+    }
+
+    @Test
+    void logsOrdersDeletedByCascade() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), any(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    inserted.addAll(invocation.<Collection<OrderEvent>>getArgument(1));
+                    return new int[0][];
+                });
+        OrderEventLog log = newLog(16);
+
+        log.onOrdersCascadeDeleted(new ManufacturingOrdersCascadeDeletedEvent(List.of(
+                snapshot(1L, ManufacturingOrderStatus.PLANNED, 10L), snapshot(2L, ManufacturingOrderStatus.COMPLETED, 10L))));
+        log.flush();
+
+        assertThat(inserted).extracting(OrderEvent::getOrderId, OrderEvent::getType, OrderEvent::getFromStatus,
+                        OrderEvent::getFromMachineId, OrderEvent::getToStatus)
+                .containsExactly(
+                        tuple(1L, OrderEventType.DELETED, ManufacturingOrderStatus.PLANNED, 10L, null),
+                        tuple(2L, OrderEventType.DELETED, ManufacturingOrderStatus.COMPLETED, 10L, null));
+        log.shutdown();
+    }
+
+    @Test
+    void timelineListsEventsWithoutTheirStorageFields() throws Exception {
+        OrderEventRepository repository = mock(OrderEventRepository.class);
+        when(repository.findByOrderIdOrderByOccurredAtAsc(1L)).thenReturn(List.of(
+                event(OrderEventType.CREATED, ManufacturingOrderStatus.PLANNED, START)));
+        OrderEventLog log = new OrderEventLog(jdbcTemplate, repository, objectMapper, 16, 500, wal);
+
+        OrderTimeline timeline = log.getTimeline(1L);
+
+        assertThat(timeline.orderId()).isEqualTo(1L);
+        assertThat(timeline.events()).containsExactly(
+                new OrderTimelineEvent(OrderEventType.CREATED, null, ManufacturingOrderStatus.PLANNED, null, null, START));
+    }
+
+    @Test
+    void computesDwellTimePerStatus() {
+        List<OrderEvent> events = List.of(
+                event(OrderEventType.CREATED, ManufacturingOrderStatus.PLANNED, START),
+                event(OrderEventType.STATUS_CHANGED, ManufacturingOrderStatus.IN_PROGRESS, START.plusHours(1)),
+                event(OrderEventType.REASSIGNED, ManufacturingOrderStatus.IN_PROGRESS, START.plusMinutes(90)),
+                event(OrderEventType.STATUS_CHANGED, ManufacturingOrderStatus.COMPLETED, START.plusHours(3)));
+
+        Map<ManufacturingOrderStatus, Long> dwell = OrderEventLog.dwellSeconds(events, START.plusDays(1));
+
+        assertThat(dwell).containsOnly(
+                Map.entry(ManufacturingOrderStatus.PLANNED, 3_600L),
+                Map.entry(ManufacturingOrderStatus.IN_PROGRESS, 7_200L));
+        assertThat(OrderEventLog.dwellSeconds(events.subList(0, 2), START.plusHours(2)))
+                .containsEntry(ManufacturingOrderStatus.IN_PROGRESS, 3_600L);
+    }
+
+    @Test
+    void ringBufferDeliversEveryElementOnceToASingleConsumer() throws Exception {
+        RingBuffer<Long> buffer = new RingBuffer<>(1000);
+        assertThat(buffer.capacity()).isEqualTo(1024);
+        int producers = 4;
+        int perProducer = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            futures.add(executor.submit(() -> {
+                for (long i = 0; i < perProducer; i++) {
+                    while (buffer.offer(base + i) < 0) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        List<Long> drained = new ArrayList<>();
+        int received = 0;
+        while (received < producers * perProducer) {
+            drained.clear();
+            received += buffer.drainTo(drained, 256);
+            for (long value : drained) {
+                int producer = (int) (value / perProducer);
+                // Each producer's elements come out in the order it offered them
+                assertThat(value).isGreaterThan(lastSeen[producer]);
+                lastSeen[producer] = value;
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(received).isEqualTo(producers * perProducer);
+        assertThat(buffer.size()).isZero();
+        for (int p = 0; p < producers; p++) {
+            assertThat(lastSeen[p]).isEqualTo((long) (p + 1) * perProducer - 1);
+        }
+    }
+
+    private OrderEventLog newLog(int bufferSize) throws Exception {
+        return new OrderEventLog(jdbcTemplate, mock(OrderEventRepository.class), objectMapper, bufferSize, 500, wal);
+    }
+
+    private static ManufacturingOrderSnapshot snapshot(Long id, ManufacturingOrderStatus status, Long machineId) {
+        return new ManufacturingOrderSnapshot(id, status, START, machineId, 100L, 5);
+    }
+
+    private static OrderEvent event(OrderEventType type, ManufacturingOrderStatus status, LocalDateTime occurredAt) {
+        return OrderEvent.builder().orderId(1L).type(type).toStatus(status).occurredAt(occurredAt).build();
+    }
+}
@@ -0,0 +1,179 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.CreateManufacturingOrderPayload;
+import com.manufacturing.backend.common.DailyRollupRow;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.ArchivedManufacturingOrderRepository;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import com.manufacturing.backend.repository.OrderDailyRollupRepository;
+import com.manufacturing.backend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * The rollup is written before commit, so these tests run the services in their own committed
+ * transactions rather than in a rolled-back test transaction.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class OrderRollupServiceTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    @Autowired
+    private ManufacturingOrderService manufacturingOrderService;
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    @Autowired
+    private OrderDailyRollupRepository orderDailyRollupRepository;
+
+    @Autowired
+    private ManufacturingOrderRepository manufacturingOrderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MachineRepository machineRepository;
+
+    private Product bolt;
+    private Machine press;
+
+    @BeforeEach
+    void setUp() {
+        orderDailyRollupRepository.deleteAllInBatch();
+        bolt = productRepository.save(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(100).supplier("Acme").build());
+        press = machineRepository.save(Machine.builder()
+                .name("Press").status(MachineStatus.OPERATIONAL).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        manufacturingOrderRepository.deleteAllInBatch();
+        orderDailyRollupRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        machineRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void createStatusChangeAndDeleteMoveTheRollupRows() {
+        Long first = manufacturingOrderService.createOrder(payload(2, DATE)).getId();
+        manufacturingOrderService.createOrder(payload(3, DATE.plusHours(4)));
+        manufacturingOrderService.createOrder(payload(5, DATE.plusDays(1)));
+        assertThat(rows()).containsOnly(
+                entry(key(DATE, ManufacturingOrderStatus.AWAITING_APPROVAL), new long[]{2, 5}),
+                entry(key(DATE.plusDays(1), ManufacturingOrderStatus.AWAITING_APPROVAL), new long[]{1, 5}));
+
+        manufacturingOrderService.updateStatus(first, ManufacturingOrderStatus.PLANNED, null);
+        assertThat(rows()).containsOnly(
+                entry(key(DATE, ManufacturingOrderStatus.AWAITING_APPROVAL), new long[]{1, 3}),
+                entry(key(DATE, ManufacturingOrderStatus.PLANNED), new long[]{1, 2}),
+                entry(key(DATE.plusDays(1), ManufacturingOrderStatus.AWAITING_APPROVAL), new long[]{1, 5}));
+
+        manufacturingOrderService.deleteOrder(first, null);
+        // The emptied row stays at zero until it is pruned
+        assertThat(rows()).containsOnly(
+                entry(key(DATE, ManufacturingOrderStatus.AWAITING_APPROVAL), new long[]{1, 3}),
+                entry(key(DATE, ManufacturingOrderStatus.PLANNED), new long[]{0, 0}),
+                entry(key(DATE.plusDays(1), ManufacturingOrderStatus.AWAITING_APPROVAL), new long[]{1, 5}));
+        assertThat(orderRollupService.pruneEmptyRows()).isEqualTo(1);
+    }
+
+    @Test
+    void rebuildMatchesTheIncrementalRows() {
+        Long first = manufacturingOrderService.createOrder(payload(2, DATE)).getId();
+        manufacturingOrderService.createOrder(payload(3, DATE));
+        manufacturingOrderService.updateStatus(first, ManufacturingOrderStatus.PLANNED, null);
+        orderRollupService.pruneEmptyRows();
+        Map<String, long[]> incremental = rows();
+
+        assertThat(orderRollupService.rebuild()).isEqualTo(2);
+
+        assertThat(rows()).usingRecursiveComparison().isEqualTo(incremental);
+    }
+
+    @Test
+    void writesTheDeltasOfATransactionOnceSortedByRow() {
+        OrderDailyRollupRepository repository = mock(OrderDailyRollupRepository.class);
+        OrderRollupService service = new OrderRollupService(repository, mock(ManufacturingOrderRepository.class),
+                mock(ArchivedManufacturingOrderRepository.class), mock(ApplicationEventPublisher.class));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.onOrderChanged(new ManufacturingOrderChangedEvent(
+                    snapshot(1L, ManufacturingOrderStatus.PLANNED, 2), snapshot(1L, ManufacturingOrderStatus.IN_PROGRESS, 2)));
+            service.onOrderChanged(new ManufacturingOrderChangedEvent(
+                    snapshot(2L, ManufacturingOrderStatus.AWAITING_APPROVAL, 3), snapshot(2L, ManufacturingOrderStatus.PLANNED, 3)));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertThat(synchronizations).hasSize(1);
+            verifyNoInteractions(repository);
+
+            synchronizations.get(0).beforeCommit(false);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        LocalDate day = DATE.toLocalDate();
+        verify(repository).incrementAll(List.of(
+                new DailyRollupRow(day, ManufacturingOrderStatus.AWAITING_APPROVAL, 1L, 1L, -1, -3),
+                new DailyRollupRow(day, ManufacturingOrderStatus.PLANNED, 1L, 1L, 0, 1),
+                new DailyRollupRow(day, ManufacturingOrderStatus.IN_PROGRESS, 1L, 1L, 1, 2)));
+        verifyNoMoreInteractions(repository);
+    }
+
+    private static ManufacturingOrderSnapshot snapshot(Long id, ManufacturingOrderStatus status, int quantity) {
+        return new ManufacturingOrderSnapshot(id, status, DATE, 1L, 1L, quantity);
+    }
+
+    private Map<String, long[]> rows() {
+        return orderDailyRollupRepository.findAll().stream().collect(Collectors.toMap(
+                row -> key(row.getOrderDay(), row.getStatus()),
+                row -> new long[]{row.getOrderCount(), row.getQuantitySum()}));
+    }
+
+    private String key(LocalDateTime date, ManufacturingOrderStatus status) {
+        return key(date.toLocalDate(), status);
+    }
+
+    private String key(LocalDate day, ManufacturingOrderStatus status) {
+        return day + " " + status;
+    }
+
+    private CreateManufacturingOrderPayload payload(int quantity, LocalDateTime date) {
+        return new CreateManufacturingOrderPayload("Alpha", quantity, date, bolt.getId(), press.getId());
+    }
+}
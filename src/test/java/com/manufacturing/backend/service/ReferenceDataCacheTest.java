@@ -0,0 +1,165 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.CreateManufacturingOrderPayload;
+import com.manufacturing.backend.common.MachinePatchPayload;
+import com.manufacturing.backend.common.MachineReference;
+import com.manufacturing.backend.common.MachineStatus;
+import com.manufacturing.backend.common.ProductPayload;
+import com.manufacturing.backend.common.ProductReference;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.config.CacheConfig;
+import com.manufacturing.backend.model.Machine;
+import com.manufacturing.backend.model.ManufacturingOrder;
+import com.manufacturing.backend.model.Product;
+import com.manufacturing.backend.repository.MachineRepository;
+import com.manufacturing.backend.repository.ManufacturingOrderRepository;
+import com.manufacturing.backend.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class ReferenceDataCacheTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MachineRepository machineRepository;
+
+    @Autowired
+    private ManufacturingOrderRepository manufacturingOrderRepository;
+
+    @Autowired
+    private ManufacturingOrderService manufacturingOrderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private MachineService machineService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Cache productCache;
+    private Statistics statistics;
+    private Product bolt;
+    private Machine press;
+
+    @BeforeEach
+    void setUp() {
+        productCache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        productCache.clear();
+        bolt = productRepository.save(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(100).supplier("Acme").build());
+        press = machineRepository.save(Machine.builder()
+                .name("Press").status(MachineStatus.OPERATIONAL).build());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        manufacturingOrderRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        machineRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void cachesAnImmutableReference() {
+        ProductReference first = productRepository.findReferenceById(bolt.getId()).orElseThrow();
+        ProductReference second = productRepository.findReferenceById(bolt.getId()).orElseThrow();
+
+        assertThat(first).isEqualTo(new ProductReference(bolt.getId(), "Bolt", ProductType.COMPONENT, 0L));
+        assertThat(second).isSameAs(first);
+        assertThat(productCache.get(bolt.getId(), ProductReference.class)).isSameAs(first);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+        // Unknown products are not cached, so one created later is found
+        assertThat(productRepository.findReferenceById(-1L)).isEmpty();
+        assertThat(productCache.get(-1L)).isNull();
+    }
+
+    @Test
+    void ordersLinkTheCachedProductWithoutLoadingIt() {
+        ManufacturingOrder first = manufacturingOrderService.createOrder(payload(2));
+        ManufacturingOrder second = manufacturingOrderService.createOrder(payload(3));
+
+        assertThat(statistics.getEntityStatistics(Product.class.getName()).getLoadCount()).isZero();
+        // Each order gets its own copy, so changing one cannot leak into the cache or the other
+        assertThat(first.getProduct()).isNotSameAs(second.getProduct());
+        assertThat(first.getProduct().getName()).isEqualTo("Bolt");
+        first.getProduct().setName("Changed");
+        assertThat(productRepository.findReferenceById(bolt.getId()).orElseThrow().name()).isEqualTo("Bolt");
+        assertThat(manufacturingOrderRepository.findAll())
+                .allSatisfy(order -> assertThat(order.getProduct().getId()).isEqualTo(bolt.getId()));
+    }
+
+    @Test
+    void evictsOnceAProductUpdateCommits() {
+        productRepository.findReferenceById(bolt.getId());
+
+        productService.updateProduct(bolt.getId(), new ProductPayload("Hex bolt", ProductType.COMPONENT, 100, "Acme", null), null);
+
+        assertThat(productCache.get(bolt.getId())).isNull();
+        assertThat(productRepository.findReferenceById(bolt.getId()).orElseThrow())
+                .isEqualTo(new ProductReference(bolt.getId(), "Hex bolt", ProductType.COMPONENT, 1L));
+    }
+
+    @Test
+    void keepsTheReferenceWhenOnlyStockMoves() {
+        ProductReference cached = productRepository.findReferenceById(bolt.getId()).orElseThrow();
+
+        manufacturingOrderService.createOrder(payload(5));
+
+        assertThat(productCache.get(bolt.getId(), ProductReference.class)).isSameAs(cached);
+        assertThat(productRepository.findById(bolt.getId()).orElseThrow().getReservedStock()).isEqualTo(5);
+    }
+
+    @Test
+    void cachesAnImmutableMachineReferenceEvictedOnChange() {
+        Cache machineCache = cacheManager.getCache(CacheConfig.MACHINES_CACHE);
+        machineCache.clear();
+        MachineReference cached = machineRepository.findReferenceById(press.getId()).orElseThrow();
+        assertThat(cached).isEqualTo(new MachineReference(press.getId(), "Press", MachineStatus.OPERATIONAL, 1, 0L));
+
+        ManufacturingOrder first = manufacturingOrderService.createOrder(payload(2));
+        ManufacturingOrder second = manufacturingOrderService.createOrder(payload(3));
+
+        assertThat(statistics.getEntityStatistics(Machine.class.getName()).getLoadCount()).isZero();
+        assertThat(first.getMachine()).isNotSameAs(second.getMachine());
+        first.getMachine().setStatus(MachineStatus.ERROR);
+        assertThat(machineRepository.findReferenceById(press.getId()).orElseThrow()).isSameAs(cached);
+
+        machineService.patchMachine(press.getId(), new MachinePatchPayload(null, MachineStatus.IDLE, null, null), null);
+
+        assertThat(machineCache.get(press.getId())).isNull();
+        assertThat(machineRepository.findReferenceById(press.getId()).orElseThrow().status()).isEqualTo(MachineStatus.IDLE);
+    }
+
+    private CreateManufacturingOrderPayload payload(int quantity) {
+        return new CreateManufacturingOrderPayload("Alpha", quantity, LocalDateTime.of(2025, 3, 1, 8, 0),
+                bolt.getId(), press.getId());
+    }
+}
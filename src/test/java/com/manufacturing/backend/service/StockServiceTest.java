@@ -0,0 +1,186 @@
+package com.manufacturing.backend.service;
+
+import com.manufacturing.backend.common.ManufacturingOrderStatus;
+import com.manufacturing.backend.common.ProductType;
+import com.manufacturing.backend.event.ManufacturingOrderChangedEvent;
+import com.manufacturing.backend.event.ManufacturingOrderSnapshot;
+import com.manufacturing.backend.event.ProductChangedEvent;
+import com.manufacturing.backend.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(StockService.class)
+@RecordApplicationEvents
+class StockServiceTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private Long boltId;
+    private Long frameId;
+
+    @BeforeEach
+    void setUp() {
+        boltId = entityManager.persist(Product.builder()
+                .name("Bolt").type(ProductType.COMPONENT).stock(10).supplier("Acme").build()).getId();
+        frameId = entityManager.persist(Product.builder()
+                .name("Frame").type(ProductType.MODULE).stock(10).supplier("Acme").build()).getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void openOrdersReserveAndQuantityChangesAdjustTheReservation() {
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.AWAITING_APPROVAL, boltId, 4));
+        assertStock(boltId, 10, 4);
+
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.AWAITING_APPROVAL, boltId, 4),
+                order(ManufacturingOrderStatus.PLANNED, boltId, 6));
+        assertStock(boltId, 10, 6);
+
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.PLANNED, boltId, 6),
+                order(ManufacturingOrderStatus.IN_PROGRESS, boltId, 1));
+        assertStock(boltId, 10, 1);
+    }
+
+    @Test
+    void completingConsumesTheReservedUnits() {
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 4));
+
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.IN_PROGRESS, boltId, 4),
+                order(ManufacturingOrderStatus.COMPLETED, boltId, 4));
+
+        assertStock(boltId, 6, 0);
+    }
+
+    @Test
+    void completingWithAnotherQuantityReleasesThenConsumes() {
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 4));
+
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.IN_PROGRESS, boltId, 4),
+                order(ManufacturingOrderStatus.COMPLETED, boltId, 7));
+
+        assertStock(boltId, 3, 0);
+    }
+
+    @Test
+    void voidingReleasesTheReservation() {
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 4));
+
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.PLANNED, boltId, 4),
+                order(ManufacturingOrderStatus.VOIDED, boltId, 4));
+
+        assertStock(boltId, 10, 0);
+    }
+
+    @Test
+    void deletingAnOpenOrderReleasesAndACompletedOneKeepsTheStockConsumed() {
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 4));
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.PLANNED, boltId, 4), null);
+        assertStock(boltId, 10, 0);
+
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 3));
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.IN_PROGRESS, boltId, 3),
+                order(ManufacturingOrderStatus.COMPLETED, boltId, 3));
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.COMPLETED, boltId, 3), null);
+        assertStock(boltId, 7, 0);
+    }
+
+    @Test
+    void reopeningACompletedOrderRestocksThenReserves() {
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 4));
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.IN_PROGRESS, boltId, 4),
+                order(ManufacturingOrderStatus.COMPLETED, boltId, 4));
+
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.COMPLETED, boltId, 4),
+                order(ManufacturingOrderStatus.IN_PROGRESS, boltId, 4));
+
+        assertStock(boltId, 10, 4);
+    }
+
+    @Test
+    void movingAnOpenOrderToAnotherProductMovesTheReservation() {
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 4));
+
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.PLANNED, boltId, 4),
+                order(ManufacturingOrderStatus.PLANNED, frameId, 4));
+
+        assertStock(boltId, 10, 0);
+        assertStock(frameId, 10, 4);
+    }
+
+    @Test
+    void rejectsChangesBeyondTheAvailableStock() {
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 8));
+
+        assertThatThrownBy(() -> stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 3)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Insufficient stock for product with ID: " + boltId);
+        assertThatThrownBy(() -> stockService.applyOrderChange(order(ManufacturingOrderStatus.VOIDED, boltId, 3),
+                order(ManufacturingOrderStatus.COMPLETED, boltId, 3)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(stockService.tryReserve(boltId, 3)).isFalse();
+        assertStock(boltId, 10, 8);
+    }
+
+    @Test
+    void bulkStatusChangesAdjustEachProductOnce() {
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 2));
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 3));
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, frameId, 5));
+
+        stockService.applyStatusChanges(List.of(
+                change(ManufacturingOrderStatus.IN_PROGRESS, ManufacturingOrderStatus.COMPLETED, boltId, 2),
+                change(ManufacturingOrderStatus.IN_PROGRESS, ManufacturingOrderStatus.COMPLETED, boltId, 3),
+                change(ManufacturingOrderStatus.PLANNED, ManufacturingOrderStatus.VOIDED, frameId, 5)));
+
+        assertStock(boltId, 5, 0);
+        assertStock(frameId, 10, 0);
+    }
+
+    @Test
+    void publishesStockOnlyChanges() {
+        stockService.applyOrderChange(null, order(ManufacturingOrderStatus.PLANNED, boltId, 4));
+        stockService.applyOrderChange(order(ManufacturingOrderStatus.PLANNED, boltId, 4), null);
+
+        assertThat(events.stream(ProductChangedEvent.class))
+                .containsExactly(ProductChangedEvent.stockChanged(boltId), ProductChangedEvent.stockChanged(boltId));
+    }
+
+    private void assertStock(Long productId, int stock, int reserved) {
+        entityManager.clear();
+        Product product = entityManager.find(Product.class, productId);
+        assertThat(product.getStock()).as("stock").isEqualTo(stock);
+        assertThat(product.getReservedStock()).as("reserved stock").isEqualTo(reserved);
+    }
+
+    private static ManufacturingOrderChangedEvent change(ManufacturingOrderStatus from, ManufacturingOrderStatus to,
+                                                         Long productId, int quantity) {
+        return new ManufacturingOrderChangedEvent(order(from, productId, quantity), order(to, productId, quantity));
+    }
+
+    private static ManufacturingOrderSnapshot order(ManufacturingOrderStatus status, Long productId, int quantity) {
+        return new ManufacturingOrderSnapshot(1L, status, DATE, 1L, productId, quantity);
+    }
+}